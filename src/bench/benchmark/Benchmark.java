@@ -0,0 +1,81 @@
+package benchmark;
+
+/**
+ * Represents one benchmark of a hot path, run at several dataset sizes.
+ *
+ * For each size the runner calls setUpTrial once, then repeatedly calls
+ * setUpIteration (not timed) followed by one timed call of run. The time of
+ * the runs divided by the operations they performed is the reported time
+ * per operation. run returns a value derived from its work so
+ * the JIT cannot remove it as dead code.
+ */
+public abstract class Benchmark {
+    private final String name;
+    private final String operation;
+
+    /**
+     * Requires: name and operation are not empty
+     * Modifies: this
+     * Effects: creates a benchmark called name, whose operation is described
+     * by operation (e.g. "pull", "event").
+     */
+    protected Benchmark(String name, String operation) {
+        this.name = name;
+        this.operation = operation;
+    }
+
+    /**
+     * Effects: returns the benchmark's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Effects: returns what one operation is, for the report.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Effects: returns true if the benchmark can run at the given size in a
+     * reasonable heap; by default every size is supported.
+     */
+    public boolean supports(int size) {
+        return true;
+    }
+
+    /**
+     * Requires: supports(size)
+     * Modifies: this
+     * Effects: builds the dataset for the given size.
+     */
+    public abstract void setUpTrial(int size) throws Exception;
+
+    /**
+     * Modifies: this
+     * Effects: restores the state a run starts from; does nothing by default.
+     */
+    public void setUpIteration() throws Exception {
+    }
+
+    /**
+     * Modifies: this
+     * Effects: performs operationsPerRun() operations and returns a value
+     * depending on their results.
+     */
+    public abstract long run() throws Exception;
+
+    /**
+     * Effects: returns the number of operations one call of run performs.
+     */
+    public abstract int operationsPerRun();
+
+    /**
+     * Modifies: this
+     * Effects: releases the dataset; does nothing by default.
+     */
+    public void tearDownTrial() throws Exception {
+    }
+}
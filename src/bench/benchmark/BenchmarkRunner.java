@@ -0,0 +1,260 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks and reports the time per operation of each one at each
+ * dataset size, optionally saving the results or comparing them with a saved
+ * baseline.
+ *
+ * Every (benchmark, size) pair runs in a fresh JVM, started with the same
+ * class path and JVM options as this one, so the JIT profile and heap left
+ * behind by one benchmark cannot affect the next. Each pair runs WARMUP
+ * unmeasured iterations and then ITERATIONS measured ones. An iteration
+ * repeats the benchmark's run until it has taken at least 100 ms, so small
+ * datasets are measured over many runs; the report gives the mean and
+ * standard deviation of the measured iterations.
+ *
+ * The project has no build tool, so this stands in for JMH and covers the
+ * safeguards that matter at these timescales. Forking matches JMH's
+ * default of one fork per trial. The 5 x 100 ms of warmup is far longer
+ * than C2 needs to compile the loops being timed. Dead-code elimination is
+ * prevented by every run returning a value derived from all of its work,
+ * which is added to a volatile field, as a Blackhole would consume it.
+ * Each timed run performs thousands of operations, so the two nanoTime
+ * calls around it add well under 1% per operation, which is why per-call
+ * timing is not needed. The harness cannot stop the JIT from hoisting a
+ * call whose receiver and arguments never change out of a benchmark's loop,
+ * so benchmarks of O(1) calls read their receiver through a volatile field
+ * on every call, as GachaHistory stats does.
+ *
+ * Usage: java -Xmx4g -cp out:lib/json-20240303.jar benchmark.BenchmarkRunner
+ *        [--sizes 1000,1000000,10000000] [--only name-prefix]
+ *        [--out results.tsv] [--baseline src/bench/baseline.tsv] [--no-fork]
+ */
+public final class BenchmarkRunner {
+    private static final int[] DEFAULT_SIZES = {1_000, 1_000_000, 10_000_000};
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 10;
+    private static final long ITERATION_NANOS = 100_000_000L;
+    private static final String RESULT = "RESULT\t";
+
+    private static volatile long sink;
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Effects: returns every benchmark, in report order.
+     */
+    public static List<Benchmark> benchmarks() {
+        List<Benchmark> all = new ArrayList<>(ModelBenchmarks.all());
+        all.addAll(PersistenceBenchmarks.all());
+        return all;
+    }
+
+    /**
+     * Effects: runs the benchmarks selected by args and prints their results.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--child")) {
+            Benchmark benchmark = find(args[1]);
+            System.out.println(RESULT + measure(benchmark, Integer.parseInt(args[2])).format());
+            return;
+        }
+        int[] sizes = DEFAULT_SIZES;
+        String only = "";
+        String out = null;
+        String baseline = null;
+        boolean fork = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--only":
+                    only = args[++i];
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                case "--baseline":
+                    baseline = args[++i];
+                    break;
+                case "--no-fork":
+                    fork = false;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Map<String, Result> previous = baseline == null ? new HashMap<>() : load(baseline);
+
+        List<Result> results = new ArrayList<>();
+        System.out.printf("%-30s %10s %14s %10s %10s%n", "Benchmark", "Size", "ns/op", "+-", "vs base");
+        for (Benchmark benchmark : benchmarks()) {
+            if (!benchmark.getName().startsWith(only)) {
+                continue;
+            }
+            for (int size : sizes) {
+                if (!benchmark.supports(size)) {
+                    continue;
+                }
+                Result result = fork ? runForked(benchmark, size) : measure(benchmark, size);
+                results.add(result);
+                Result base = previous.get(result.key());
+                System.out.printf("%-30s %10d %14.1f %10.1f %10s  (%s)%n", result.name, result.size,
+                        result.nanosPerOp, result.stdDev,
+                        base == null ? "-" : String.format("%.2fx", result.nanosPerOp / base.nanosPerOp),
+                        benchmark.getOperation());
+            }
+        }
+        if (out != null) {
+            try (PrintWriter writer = new PrintWriter(out, StandardCharsets.UTF_8)) {
+                writer.println("# benchmark\tsize\tns/op\tstddev");
+                for (Result result : results) {
+                    writer.println(result.format());
+                }
+            }
+        }
+    }
+
+    // EFFECTS: runs benchmark at size in a new JVM and returns its result
+    private static Result runForked(Benchmark benchmark, int size) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BenchmarkRunner.class.getName());
+        command.add("--child");
+        command.add(benchmark.getName());
+        command.add(Integer.toString(size));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Result result = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT)) {
+                    result = Result.parse(line.substring(RESULT.length()));
+                } else {
+                    System.out.println("  " + line);
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IOException("Benchmark " + benchmark.getName() + " at size " + size + " failed");
+        }
+        return result;
+    }
+
+    // EFFECTS: runs WARMUP and then ITERATIONS iterations of benchmark at size
+    //          in this JVM and returns the time per operation
+    private static Result measure(Benchmark benchmark, int size) throws Exception {
+        benchmark.setUpTrial(size);
+        try {
+            for (int i = 0; i < WARMUP; i++) {
+                iterate(benchmark);
+            }
+            double[] nanosPerOp = new double[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                nanosPerOp[i] = iterate(benchmark);
+            }
+            double mean = Arrays.stream(nanosPerOp).average().orElse(0.0);
+            double variance = Arrays.stream(nanosPerOp).map(x -> (x - mean) * (x - mean)).sum()
+                    / Math.max(1, ITERATIONS - 1);
+            return new Result(benchmark.getName(), size, mean, Math.sqrt(variance));
+        } finally {
+            benchmark.tearDownTrial();
+        }
+    }
+
+    // EFFECTS: runs benchmark until at least ITERATION_NANOS have been spent in
+    //          timed runs, and at least once, and returns the time per operation
+    private static double iterate(Benchmark benchmark) throws Exception {
+        long elapsed = 0;
+        long operations = 0;
+        do {
+            benchmark.setUpIteration();
+            long start = System.nanoTime();
+            sink += benchmark.run();
+            elapsed += System.nanoTime() - start;
+            operations += benchmark.operationsPerRun();
+        } while (elapsed < ITERATION_NANOS);
+        return (double) elapsed / operations;
+    }
+
+    // EFFECTS: returns the benchmark called name
+    private static Benchmark find(String name) {
+        for (Benchmark benchmark : benchmarks()) {
+            if (benchmark.getName().equals(name)) {
+                return benchmark;
+            }
+        }
+        throw new IllegalArgumentException("No benchmark called " + name);
+    }
+
+    // EFFECTS: reads saved results, keyed by Result.key()
+    private static Map<String, Result> load(String file) throws IOException {
+        Map<String, Result> results = new HashMap<>();
+        if (!new File(file).exists()) {
+            System.out.println("No baseline at " + file);
+            return results;
+        }
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                Result result = Result.parse(line);
+                results.put(result.key(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The measured time per operation of one benchmark at one size.
+     */
+    private static final class Result {
+        private final String name;
+        private final int size;
+        private final double nanosPerOp;
+        private final double stdDev;
+
+        Result(String name, int size, double nanosPerOp, double stdDev) {
+            this.name = name;
+            this.size = size;
+            this.nanosPerOp = nanosPerOp;
+            this.stdDev = stdDev;
+        }
+
+        // EFFECTS: parses a line written by format()
+        static Result parse(String line) {
+            String[] fields = line.split("\t");
+            return new Result(fields[0], Integer.parseInt(fields[1]),
+                    Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+        }
+
+        // EFFECTS: returns this result as one tab-separated line
+        String format() {
+            return String.format(java.util.Locale.ROOT, "%s\t%d\t%.2f\t%.2f", name, size, nanosPerOp, stdDev);
+        }
+
+        // EFFECTS: returns the key identifying the benchmark and size
+        String key() {
+            return name + "@" + size;
+        }
+    }
+}
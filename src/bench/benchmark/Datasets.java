@@ -0,0 +1,49 @@
+package benchmark;
+
+import model.GachaHistory;
+import model.PullBatch;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates the pull histories benchmarks run against, locally and
+ * deterministically, so every run and every machine measures the same data.
+ */
+public final class Datasets {
+    private static final long SEED = 20240303L;
+
+    private Datasets() {
+    }
+
+    /**
+     * Requires: size >= 0
+     * Modifies: nothing
+     * Effects: returns a history of size records with pull indices 1..size,
+     * draw counts from 1 to 90 and 0 to 9 4-stars, each record desired with
+     * probability 1/2; the same size always gives the same records.
+     */
+    public static GachaHistory history(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        PullBatch batch = new PullBatch(size);
+        for (int i = 1; i <= size; i++) {
+            batch.add(random.nextBoolean(), random.nextInt(10), i, 1 + random.nextInt(90));
+        }
+        GachaHistory history = new GachaHistory();
+        history.addAll(batch);
+        return history;
+    }
+
+    /**
+     * Requires: count >= 0, bound >= 1
+     * Modifies: nothing
+     * Effects: returns count deterministic values in [0, bound).
+     */
+    public static int[] positions(int count, int bound) {
+        SplittableRandom random = new SplittableRandom(SEED ^ bound);
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = random.nextInt(bound);
+        }
+        return positions;
+    }
+}
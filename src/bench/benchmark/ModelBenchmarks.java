@@ -0,0 +1,210 @@
+package benchmark;
+
+import model.Event;
+import model.EventLog;
+import model.GachaHistory;
+
+import java.util.List;
+
+/**
+ * Benchmarks of GachaHistory and EventLog.
+ */
+public final class ModelBenchmarks {
+    private static final int APPENDS = 100_000;
+    private static final int STAT_CALLS = 1_000_000;
+    private static final int RANGE_CALLS = 100_000;
+
+    private ModelBenchmarks() {
+    }
+
+    /**
+     * Effects: returns every benchmark in this class.
+     */
+    public static List<Benchmark> all() {
+        return List.of(new AddPull(), new RemovePull(), new Stats(), new RangeStats(), new LogEvent());
+    }
+
+    /**
+     * Appends APPENDS records to a copy of the dataset.
+     */
+    static final class AddPull extends Benchmark {
+        private GachaHistory base;
+        private GachaHistory history;
+        private int nextIndex;
+
+        AddPull() {
+            super("GachaHistory.addPull", "pull");
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            base = Datasets.history(size);
+        }
+
+        @Override
+        public void setUpIteration() {
+            history = base.copy();
+            nextIndex = base.getAllPulls().size() + 1;
+        }
+
+        @Override
+        public long run() {
+            for (int i = 0; i < APPENDS; i++) {
+                history.addPull((i & 1) == 0, i % 10, nextIndex++, 1 + i % 90);
+            }
+            return history.getAllPulls().size();
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return APPENDS;
+        }
+    }
+
+    /**
+     * Removes records at random positions from a copy of the dataset; each
+     * removal shifts the records after it, so fewer are removed at large
+     * sizes.
+     */
+    static final class RemovePull extends Benchmark {
+        private GachaHistory base;
+        private GachaHistory history;
+        private int[] positions;
+
+        RemovePull() {
+            super("GachaHistory.removePull(int)", "pull");
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            base = Datasets.history(size);
+            int removals = Math.max(1, Math.min(size / 2, 100_000_000 / Math.max(size, 1)));
+            positions = Datasets.positions(removals, size - removals);
+        }
+
+        @Override
+        public void setUpIteration() {
+            history = base.copy();
+        }
+
+        @Override
+        public long run() {
+            for (int position : positions) {
+                history.removePull(position);
+            }
+            return history.getAllPulls().size();
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return positions.length;
+        }
+    }
+
+    /**
+     * Calls the whole-history statistics methods. The history is read
+     * through a volatile field on every call, so the JIT cannot hoist the
+     * calls, or the totals they read, out of the loop.
+     */
+    static final class Stats extends Benchmark {
+        private volatile GachaHistory history;
+
+        Stats() {
+            super("GachaHistory stats", "call");
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            history = Datasets.history(size);
+        }
+
+        @Override
+        public long run() {
+            double sum = 0.0;
+            for (int i = 0; i < STAT_CALLS; i++) {
+                GachaHistory current = history;
+                sum += current.calculateFiveStarRate() + current.calculateFourStarAvg();
+                if (current.isAboveThreshold(i * 1e-6)) {
+                    sum++;
+                }
+            }
+            return (long) sum;
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return STAT_CALLS;
+        }
+    }
+
+    /**
+     * Calls the pull-index range statistics over random ranges.
+     */
+    static final class RangeStats extends Benchmark {
+        private GachaHistory history;
+        private int[] bounds;
+
+        RangeStats() {
+            super("GachaHistory range stats", "call");
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            history = Datasets.history(size);
+            bounds = Datasets.positions(2 * RANGE_CALLS, size + 1);
+        }
+
+        @Override
+        public long run() {
+            double sum = 0.0;
+            for (int i = 0; i < RANGE_CALLS; i++) {
+                int from = Math.min(bounds[2 * i], bounds[2 * i + 1]);
+                int to = Math.max(bounds[2 * i], bounds[2 * i + 1]);
+                sum += history.calculateFiveStarRate(from, to) + history.calculateFourStarAvg(from, to);
+            }
+            return (long) sum;
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return RANGE_CALLS;
+        }
+    }
+
+    /**
+     * Logs size events to the event log, with no sinks attached; the log's
+     * ring buffer is bounded, so this measures its steady state.
+     */
+    static final class LogEvent extends Benchmark {
+        private Event[] events;
+        private int count;
+
+        LogEvent() {
+            super("EventLog.logEvent", "event");
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            count = size;
+            events = new Event[1024];
+            for (int i = 0; i < events.length; i++) {
+                events[i] = Event.pullAdded(i + 1, (i & 1) == 0, i % 10, 1 + i % 90);
+            }
+            EventLog.getInstance().clear();
+        }
+
+        @Override
+        public long run() {
+            EventLog log = EventLog.getInstance();
+            for (int i = 0; i < count; i++) {
+                log.logEvent(events[i & (events.length - 1)]);
+            }
+            return log.getLostCount();
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package benchmark;
+
+import model.GachaHistory;
+import persistence.JsonReader;
+import persistence.JsonStreamReader;
+import persistence.JsonStreamWriter;
+import persistence.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Benchmarks of reading and writing JSON files. One run reads or writes the
+ * whole dataset, and the reported operation is one pull record, so sizes
+ * can be compared directly.
+ *
+ * JsonReader and JsonWriter hold the whole document in memory, which does
+ * not fit a default heap at 10M pulls, so they only run up to DOM_LIMIT;
+ * the streaming reader and writer run at every size.
+ */
+public final class PersistenceBenchmarks {
+    private static final int DOM_LIMIT = 1_000_000;
+
+    private PersistenceBenchmarks() {
+    }
+
+    /**
+     * Effects: returns every benchmark in this class.
+     */
+    public static List<Benchmark> all() {
+        return List.of(new Read(false), new Write(false), new Read(true), new Write(true));
+    }
+
+    // EFFECTS: returns a new temporary file that is deleted on exit
+    private static File tempFile() throws IOException {
+        File file = Files.createTempFile("gacha-bench", ".json").toFile();
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Reads a file holding the dataset.
+     */
+    static final class Read extends Benchmark {
+        private final boolean streaming;
+        private File file;
+        private int size;
+
+        Read(boolean streaming) {
+            super(streaming ? "JsonStreamReader.read" : "JsonReader.read", "pull");
+            this.streaming = streaming;
+        }
+
+        @Override
+        public boolean supports(int size) {
+            return streaming || size <= DOM_LIMIT;
+        }
+
+        @Override
+        public void setUpTrial(int size) throws IOException {
+            this.size = size;
+            file = tempFile();
+            JsonStreamWriter writer = new JsonStreamWriter(file.getPath());
+            writer.open();
+            writer.write(Datasets.history(size));
+            writer.close();
+        }
+
+        @Override
+        public long run() throws IOException {
+            GachaHistory history = streaming
+                    ? new JsonStreamReader(file.getPath()).read()
+                    : new JsonReader(file.getPath()).read();
+            return history.getAllPulls().size();
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return Math.max(size, 1);
+        }
+
+        @Override
+        public void tearDownTrial() {
+            file.delete();
+        }
+    }
+
+    /**
+     * Writes the dataset to a file.
+     */
+    static final class Write extends Benchmark {
+        private final boolean streaming;
+        private GachaHistory history;
+        private File file;
+
+        Write(boolean streaming) {
+            super(streaming ? "JsonStreamWriter.write" : "JsonWriter.write", "pull");
+            this.streaming = streaming;
+        }
+
+        @Override
+        public boolean supports(int size) {
+            return streaming || size <= DOM_LIMIT;
+        }
+
+        @Override
+        public void setUpTrial(int size) throws IOException {
+            history = Datasets.history(size);
+            file = tempFile();
+        }
+
+        @Override
+        public long run() throws IOException {
+            if (streaming) {
+                JsonStreamWriter writer = new JsonStreamWriter(file.getPath());
+                writer.open();
+                writer.write(history);
+                writer.close();
+            } else {
+                JsonWriter writer = new JsonWriter(file.getPath());
+                writer.open();
+                writer.write(history);
+                writer.close();
+            }
+            return file.length();
+        }
+
+        @Override
+        public int operationsPerRun() {
+            return Math.max(history.getAllPulls().size(), 1);
+        }
+
+        @Override
+        public void tearDownTrial() {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package model;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Represents a pull history that many threads may append to at once, e.g.
+ * several importers feeding records in parallel.
+ *
+ * Records are spread over a fixed number of stripes, each an ordinary
+ * GachaHistory guarded by its own StampedLock. A thread always appends to the
+ * stripe its id maps to, so appends from different threads rarely contend.
+ * Statistics read each stripe's running totals under an optimistic stamp and
+ * only take the stripe's read lock if a writer keeps getting in the way, so
+ * appends never wait for readers and readers normally never wait for writers.
+ *
+ * Statistics combine per-stripe snapshots that may be taken at slightly
+ * different moments; every record appended before the call started is
+ * counted. snapshot() instead reads every stripe at one moment, so the values
+ * it returns agree with each other. Records from different threads are not
+ * kept in any overall order.
+ */
+public class ConcurrentGachaHistory {
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: initializes an empty history with two stripes per available
+     * processor.
+     */
+    public ConcurrentGachaHistory() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Requires: stripeCount >= 1
+     * Modifies: this
+     * Effects: initializes an empty history with stripeCount stripes, rounded
+     * up to a power of two.
+     */
+    public ConcurrentGachaHistory(int stripeCount) {
+        if (stripeCount < 1 || stripeCount > 1 << 16) {
+            throw new IllegalArgumentException("Stripe count must be between 1 and 2^16");
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a copy of the given pull's values to the history.
+     *
+     * Requires: nothing
+     * Modifies: this
+     * Effects: appends a record with pull's current values; pull itself is not
+     * stored, so later changes to it are not seen here.
+     */
+    public void addPull(GachaPull pull) {
+        addPull(pull.isDesired5Star(), pull.getNumberOf4Stars(), pull.getPullIndex(), pull.getDrawCount());
+    }
+
+    /**
+     * Adds a new pull record with the given values to the history.
+     *
+     * Requires: num4Stars >= 0, pullIndex >= 1, drawCount >= 1
+     * Modifies: this
+     * Effects: appends a record with the given values to the calling thread's
+     * stripe; throws IllegalArgumentException if any value is out of range.
+     */
+    public void addPull(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
+        GachaPull.checkValues(num4Stars, pullIndex, drawCount);
+        Stripe stripe = stripeForCurrentThread();
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.history.addPull(desiredFlag, num4Stars, pullIndex, drawCount);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds every record of a batch to the history in one step.
+     *
+     * Requires: nothing
+     * Modifies: this
+     * Effects: appends copies of batch's records, in order, to the calling
+     * thread's stripe under a single lock acquisition.
+     */
+    public void addAll(PullBatch batch) {
+        Stripe stripe = stripeForCurrentThread();
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.history.addAll(batch);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the number of pull records in the history.
+     */
+    public int size() {
+        return (int) readTotals()[0];
+    }
+
+    /**
+     * Calculates the fraction of draws that gave the desired 5-star item, as
+     * GachaHistory.calculateFiveStarRate does.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns desired 5-stars divided by total draws, or 0.0 if no
+     * records exist.
+     */
+    public double calculateFiveStarRate() {
+        long[] totals = readTotals();
+        if (totals[0] == 0) {
+            return 0.0;
+        }
+        return (double) totals[1] / totals[2];
+    }
+
+    /**
+     * Calculates the average number of 4-star items per pull record.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the average number of 4-star items, or 0.0 if no
+     * records exist.
+     */
+    public double calculateFourStarAvg() {
+        long[] totals = readTotals();
+        if (totals[0] == 0) {
+            return 0.0;
+        }
+        return (double) totals[3] / totals[0];
+    }
+
+    /**
+     * Checks the rate of desired 5-star items against a given threshold.
+     *
+     * Requires: threshold >= 0
+     * Modifies: nothing
+     * Effects: returns true if the desired 5-star rate is above threshold;
+     * throws IllegalArgumentException if threshold is negative.
+     */
+    public boolean isAboveThreshold(double threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException(
+                    "Threshold cannot be negative");
+        }
+        return calculateFiveStarRate() > threshold;
+    }
+
+    /**
+     * Reads the record count, 5-star rate and 4-star average together, e.g.
+     * for a statistics report whose values must agree with each other.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the three statistics as of a single moment: every
+     * stripe is read under one optimistic stamp each, validated together, and
+     * if a writer keeps getting in the way all read locks are held at once.
+     */
+    public Snapshot snapshot() {
+        long[] stamps = new long[stripes.length];
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            for (int i = 0; i < stripes.length; i++) {
+                stamps[i] = stripes[i].lock.tryOptimisticRead();
+            }
+            Snapshot snapshot = sumStripes();
+            if (validateAll(stamps)) {
+                return snapshot;
+            }
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].lock.readLock();
+        }
+        try {
+            return sumStripes();
+        } finally {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i].lock.unlockRead(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies the records into an ordinary GachaHistory, e.g. for saving or
+     * for display once importing has finished.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns a new GachaHistory holding every record, stripe by
+     * stripe; each thread's records keep the order they were added in. No
+     * events are logged.
+     */
+    public GachaHistory toHistory() {
+        GachaHistory result = new GachaHistory();
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                result.appendRecords(stripe.history);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    // EFFECTS: returns {records, desired 5-stars, draws, 4-stars} summed over
+    //          all stripes, each stripe read optimistically where possible
+    private long[] readTotals() {
+        long size = 0;
+        long desired = 0;
+        long draws = 0;
+        long fours = 0;
+        for (Stripe stripe : stripes) {
+            GachaHistory history = stripe.history;
+            StampedLock lock = stripe.lock;
+            boolean valid = false;
+            int stripeSize = 0;
+            int stripeDesired = 0;
+            long stripeDraws = 0;
+            long stripeFours = 0;
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS && !valid; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                stripeSize = history.size();
+                stripeDesired = history.desiredCount();
+                stripeDraws = history.totalDraws();
+                stripeFours = history.totalFourStars();
+                valid = stamp != 0 && lock.validate(stamp);
+            }
+            if (!valid) {
+                long stamp = lock.readLock();
+                try {
+                    stripeSize = history.size();
+                    stripeDesired = history.desiredCount();
+                    stripeDraws = history.totalDraws();
+                    stripeFours = history.totalFourStars();
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            size += stripeSize;
+            desired += stripeDesired;
+            draws += stripeDraws;
+            fours += stripeFours;
+        }
+        return new long[] {size, desired, draws, fours};
+    }
+
+    // EFFECTS: returns the statistics summed over all stripes, read without
+    //          locking; the caller checks the result against its stamps
+    private Snapshot sumStripes() {
+        long size = 0;
+        long desired = 0;
+        long draws = 0;
+        long fours = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.history.size();
+            desired += stripe.history.desiredCount();
+            draws += stripe.history.totalDraws();
+            fours += stripe.history.totalFourStars();
+        }
+        return new Snapshot(size, desired, draws, fours);
+    }
+
+    // EFFECTS: returns true if every stamp is non-zero and still valid for
+    //          its stripe
+    private boolean validateAll(long[] stamps) {
+        for (int i = 0; i < stripes.length; i++) {
+            if (stamps[i] == 0 || !stripes[i].lock.validate(stamps[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns the stripe the calling thread appends to
+    private Stripe stripeForCurrentThread() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    /**
+     * The statistics of the whole history at one moment.
+     */
+    public static final class Snapshot {
+        private final int size;
+        private final double fiveStarRate;
+        private final double fourStarAvg;
+
+        // EFFECTS: computes the statistics from the given totals
+        private Snapshot(long size, long desired, long draws, long fours) {
+            this.size = (int) size;
+            this.fiveStarRate = size == 0 ? 0.0 : (double) desired / draws;
+            this.fourStarAvg = size == 0 ? 0.0 : (double) fours / size;
+        }
+
+        /**
+         * Requires: nothing
+         * Modifies: nothing
+         * Effects: returns the number of pull records.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Requires: nothing
+         * Modifies: nothing
+         * Effects: returns desired 5-stars divided by total draws, or 0.0 if
+         * no records existed.
+         */
+        public double getFiveStarRate() {
+            return fiveStarRate;
+        }
+
+        /**
+         * Requires: nothing
+         * Modifies: nothing
+         * Effects: returns the average number of 4-star items per record, or
+         * 0.0 if no records existed.
+         */
+        public double getFourStarAvg() {
+            return fourStarAvg;
+        }
+    }
+
+    /**
+     * One independently locked part of the history.
+     */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final GachaHistory history = new GachaHistory();
+    }
+}
@@ -1,64 +1,210 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
 
 
 /**
  * Represents an alarm system event.
+ *
+ * Events record what happened as a kind plus the values involved, and a
+ * millisecond timestamp; the human-readable description is only built when
+ * it is first asked for, so logging an event is cheap.
  */
 public class Event {
 	private static final int HASH_CONSTANT = 13;
-	private Date dateLogged;
+
+	/**
+	 * The kinds of event that can be logged.
+	 */
+	public enum Kind {
+		/** a free-form message */
+		MESSAGE,
+		/** a pull record was added to a history */
+		PULL_ADDED,
+		/** a batch of pull records was added to a history in one step */
+		PULLS_ADDED,
+		/** a pull record was removed from a history */
+		PULL_REMOVED,
+		/** the event log was cleared */
+		LOG_CLEARED,
+		/** a pull record was added with a pull index that was already recorded */
+		DUPLICATE_PULL_INDEX
+	}
+
+	private final long timeLogged;
+	private final Kind kind;
+	private final int pullIndex;
+	private final boolean desired5Star;
+	private final int numberOf4Stars;
+	private final int drawCount;
+	private final int count;
 	private String description;
-	
+
 	/**
 	 * Creates an event with the given description
 	 * and the current date/time stamp.
 	 * @param description  a description of the event
 	 */
 	public Event(String description) {
-		dateLogged = Calendar.getInstance().getTime();
+		this(Kind.MESSAGE, 0, false, 0, 0);
 		this.description = description;
 	}
-	
+
+	// EFFECTS: creates an event about one pull with the given kind and values,
+	//          stamped with the current time
+	private Event(Kind kind, int pullIndex, boolean desired5Star, int numberOf4Stars, int drawCount) {
+		this(kind, pullIndex, desired5Star, numberOf4Stars, drawCount, 1);
+	}
+
+	// EFFECTS: creates an event of the given kind and values covering count
+	//          pulls, stamped with the current time
+	private Event(Kind kind, int pullIndex, boolean desired5Star, int numberOf4Stars, int drawCount,
+			int count) {
+		this.timeLogged = System.currentTimeMillis();
+		this.kind = kind;
+		this.pullIndex = pullIndex;
+		this.desired5Star = desired5Star;
+		this.numberOf4Stars = numberOf4Stars;
+		this.drawCount = drawCount;
+		this.count = count;
+	}
+
+	/**
+	 * Creates an event recording that a pull record was added.
+	 * @return  a PULL_ADDED event for a pull with the given values
+	 */
+	public static Event pullAdded(int pullIndex, boolean desired5Star, int numberOf4Stars, int drawCount) {
+		return new Event(Kind.PULL_ADDED, pullIndex, desired5Star, numberOf4Stars, drawCount);
+	}
+
+	/**
+	 * Creates an event recording that a batch of pull records was added.
+	 * @return  a PULLS_ADDED event covering count pulls
+	 */
+	public static Event pullsAdded(int count) {
+		return new Event(Kind.PULLS_ADDED, 0, false, 0, 0, count);
+	}
+
+	/**
+	 * Creates an event recording that a pull record was removed.
+	 * @return  a PULL_REMOVED event for the pull with the given index
+	 */
+	public static Event pullRemoved(int pullIndex) {
+		return new Event(Kind.PULL_REMOVED, pullIndex, false, 0, 0);
+	}
+
+	/**
+	 * Creates an event recording that a pull index was added more than once.
+	 * @return  a DUPLICATE_PULL_INDEX event for the given pull index
+	 */
+	public static Event duplicatePullIndex(int pullIndex) {
+		return new Event(Kind.DUPLICATE_PULL_INDEX, pullIndex, false, 0, 0);
+	}
+
+	/**
+	 * Creates an event recording that the event log was cleared.
+	 * @return  a LOG_CLEARED event
+	 */
+	public static Event logCleared() {
+		return new Event(Kind.LOG_CLEARED, 0, false, 0, 0);
+	}
+
 	/**
 	 * Gets the date of this event (includes time).
 	 * @return  the date of the event
 	 */
 	public Date getDate() {
-		return dateLogged;
+		return new Date(timeLogged);
+	}
+
+	/**
+	 * Gets the time of this event in milliseconds since the epoch.
+	 * @return  the time of the event
+	 */
+	public long getTime() {
+		return timeLogged;
+	}
+
+	/**
+	 * Gets the kind of this event.
+	 * @return  the kind of the event
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the pull index this event is about.
+	 * @return  the pull index, or 0 if the event is not about a pull
+	 */
+	public int getPullIndex() {
+		return pullIndex;
 	}
-	
+
+	/**
+	 * Gets the number of pull records this event covers.
+	 * @return  the number of pulls added by a PULLS_ADDED event, otherwise 1
+	 */
+	public int getCount() {
+		return count;
+	}
+
 	/**
 	 * Gets the description of this event.
 	 * @return  the description of the event
 	 */
 	public String getDescription () {
-		return description;
+		String text = description;
+		if (text == null) {
+			text = format();
+			description = text;
+		}
+		return text;
+	}
+
+	// EFFECTS: returns the human-readable description of this event
+	private String format() {
+		switch (kind) {
+			case PULL_ADDED:
+				return "Added pull record: Pull #" + pullIndex
+						+ ", Desired 5-star: " + desired5Star
+						+ ", 4-star count: " + numberOf4Stars
+						+ ", Total draws: " + drawCount;
+			case PULLS_ADDED:
+				return "Added " + count + " pull records";
+			case PULL_REMOVED:
+				return "Removed pull record: Pull #" + pullIndex;
+			case LOG_CLEARED:
+				return "Event log cleared.";
+			case DUPLICATE_PULL_INDEX:
+				return "Duplicate pull index: Pull #" + pullIndex + " was already recorded";
+			default:
+				return "";
+		}
 	}
-	
+
 	@Override
 	public boolean equals(Object other) {
 		if (other == null)
 			return false;
-		
+
 		if (other.getClass() != this.getClass())
 			return false;
-		
+
 		Event otherEvent = (Event) other;
-		
-		return (this.dateLogged.equals(otherEvent.dateLogged) &&
-				this.description.equals(otherEvent.description));
+
+		return (this.timeLogged == otherEvent.timeLogged &&
+				this.kind == otherEvent.kind &&
+				this.getDescription().equals(otherEvent.getDescription()));
 	}
-	
+
 	@Override
 	public int hashCode() {
-		return (HASH_CONSTANT * dateLogged.hashCode() + description.hashCode());
+		return (HASH_CONSTANT * Long.hashCode(timeLogged) + getDescription().hashCode());
 	}
-	
+
 	@Override
 	public String toString() {
-		return dateLogged.toString() + "\n" + description;
+		return getDate().toString() + "\n" + getDescription();
 	}
 }
@@ -1,59 +1,227 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a log of alarm system events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ *
+ * Events are kept in a fixed-capacity ring buffer, so memory stays bounded
+ * however many events are logged. Any number of threads may log at once
+ * without locking. When the ring is full, the overflow policy decides whether
+ * the oldest event is overwritten or the new one is dropped. Iteration walks
+ * a weakly consistent snapshot: events logged while it is taken may or may
+ * not be included. Registered sinks are also handed every event as it is
+ * logged, e.g. to keep a durable copy.
  */
 public class EventLog implements Iterable<Event> {
+	/** default number of events kept */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/**
+	 * What to do with a new event when the log is full.
+	 */
+	public enum OverflowPolicy {
+		/** replace the oldest event with the new one */
+		OVERWRITE_OLDEST,
+		/** keep the existing events and discard the new one */
+		DROP_NEWEST
+	}
+
 	/** the only EventLog in the system (Singleton Design Pattern) */
-	private static EventLog theLog;
-	private Collection<Event> events;
-	
-	/** 
+	private static final EventLog theLog = new EventLog();
+	private volatile Ring ring;
+	private final List<EventSink> sinks = new CopyOnWriteArrayList<>();
+
+	/**
 	 * Prevent external construction.
 	 * (Singleton Design Pattern).
 	 */
 	private EventLog() {
-		events = new ArrayList<Event>();
+		ring = new Ring(DEFAULT_CAPACITY, OverflowPolicy.OVERWRITE_OLDEST);
 	}
-	
+
 	/**
-	 * Gets instance of EventLog - creates it
-	 * if it doesn't already exist.
+	 * Gets instance of EventLog.
 	 * (Singleton Design Pattern)
 	 * @return  instance of EventLog
 	 */
 	public static EventLog getInstance() {
-		if (theLog == null)
-			theLog = new EventLog();
-		
 		return theLog;
 	}
-	
+
+	/**
+	 * Sets the capacity and overflow policy of the log. The most recent
+	 * events that fit are carried over. Events logged by other threads
+	 * while this runs may be lost, so configure the log at startup.
+	 * @param capacity  the number of events to keep; rounded up to a power of two
+	 * @param policy  what to do with new events when the log is full
+	 */
+	public synchronized void configure(int capacity, OverflowPolicy policy) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+		}
+		Ring newRing = new Ring(capacity, policy);
+		for (Event e : this) {
+			newRing.add(e);
+		}
+		ring = newRing;
+	}
+
+	/**
+	 * Gets the number of events this log can hold.
+	 * @return  the capacity of the log
+	 */
+	public int getCapacity() {
+		return ring.slots.length();
+	}
+
+	/**
+	 * Gets the number of events the log currently holds.
+	 * @return  the number of events in the log, at most its capacity
+	 */
+	public int getSize() {
+		Ring current = ring;
+		long held = current.next.get() - current.oldest.get();
+		return (int) Math.max(0, Math.min(held, current.slots.length()));
+	}
+
+	/**
+	 * Gets the number of events that were overwritten or dropped because
+	 * the log was full, since the log was last configured.
+	 * @return  the number of lost events
+	 */
+	public long getLostCount() {
+		return ring.lost.get();
+	}
+
 	/**
 	 * Adds an event to the event log.
 	 * @param e the event to be added
 	 */
 	public void logEvent(Event e) {
-		events.add(e);
+		ring.add(e);
+		for (EventSink sink : sinks) {
+			sink.accept(e);
+		}
 	}
-	
+
+	/**
+	 * Registers a sink to receive every event logged from now on.
+	 * @param sink  the sink to add
+	 */
+	public void addSink(EventSink sink) {
+		sinks.add(sink);
+	}
+
+	/**
+	 * Stops handing events to the given sink.
+	 * @param sink  the sink to remove
+	 */
+	public void removeSink(EventSink sink) {
+		sinks.remove(sink);
+	}
+
 	/**
 	 * Clears the event log and logs the event.
 	 */
 	public void clear() {
-		events.clear();
-		logEvent(new Event("Event log cleared."));
+		Ring current = ring;
+		current.oldest.set(current.next.get());
+		logEvent(Event.logCleared());
+	}
+
+	/**
+	 * Gets the events of the given kind currently in the log, oldest first.
+	 * @param kind  the kind of event wanted
+	 * @return  a snapshot of the matching events
+	 */
+	public List<Event> getEvents(Event.Kind kind) {
+		List<Event> matching = new ArrayList<>();
+		for (Event e : this) {
+			if (e.getKind() == kind) {
+				matching.add(e);
+			}
+		}
+		return matching;
 	}
-	
+
 	@Override
 	public Iterator<Event> iterator() {
-		return events.iterator();
+		return ring.snapshot().iterator();
+	}
+
+	/**
+	 * A fixed-size ring of events. Each logged event claims the next
+	 * sequence number and is stored, tagged with it, in the slot that
+	 * number maps to; readers only trust a slot whose tag matches the
+	 * sequence number they expect there.
+	 */
+	private static final class Ring {
+		private final AtomicReferenceArray<Entry> slots;
+		private final int mask;
+		private final OverflowPolicy policy;
+		private final AtomicLong next = new AtomicLong();
+		private final AtomicLong oldest = new AtomicLong();
+		private final AtomicLong lost = new AtomicLong();
+
+		Ring(int capacity, OverflowPolicy policy) {
+			int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+			this.slots = new AtomicReferenceArray<>(size);
+			this.mask = size - 1;
+			this.policy = policy;
+		}
+
+		void add(Event e) {
+			long seq;
+			if (policy == OverflowPolicy.DROP_NEWEST) {
+				do {
+					seq = next.get();
+					if (seq - oldest.get() >= slots.length()) {
+						lost.incrementAndGet();
+						return;
+					}
+				} while (!next.compareAndSet(seq, seq + 1));
+			} else {
+				seq = next.getAndIncrement();
+				if (seq - oldest.get() >= slots.length()) {
+					lost.incrementAndGet();
+				}
+			}
+			slots.set((int) (seq & mask), new Entry(seq, e));
+		}
+
+		List<Event> snapshot() {
+			long end = next.get();
+			long start = Math.max(oldest.get(), end - slots.length());
+			List<Event> events = new ArrayList<>((int) (end - start));
+			for (long seq = start; seq < end; seq++) {
+				Entry entry = slots.get((int) (seq & mask));
+				if (entry != null && entry.seq == seq) {
+					events.add(entry.event);
+				}
+			}
+			return events;
+		}
+	}
+
+	/**
+	 * An event tagged with the sequence number it was logged under.
+	 */
+	private static final class Entry {
+		private final long seq;
+		private final Event event;
+
+		Entry(long seq, Event event) {
+			this.seq = seq;
+			this.event = event;
+		}
 	}
 }
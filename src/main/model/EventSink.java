@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Represents a destination that receives every event logged to the EventLog.
+ *
+ * Effects: accept is called on the thread that logged the event, so
+ *          implementations must return quickly and must not block or do I/O.
+ */
+public interface EventSink {
+    /**
+     * Effects: receives an event that was just logged.
+     */
+    void accept(Event e);
+}
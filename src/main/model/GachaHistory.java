@@ -1,8 +1,10 @@
 package model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
 
 import persistence.Writable;
 
@@ -14,10 +16,27 @@ import org.json.JSONObject;
  * Responsible for adding, removing, and managing all pull data,
  * as well as calculating statistics (like expected value) across multiple
  * pulls.
+ *
+ * Pull records are stored column by column (see PullColumns) rather than as a
+ * list of GachaPull objects, and are handed out as GachaPull views on demand.
+ * Running totals are kept up to date on every change so statistics never need
+ * to rescan the records, and a hash index (see PullIndexTable) finds records
+ * by pull index without scanning. Adding a pull index that is already
+ * recorded is allowed but logged as a DUPLICATE_PULL_INDEX event. Statistics
+ * over a span of pull indexes use Fenwick trees (see PullRangeIndex) that are
+ * built by the first such query and kept up to date from then on.
  */
 public class GachaHistory implements Writable {
+    private static final LatencyHistogram RANGE_STATS_TIME = Metrics.getInstance().histogram("stats.range");
 
-    private List<GachaPull> pullRecords;
+    private PullColumns pullRecords;
+    private PullIndexTable pullIndexes;
+    private PullRangeIndex rangeIndex; // built by the first range query
+    private List<GachaPull> pullView;
+    private int desiredCount;
+    private long totalDraws;
+    private long totalFourStars;
+    private List<GachaHistoryListener> listeners;
 
     /**
      * Requires: nothing
@@ -25,7 +44,49 @@ public class GachaHistory implements Writable {
      * Effects: initializes an empty GachaHistory (no pull records).
      */
     public GachaHistory() {
-        pullRecords = new ArrayList<>();
+        pullRecords = new PullColumns(this);
+        pullIndexes = new PullIndexTable();
+        pullView = new PullListView();
+        listeners = new ArrayList<>();
+    }
+
+    /**
+     * Creates an independent copy of this history's pull records.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns a new GachaHistory with the same records and totals;
+     * later changes to either history do not affect the other. No events are
+     * logged and listeners are not copied.
+     */
+    public GachaHistory copy() {
+        GachaHistory copy = new GachaHistory();
+        copy.pullRecords = pullRecords.copyFor(copy);
+        copy.pullIndexes = pullIndexes.copy();
+        copy.desiredCount = desiredCount;
+        copy.totalDraws = totalDraws;
+        copy.totalFourStars = totalFourStars;
+        return copy;
+    }
+
+    /**
+     * Registers a listener to be told about every change to the pull records.
+     *
+     * Requires: listener is not null
+     * Modifies: this
+     * Effects: adds listener; it is notified after each add, removal or edit.
+     */
+    public void addListener(GachaHistoryListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: stops notifying listener; does nothing if it was not registered.
+     */
+    public void removeListener(GachaHistoryListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -34,15 +95,84 @@ public class GachaHistory implements Writable {
      * Requires: nothing
      * Modifies: this
      * Effects: inserts the given pull record into the internal list of pull
-     * records.
+     * records. If the pull is not stored in any history yet, it becomes the
+     * view of its new record; otherwise its current values are copied.
      */
     public void addPull(GachaPull pull) {
-        pullRecords.add(pull);
-        EventLog.getInstance().logEvent(new Event("Added pull record: Pull #"
-                + pull.getPullIndex()
-                + ", Desired 5-star: " + pull.isDesired5Star()
-                + ", 4-star count: " + pull.getNumberOf4Stars()
-                + ", Total draws: " + pull.getDrawCount()));
+        int row = appendRecord(pull.isDesired5Star(), pull.getNumberOf4Stars(),
+                pull.getPullIndex(), pull.getDrawCount());
+        if (!pull.isStored()) {
+            pullRecords.bind(row, pull);
+        }
+    }
+
+    /**
+     * Adds a new pull record with the given values to the history without
+     * creating a GachaPull for it.
+     *
+     * Requires: num4Stars >= 0, pullIndex >= 1, drawCount >= 1
+     * Modifies: this
+     * Effects: appends a record with the given values; throws
+     * IllegalArgumentException if any value is out of range.
+     */
+    public void addPull(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
+        GachaPull.checkValues(num4Stars, pullIndex, drawCount);
+        appendRecord(desiredFlag, num4Stars, pullIndex, drawCount);
+    }
+
+    /**
+     * Adds every pull record of a batch to the history in one step.
+     *
+     * Requires: nothing
+     * Modifies: this
+     * Effects: appends copies of batch's records, in order, after the existing
+     * records, leaving batch unchanged. Storage is grown once, the running
+     * totals are updated once, and a single PULLS_ADDED event is logged
+     * (plus a DUPLICATE_PULL_INDEX event for each repeated pull index).
+     * Listeners are told through pullsAdded. Does nothing if batch is empty.
+     */
+    public void addAll(PullBatch batch) {
+        int count = batch.size();
+        if (count == 0) {
+            return;
+        }
+        PullMutationEvent event = new PullMutationEvent();
+        event.begin();
+        int first = pullRecords.size();
+        EventLog log = EventLog.getInstance();
+        appendBatch(batch, pullIndex -> log.logEvent(Event.duplicatePullIndex(pullIndex)));
+        batchAdded(first, count);
+        event.commit("addAll", count, 0, first, pullRecords.size());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends copies of batch's records and adds them to the running
+    //          totals and indexes, passing each repeated pull index to
+    //          duplicate; logs nothing and does not notify listeners
+    void appendBatch(PullBatch batch, IntConsumer duplicate) {
+        int count = batch.size();
+        int first = pullRecords.size();
+        pullRecords.appendAll(batch.records());
+        desiredCount += batch.desiredCount();
+        totalDraws += batch.totalDraws();
+        totalFourStars += batch.totalFourStars();
+        pullIndexes.ensureCapacity(first + count);
+        updateRangeIndex(first, first + count, 1);
+        for (int row = first; row < first + count; row++) {
+            int pullIndex = pullRecords.getPullIndex(row);
+            if (pullIndexes.insert(pullIndex, row)) {
+                duplicate.accept(pullIndex);
+            }
+        }
+    }
+
+    // EFFECTS: logs a single PULLS_ADDED event for the count records from
+    //          row first on and tells every listener through pullsAdded
+    void batchAdded(int first, int count) {
+        EventLog.getInstance().logEvent(Event.pullsAdded(count));
+        for (GachaHistoryListener listener : listeners) {
+            listener.pullsAdded(this, first, count);
+        }
     }
 
     /**
@@ -54,7 +184,9 @@ public class GachaHistory implements Writable {
      * nothing.
      */
     public void removePull(GachaPull pull) {
-        pullRecords.remove(pull);
+        if (pull.isStoredIn(this)) {
+            removeRow(pull.getRow());
+        }
     }
 
     /**
@@ -67,12 +199,51 @@ public class GachaHistory implements Writable {
      */
     public void removePull(int index) {
         if (index >= 0 && index < pullRecords.size()) {
-            GachaPull removed = pullRecords.remove(index);
-            EventLog.getInstance().logEvent(new Event("Removed pull record: Pull #"
-                    + removed.getPullIndex()));
+            int removedIndex = pullRecords.getPullIndex(index);
+            removeRow(index);
+            EventLog.getInstance().logEvent(Event.pullRemoved(removedIndex));
         }
     }
 
+    /**
+     * Removes a pull record from the history by its pull index.
+     *
+     * Requires: nothing
+     * Modifies: this
+     * Effects: if a record with the given pull index is found, removes the
+     * first such record and returns true; otherwise returns false.
+     */
+    public boolean removePullByIndex(int pullIndex) {
+        int row = pullIndexes.find(pullIndex);
+        if (row < 0) {
+            return false;
+        }
+        removeRow(row);
+        EventLog.getInstance().logEvent(Event.pullRemoved(pullIndex));
+        return true;
+    }
+
+    /**
+     * Finds a pull record by its pull index.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the position in getAllPulls() of the first record with
+     * the given pull index, or -1 if there is none.
+     */
+    public int positionOf(int pullIndex) {
+        return pullIndexes.find(pullIndex);
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns true if a record with the given pull index is stored.
+     */
+    public boolean containsPullIndex(int pullIndex) {
+        return pullIndexes.find(pullIndex) >= 0;
+    }
+
     /**
      * Retrieves all pull records in this history as an unmodifiable list.
      *
@@ -82,7 +253,37 @@ public class GachaHistory implements Writable {
      * GachaHistory.
      */
     public List<GachaPull> getAllPulls() {
-        return Collections.unmodifiableList(pullRecords);
+        return pullView;
+    }
+
+    /**
+     * Applies visitor to the values of every pull record, in order.
+     *
+     * Requires: visitor does not add or remove records of this history
+     * Modifies: nothing
+     * Effects: calls visitor once per record without creating GachaPull views.
+     */
+    public void forEachPull(PullVisitor visitor) {
+        for (int row = 0; row < pullRecords.size(); row++) {
+            visitor.visit(pullRecords.isDesired5Star(row), pullRecords.getNumberOf4Stars(row),
+                    pullRecords.getPullIndex(row), pullRecords.getDrawCount(row));
+        }
+    }
+
+    /**
+     * Applies visitor to the values of the record at the given position.
+     *
+     * Requires: 0 <= position < getAllPulls().size()
+     * Modifies: nothing
+     * Effects: calls visitor once with the record's values without creating a
+     * GachaPull view for it.
+     */
+    public void visitPull(int position, PullVisitor visitor) {
+        if (position < 0 || position >= pullRecords.size()) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + pullRecords.size());
+        }
+        visitor.visit(pullRecords.isDesired5Star(position), pullRecords.getNumberOf4Stars(position),
+                pullRecords.getPullIndex(position), pullRecords.getDrawCount(position));
     }
 
     /**
@@ -96,19 +297,11 @@ public class GachaHistory implements Writable {
      * or 0.0 if no records exist.
      */
     public double calculateFiveStarRate() {
-        if (pullRecords.isEmpty()) {
+        if (pullRecords.size() == 0) {
             return 0.0;
         }
-        int totalDesired = 0;
-        int totalDraws = 0;
-        for (GachaPull pull : pullRecords) {
-            // Each pull yields one 5-star; count it if it's desired.
-            if (pull.isDesired5Star()) {
-                totalDesired++;
-            }
-            totalDraws += pull.getDrawCount();
-        }
-        return (double) totalDesired / totalDraws;
+        // Each pull yields one 5-star; count it if it's desired.
+        return (double) desiredCount / totalDraws;
     }
 
     /**
@@ -120,14 +313,54 @@ public class GachaHistory implements Writable {
      * Effects: returns a double representing the average number of 4-star items.
      */
     public double calculateFourStarAvg() {
-        if (pullRecords.isEmpty()) {
+        if (pullRecords.size() == 0) {
             return 0.0;
         }
-        int total = 0;
-        for (GachaPull pull : pullRecords) {
-            total += pull.getNumberOf4Stars();
+        return (double) totalFourStars / pullRecords.size();
+    }
+
+    /**
+     * Calculates the desired 5-star rate over the records whose pull index
+     * lies in [fromPullIndex, toPullIndex], e.g. one banner period.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns desired 5-stars divided by draws over those records,
+     * or 0.0 if there are none; costs O(log n) once the range index is built.
+     */
+    public double calculateFiveStarRate(int fromPullIndex, int toPullIndex) {
+        long[] totals = rangeTotals(fromPullIndex, toPullIndex);
+        if (totals[0] == 0) {
+            return 0.0;
         }
-        return (double) total / pullRecords.size();
+        return (double) totals[1] / totals[2];
+    }
+
+    /**
+     * Calculates the average number of 4-star items per record over the
+     * records whose pull index lies in [fromPullIndex, toPullIndex].
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the average number of 4-star items over those records,
+     * or 0.0 if there are none; costs O(log n) once the range index is built.
+     */
+    public double calculateFourStarAvg(int fromPullIndex, int toPullIndex) {
+        long[] totals = rangeTotals(fromPullIndex, toPullIndex);
+        if (totals[0] == 0) {
+            return 0.0;
+        }
+        return (double) totals[3] / totals[0];
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the number of records whose pull index lies in
+     * [fromPullIndex, toPullIndex].
+     */
+    public int countPulls(int fromPullIndex, int toPullIndex) {
+        return (int) rangeTotals(fromPullIndex, toPullIndex)[0];
     }
 
     /**
@@ -147,15 +380,267 @@ public class GachaHistory implements Writable {
         return calculateFiveStarRate() > threshold;
     }
 
+    /**
+     * Estimates the memory the history uses per record, e.g. for monitoring.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the bytes held by the record columns and indexes,
+     * including spare capacity, divided by the number of records, or 0.0 if
+     * there are none; GachaPull views are not counted.
+     */
+    public double estimateBytesPerPull() {
+        int size = pullRecords.size();
+        if (size == 0) {
+            return 0.0;
+        }
+        long bytes = pullRecords.estimateBytes() + pullIndexes.estimateBytes();
+        PullRangeIndex index = rangeIndex;
+        if (index != null) {
+            bytes += index.estimateBytes();
+        }
+        return (double) bytes / size;
+    }
+
     @Override
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
         JSONArray pullArray = new JSONArray();
-        for (GachaPull pull : pullRecords) {
-            pullArray.put(pull.toJson());
-        }
+        forEachPull((desired, num4Stars, pullIndex, drawCount) ->
+                pullArray.put(GachaPull.toJson(desired, num4Stars, pullIndex, drawCount)));
         json.put("pullRecords", pullArray);
         return json;
     }
 
+    // MODIFIES: this
+    // EFFECTS: returns {records, desired 5-stars, draws, 4-stars} over the pull
+    //          index range, building or rebuilding the range index if needed;
+    //          the time taken, including any rebuild, is recorded in stats.range
+    //          and as a StatsEvent if one is being recorded
+    private long[] rangeTotals(int fromPullIndex, int toPullIndex) {
+        long start = System.nanoTime();
+        StatsEvent event = new StatsEvent();
+        event.begin();
+        boolean rebuilt = rangeIndex == null || rangeIndex.isStale();
+        if (rangeIndex == null) {
+            rangeIndex = new PullRangeIndex(pullRecords);
+        } else if (rebuilt) {
+            rangeIndex.rebuild(pullRecords);
+        }
+        long[] totals = rangeIndex.sum(fromPullIndex, toPullIndex);
+        RANGE_STATS_TIME.record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.fromPullIndex = fromPullIndex;
+            event.toPullIndex = toPullIndex;
+            event.records = totals[0];
+            event.historySize = pullRecords.size();
+            event.indexRebuilt = rebuilt;
+            event.commit();
+        }
+        return totals;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the records in rows [from, to) to the range index (sign 1)
+    //          or takes them out (sign -1), if it has been built
+    private void updateRangeIndex(int from, int to, int sign) {
+        if (rangeIndex == null) {
+            return;
+        }
+        for (int row = from; row < to; row++) {
+            rangeIndex.update(pullRecords.getPullIndex(row), pullRecords.isDesired5Star(row),
+                    pullRecords.getNumberOf4Stars(row), pullRecords.getDrawCount(row), sign);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends copies of all of other's records and their totals,
+    //          without logging events or notifying listeners
+    void appendRecords(GachaHistory other) {
+        int offset = pullRecords.size();
+        pullRecords.appendAll(other.pullRecords);
+        pullIndexes.ensureCapacity(pullRecords.size());
+        for (int row = offset; row < pullRecords.size(); row++) {
+            pullIndexes.insert(pullRecords.getPullIndex(row), row);
+        }
+        updateRangeIndex(offset, pullRecords.size(), 1);
+        desiredCount += other.desiredCount;
+        totalDraws += other.totalDraws;
+        totalFourStars += other.totalFourStars;
+    }
+
+    // Running totals, read by ConcurrentGachaHistory to combine its stripes.
+
+    int size() {
+        return pullRecords.size();
+    }
+
+    int desiredCount() {
+        return desiredCount;
+    }
+
+    long totalDraws() {
+        return totalDraws;
+    }
+
+    long totalFourStars() {
+        return totalFourStars;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a record with the given values, adds it to the running
+    //          totals and index, logs the addition (and a duplicate pull
+    //          index), emits a PullMutationEvent if one is being recorded and
+    //          returns the record's row
+    private int appendRecord(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
+        PullMutationEvent event = new PullMutationEvent();
+        event.begin();
+        int row = pullRecords.add(desiredFlag, num4Stars, pullIndex, drawCount);
+        addToTotals(row);
+        updateRangeIndex(row, row + 1, 1);
+        if (pullIndexes.insert(pullIndex, row)) {
+            EventLog.getInstance().logEvent(Event.duplicatePullIndex(pullIndex));
+        }
+        EventLog.getInstance().logEvent(Event.pullAdded(pullIndex, desiredFlag, num4Stars, drawCount));
+        for (GachaHistoryListener listener : listeners) {
+            listener.pullAdded(row, desiredFlag, num4Stars, pullIndex, drawCount);
+        }
+        event.commit("add", 1, pullIndex, row, pullRecords.size());
+        return row;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the record at row and takes it out of the running
+    //          totals and index, emitting a PullMutationEvent if one is being
+    //          recorded
+    private void removeRow(int row) {
+        PullMutationEvent event = new PullMutationEvent();
+        event.begin();
+        boolean desiredFlag = pullRecords.isDesired5Star(row);
+        int num4Stars = pullRecords.getNumberOf4Stars(row);
+        int pullIndex = pullRecords.getPullIndex(row);
+        int drawCount = pullRecords.getDrawCount(row);
+        subtractFromTotals(row);
+        updateRangeIndex(row, row + 1, -1);
+        pullRecords.remove(row);
+        pullIndexes.rowRemoved(pullIndex, row);
+        for (GachaHistoryListener listener : listeners) {
+            listener.pullRemoved(row, desiredFlag, num4Stars, pullIndex, drawCount);
+        }
+        event.commit("remove", 1, pullIndex, row, pullRecords.size());
+    }
+
+    // EFFECTS: tells every listener that the record at row was edited
+    private void fireChanged(int row) {
+        for (GachaHistoryListener listener : listeners) {
+            listener.pullChanged(row, pullRecords.isDesired5Star(row), pullRecords.getNumberOf4Stars(row),
+                    pullRecords.getPullIndex(row), pullRecords.getDrawCount(row));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the record at row to the running totals
+    private void addToTotals(int row) {
+        if (pullRecords.isDesired5Star(row)) {
+            desiredCount++;
+        }
+        totalDraws += pullRecords.getDrawCount(row);
+        totalFourStars += pullRecords.getNumberOf4Stars(row);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes the record at row out of the running totals
+    private void subtractFromTotals(int row) {
+        if (pullRecords.isDesired5Star(row)) {
+            desiredCount--;
+        }
+        totalDraws -= pullRecords.getDrawCount(row);
+        totalFourStars -= pullRecords.getNumberOf4Stars(row);
+    }
+
+    // Row accessors used by GachaPull views of this history's records.
+    // Setters keep the running totals in step with the edited value and
+    // notify listeners.
+
+    boolean isDesired5Star(int row) {
+        return pullRecords.isDesired5Star(row);
+    }
+
+    int getNumberOf4Stars(int row) {
+        return pullRecords.getNumberOf4Stars(row);
+    }
+
+    int getPullIndex(int row) {
+        return pullRecords.getPullIndex(row);
+    }
+
+    int getDrawCount(int row) {
+        return pullRecords.getDrawCount(row);
+    }
+
+    void setDesired5Star(int row, boolean desiredFlag) {
+        if (pullRecords.isDesired5Star(row) != desiredFlag) {
+            desiredCount += desiredFlag ? 1 : -1;
+        }
+        updateRangeIndex(row, row + 1, -1);
+        pullRecords.setDesired5Star(row, desiredFlag);
+        updateRangeIndex(row, row + 1, 1);
+        fireChanged(row);
+    }
+
+    void setNumberOf4Stars(int row, int num4Stars) {
+        totalFourStars += num4Stars - pullRecords.getNumberOf4Stars(row);
+        updateRangeIndex(row, row + 1, -1);
+        pullRecords.setNumberOf4Stars(row, num4Stars);
+        updateRangeIndex(row, row + 1, 1);
+        fireChanged(row);
+    }
+
+    void setDrawCount(int row, int drawCount) {
+        totalDraws += drawCount - pullRecords.getDrawCount(row);
+        updateRangeIndex(row, row + 1, -1);
+        pullRecords.setDrawCount(row, drawCount);
+        updateRangeIndex(row, row + 1, 1);
+        fireChanged(row);
+    }
+
+    /**
+     * Read-only list of GachaPull views over the stored records.
+     * Membership checks use the view's row instead of scanning.
+     */
+    private class PullListView extends AbstractList<GachaPull> implements RandomAccess {
+
+        @Override
+        public GachaPull get(int index) {
+            if (index < 0 || index >= pullRecords.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + pullRecords.size());
+            }
+            return pullRecords.view(index);
+        }
+
+        @Override
+        public int size() {
+            return pullRecords.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (o instanceof GachaPull && ((GachaPull) o).isStoredIn(GachaHistory.this)) {
+                return ((GachaPull) o).getRow();
+            }
+            return -1;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            return indexOf(o);
+        }
+    }
+
 }
@@ -0,0 +1,46 @@
+package model;
+
+/**
+ * Represents an observer of changes to a GachaHistory's pull records.
+ *
+ * Effects: a listener registered with GachaHistory.addListener is told about
+ *          every record that is added, removed or edited, after the change
+ *          has been applied. Positions are the records' indices in
+ *          getAllPulls() at the time of the change.
+ */
+public interface GachaHistoryListener {
+    /**
+     * Effects: called after a record with the given values was added at position.
+     */
+    default void pullAdded(int position, boolean desired5Star, int numberOf4Stars,
+                           int pullIndex, int drawCount) {
+    }
+
+    /**
+     * Effects: called after count records were added in one go at positions
+     *          firstPosition onwards of history; by default reports each of
+     *          them to pullAdded in order.
+     */
+    default void pullsAdded(GachaHistory history, int firstPosition, int count) {
+        for (int row = firstPosition; row < firstPosition + count; row++) {
+            pullAdded(row, history.isDesired5Star(row), history.getNumberOf4Stars(row),
+                    history.getPullIndex(row), history.getDrawCount(row));
+        }
+    }
+
+    /**
+     * Effects: called after the record at position, which had the given
+     *          values, was removed; later records moved down by one.
+     */
+    default void pullRemoved(int position, boolean desired5Star, int numberOf4Stars,
+                             int pullIndex, int drawCount) {
+    }
+
+    /**
+     * Effects: called after the record at position was edited; the arguments
+     *          are its new values.
+     */
+    default void pullChanged(int position, boolean desired5Star, int numberOf4Stars,
+                             int pullIndex, int drawCount) {
+    }
+}
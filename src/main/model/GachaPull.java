@@ -8,6 +8,9 @@ import persistence.Writable;
  * Represents a single gacha pull record.
  * Stores information about whether a 5-star item was obtained, and if it was desired, 
  * and how many 4-star items were obtained in this single pull.
+ *
+ * Once a pull is added to a GachaHistory its values live in the history's
+ * columns, and this object becomes a view of its row there.
  */
 public class GachaPull implements Writable {
 
@@ -16,6 +19,8 @@ public class GachaPull implements Writable {
     private int numberOf4Stars;
     private int pullIndex;
     private int drawCount; // Total number of draws in this pull
+    private GachaHistory owner; // History storing this pull's values, or null
+    private int row;
 
     /*
      * Requires: desiredFlag indicates if the 5-star item is desired (true) or not (false),
@@ -25,17 +30,36 @@ public class GachaPull implements Writable {
      * Effects:  initializes a new GachaPull with the provided details.
      */
     public GachaPull(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
-        if (num4Stars < 0 || pullIndex < 1 || drawCount < 1) {
-            throw new IllegalArgumentException(
-            "Invalid number of 4-star items, pull index, or draw count.");
-        }
+        checkValues(num4Stars, pullIndex, drawCount);
         this.desired5Star = desiredFlag;
         this.numberOf4Stars = num4Stars;
         this.pullIndex = pullIndex;
         this.drawCount = drawCount;
     }
 
-    
+    /*
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects:  throws IllegalArgumentException unless num4Stars >= 0,
+     *           pullIndex >= 1 and drawCount >= 1.
+     */
+    static void checkValues(int num4Stars, int pullIndex, int drawCount) {
+        if (num4Stars < 0 || pullIndex < 1 || drawCount < 1) {
+            throw new IllegalArgumentException(
+            "Invalid number of 4-star items, pull index, or draw count.");
+        }
+    }
+
+    /*
+     * Requires: 0 <= row < number of pulls in owner
+     * Modifies: this
+     * Effects:  initializes a view of the given row of owner's pull records.
+     */
+    GachaPull(GachaHistory owner, int row) {
+        this.owner = owner;
+        this.row = row;
+    }
+
      /* 
      * Requires: nothing
      * Modifies: nothing
@@ -43,6 +67,9 @@ public class GachaPull implements Writable {
      * false otherwise.
      */
     public boolean isDesired5Star() {
+        if (owner != null) {
+            return owner.isDesired5Star(row);
+        }
         return desired5Star; 
     }
 
@@ -54,6 +81,9 @@ public class GachaPull implements Writable {
      * Effects:  returns the integer count of 4-star items.
      */
     public int getNumberOf4Stars() {
+        if (owner != null) {
+            return owner.getNumberOf4Stars(row);
+        }
         return numberOf4Stars; 
     }
 
@@ -65,6 +95,9 @@ public class GachaPull implements Writable {
      * Effects:  returns the integer representing which pull this was.
      */
     public int getPullIndex() {
+        if (owner != null) {
+            return owner.getPullIndex(row);
+        }
         return pullIndex;
     }
 
@@ -74,6 +107,9 @@ public class GachaPull implements Writable {
      * Effects:  Returns the number of draws in this pull.
      */
     public int getDrawCount() {
+        if (owner != null) {
+            return owner.getDrawCount(row);
+        }
         return drawCount;
     }
 
@@ -85,7 +121,11 @@ public class GachaPull implements Writable {
      * Effects:  updates the desired-flag status for this pull.
      */
     public void setDesired5Star(boolean desiredFlag) {
-        this.desired5Star = desiredFlag;
+        if (owner != null) {
+            owner.setDesired5Star(row, desiredFlag);
+        } else {
+            this.desired5Star = desiredFlag;
+        }
     }
 
     /**
@@ -100,7 +140,11 @@ public class GachaPull implements Writable {
             throw new IllegalArgumentException(
             "Number of 4-star items cannot be negative");  
         }
-        this.numberOf4Stars = num4Stars;
+        if (owner != null) {
+            owner.setNumberOf4Stars(row, num4Stars);
+        } else {
+            this.numberOf4Stars = num4Stars;
+        }
     }
 
     /**
@@ -113,17 +157,80 @@ public class GachaPull implements Writable {
             throw new IllegalArgumentException(
             "Draw count must be at least 1.");
         }
+        if (owner != null) {
+            owner.setDrawCount(row, drawCount);
+        } else {
+            this.drawCount = drawCount;
+        }
+    }
+
+    /*
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects:  returns true if this pull is currently stored in history.
+     */
+    boolean isStoredIn(GachaHistory history) {
+        return owner != null && owner == history;
+    }
+
+    /*
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects:  returns true if this pull is currently stored in any history.
+     */
+    boolean isStored() {
+        return owner != null;
+    }
+
+    /*
+     * Effects: returns the row of this pull in the history storing it.
+     */
+    int getRow() {
+        return row;
+    }
+
+    /*
+     * Requires: this pull is not stored in any history
+     * Modifies: this
+     * Effects:  makes this pull a view of the given row of owner.
+     */
+    void attach(GachaHistory owner, int row) {
+        this.owner = owner;
+        this.row = row;
+    }
+
+    /*
+     * Modifies: this
+     * Effects:  records that this pull's row has moved to the given position.
+     */
+    void moveTo(int row) {
+        this.row = row;
+    }
+
+    /*
+     * Modifies: this
+     * Effects:  turns this view back into a standalone pull holding the given values.
+     */
+    void detach(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
+        this.owner = null;
+        this.desired5Star = desiredFlag;
+        this.numberOf4Stars = num4Stars;
+        this.pullIndex = pullIndex;
         this.drawCount = drawCount;
     }
 
     @Override
     public JSONObject toJson() {
+        return toJson(isDesired5Star(), getNumberOf4Stars(), getPullIndex(), getDrawCount());
+    }
+
+    // EFFECTS: returns the JSON representation of a pull with the given values
+    static JSONObject toJson(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
         JSONObject json = new JSONObject();
-        json.put("desired5Star", desired5Star);
-        json.put("numberOf4Stars", numberOf4Stars);
+        json.put("desired5Star", desiredFlag);
+        json.put("numberOf4Stars", num4Stars);
         json.put("pullIndex", pullIndex);
         json.put("drawCount", drawCount);
         return json;
     }
 }
-
@@ -0,0 +1,309 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Represents a generator of synthetic pull histories of any size, e.g. to
+ * load test persistence, the statistics code or the GUI.
+ *
+ * Each record is one 5-star: its draw count follows the 5-star pity rules,
+ * whether it is the featured (desired) one follows their 50/50 and guarantee
+ * rules, and its number of 4-stars is the number of 4-stars among its other
+ * draws under the 4-star pity rules (of which only the rates and pity
+ * counts are used). Pull indices run from 1 to the number of records.
+ *
+ * Records are generated in chunks of CHUNK_SIZE on the common fork-join
+ * pool. Every chunk has its own SplittableRandom, split from the seed in
+ * chunk order, so the same seed always gives the same history however many
+ * threads run. The first chunk starts from a new account; later chunks
+ * start from the long-run distribution of the guarantee and of the draws
+ * left until the next 4-star.
+ *
+ * Draw counts are sampled in constant time from an alias table of the
+ * PityModel distribution. The number of 4-stars among a record's other
+ * draws, together with the draws then left until the next 4-star, is
+ * sampled the same way from exact tables built per (draws left, draws) by
+ * dynamic programming; if the rules make those tables too large, 4-star
+ * gaps are sampled one at a time instead.
+ */
+public class HistoryGenerator {
+    /** the usual 4-star rules: 5.1% base rate, soft pity at 9, a 4-star at least every 10 draws */
+    public static final PityRules STANDARD_FOUR_STAR = new PityRules(0.051, 9, 0.511, 10, 0.5, true);
+
+    static final int CHUNK_SIZE = 1 << 16;
+    private static final long TABLE_LIMIT = 1 << 22;
+
+    /**
+     * Receives generated records, one chunk at a time and in order.
+     */
+    @FunctionalInterface
+    public interface ChunkSink {
+        /**
+         * Effects: consumes the next chunk of records; may throw IOException.
+         */
+        void accept(PullBatch chunk) throws IOException;
+    }
+
+    private final PityRules fiveStarRules;
+    private final long seed;
+    private final AliasTable drawCounts;
+    private final AliasTable fourStarGaps;
+    private final AliasTable fourStarResiduals;
+    private final int residualBits;
+    private final AliasTable[][] fourStarCounts; // see buildFourStarCounts, or null
+    private final double guaranteedShare;
+
+    /**
+     * Requires: fiveStarRules and fourStarRules are not null
+     * Modifies: this
+     * Effects: creates a generator following the given rules; the same rules
+     * and seed always generate the same records.
+     */
+    public HistoryGenerator(PityRules fiveStarRules, PityRules fourStarRules, long seed) {
+        this.fiveStarRules = fiveStarRules;
+        this.seed = seed;
+        this.drawCounts = AliasTable.of(PityModel.of(fiveStarRules).getFiveStarDistribution());
+        PityDistribution gaps = PityModel.of(fourStarRules).getFiveStarDistribution();
+        this.fourStarGaps = AliasTable.of(gaps);
+
+        // Draws left until the next 4-star, seen from a random point in a long
+        // run: P(r) = P(gap >= r) / E[gap].
+        double[] residual = new double[gaps.getMaxDraws() + 1];
+        for (int r = 1; r < residual.length; r++) {
+            residual[r] = (1.0 - gaps.probabilityWithin(r - 1)) / gaps.getMean();
+        }
+        this.fourStarResiduals = AliasTable.of(new PityDistribution(residual));
+
+        int pity = gaps.getMaxDraws();
+        this.residualBits = 32 - Integer.numberOfLeadingZeros(pity);
+        long tableBound = (long) pity * pity * fiveStarRules.getHardPity() * fiveStarRules.getHardPity() / 2;
+        this.fourStarCounts = tableBound <= TABLE_LIMIT ? buildFourStarCounts(gaps) : null;
+
+        // Share of 5-stars that arrive with the guarantee active, in a long run.
+        double lose = 1.0 - fiveStarRules.getFeaturedChance();
+        this.guaranteedShare = fiveStarRules.isGuaranteeAfterLoss() ? lose / (1.0 + lose) : 0.0;
+    }
+
+    /**
+     * Requires: count >= 0
+     * Modifies: nothing
+     * Effects: returns a new history holding count generated records.
+     */
+    public GachaHistory generate(int count) {
+        GachaHistory history = new GachaHistory();
+        try {
+            generate(count, history::addAll);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // addAll does not throw
+        }
+        return history;
+    }
+
+    /**
+     * Requires: count >= 0
+     * Modifies: nothing
+     * Effects: generates count records in parallel and passes them to sink in
+     * chunks, in pull index order, from the calling thread; only a few chunks
+     * per worker thread are held in memory at once. Throws any IOException
+     * thrown by sink, after which no more chunks are generated.
+     */
+    public void generate(int count, ChunkSink sink) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int window = 2 * pool.getParallelism() + 1;
+        ArrayDeque<ForkJoinTask<PullBatch>> pending = new ArrayDeque<>();
+        SplittableRandom root = new SplittableRandom(seed);
+        try {
+            for (int first = 0; first < count; first += CHUNK_SIZE) {
+                if (pending.size() >= window) {
+                    sink.accept(pending.poll().get());
+                }
+                int start = first;
+                int size = Math.min(CHUNK_SIZE, count - first);
+                SplittableRandom random = root.split();
+                pending.add(pool.submit(() -> generateChunk(start, size, random)));
+            }
+            while (!pending.isEmpty()) {
+                sink.accept(pending.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (ForkJoinTask<PullBatch> task : pending) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    // EFFECTS: returns the records with pull indices first + 1 .. first + size
+    private PullBatch generateChunk(int first, int size, SplittableRandom random) {
+        PullBatch batch = new PullBatch(size);
+        double featured = fiveStarRules.getFeaturedChance();
+        boolean guaranteeAfterLoss = fiveStarRules.isGuaranteeAfterLoss();
+        boolean guaranteed = first > 0 && random.nextDouble() < guaranteedShare;
+        int untilFourStar = first > 0 ? fourStarResiduals.sample(random) : fourStarGaps.sample(random);
+
+        for (int i = 1; i <= size; i++) {
+            int drawCount = drawCounts.sample(random);
+            int otherDraws = drawCount - 1; // the 5-star draw itself is not a 4-star
+            int fourStars = 0;
+            if (fourStarCounts != null) {
+                int outcome = fourStarCounts[untilFourStar - 1][otherDraws].sample(random);
+                fourStars = outcome >>> residualBits;
+                untilFourStar = outcome & ((1 << residualBits) - 1);
+            } else {
+                while (untilFourStar <= otherDraws) {
+                    fourStars++;
+                    otherDraws -= untilFourStar;
+                    untilFourStar = fourStarGaps.sample(random);
+                }
+                untilFourStar -= otherDraws;
+            }
+
+            boolean desired = guaranteed || random.nextDouble() < featured;
+            guaranteed = !desired && guaranteeAfterLoss;
+            batch.add(desired, fourStars, first + i, drawCount);
+        }
+        return batch;
+    }
+
+    // EFFECTS: returns, for every number u of draws left until the next 4-star
+    //          and every number n of draws, a table sampling the number of
+    //          4-stars among those n draws together with the draws left
+    //          afterwards, packed as count << residualBits | left; computed by
+    //          dynamic programming over (count, left) one draw at a time
+    private AliasTable[][] buildFourStarCounts(PityDistribution gaps) {
+        int pity = gaps.getMaxDraws();
+        int maxDraws = fiveStarRules.getHardPity() - 1;
+        AliasTable[][] tables = new AliasTable[pity][maxDraws + 1];
+        for (int start = 1; start <= pity; start++) {
+            double[][] mass = new double[maxDraws + 1][pity + 1]; // [count][left]
+            mass[0][start] = 1.0;
+            for (int n = 0; n <= maxDraws; n++) {
+                tables[start - 1][n] = packedTable(mass, n);
+                if (n == maxDraws) {
+                    break;
+                }
+                double[][] next = new double[maxDraws + 1][pity + 1];
+                for (int count = 0; count <= n; count++) {
+                    for (int left = 2; left <= pity; left++) {
+                        next[count][left - 1] += mass[count][left];
+                    }
+                    double hit = mass[count][1];
+                    if (hit > 0.0) {
+                        for (int gap = 1; gap <= pity; gap++) {
+                            next[count + 1][gap] += hit * gaps.probabilityAt(gap);
+                        }
+                    }
+                }
+                mass = next;
+            }
+        }
+        return tables;
+    }
+
+    // EFFECTS: returns a table sampling the (count, left) pairs with mass,
+    //          where count <= maxCount
+    private AliasTable packedTable(double[][] mass, int maxCount) {
+        int outcomes = 0;
+        for (int count = 0; count <= maxCount; count++) {
+            for (double m : mass[count]) {
+                outcomes += m > 0.0 ? 1 : 0;
+            }
+        }
+        double[] weights = new double[outcomes];
+        int[] values = new int[outcomes];
+        int i = 0;
+        for (int count = 0; count <= maxCount; count++) {
+            for (int left = 1; left < mass[count].length; left++) {
+                if (mass[count][left] > 0.0) {
+                    weights[i] = mass[count][left];
+                    values[i++] = count << residualBits | left;
+                }
+            }
+        }
+        return new AliasTable(weights, values);
+    }
+
+    /**
+     * Samples from a discrete distribution in constant time with Vose's
+     * alias method.
+     */
+    private static final class AliasTable {
+        private final double[] probability;
+        private final int[] alias;
+        private final int[] values;
+
+        // EFFECTS: returns a table drawing 1 to n from distribution
+        static AliasTable of(PityDistribution distribution) {
+            int n = distribution.getMaxDraws();
+            double[] weights = new double[n];
+            int[] values = new int[n];
+            for (int i = 0; i < n; i++) {
+                weights[i] = distribution.probabilityAt(i + 1);
+                values[i] = i + 1;
+            }
+            return new AliasTable(weights, values);
+        }
+
+        // REQUIRES: weights.length == values.length >= 1, weights >= 0 with a
+        //           positive sum
+        // EFFECTS: builds a table drawing values[i] with probability
+        //          proportional to weights[i]
+        AliasTable(double[] weights, int[] values) {
+            int n = weights.length;
+            this.values = values;
+            probability = new double[n];
+            alias = new int[n];
+            double total = 0.0;
+            for (double w : weights) {
+                total += w;
+            }
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights[i] * n / total;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] -= 1.0 - scaled[less];
+                if (scaled[more] < 1.0) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            while (largeCount > 0) {
+                probability[large[--largeCount]] = 1.0;
+            }
+            while (smallCount > 0) {
+                probability[small[--smallCount]] = 1.0; // rounding left-overs
+            }
+        }
+
+        // EFFECTS: returns one of the values, drawn from the distribution
+        int sample(SplittableRandom random) {
+            double u = random.nextDouble() * probability.length;
+            int i = (int) u;
+            return values[u - i < probability[i] ? i : alias[i]];
+        }
+    }
+}
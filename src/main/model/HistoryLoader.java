@@ -0,0 +1,92 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents a load of pull records into a GachaHistory, e.g. while a file is
+ * being read, that never holds more than one chunk of records outside the
+ * history.
+ *
+ * Records are validated into a PullBatch and moved into the history whenever
+ * the batch holds chunkSize of them, without logging events or notifying
+ * listeners. Only finish() reports the load, as a single addAll would: one
+ * DUPLICATE_PULL_INDEX event per repeated pull index, then one PULLS_ADDED
+ * event and one pullsAdded call for all of the loaded records. A load that is
+ * abandoned part way therefore reports nothing, though the history keeps the
+ * records moved into it so far, so it should be a new history that is thrown
+ * away in that case.
+ */
+public class HistoryLoader {
+    private final GachaHistory history;
+    private final PullBatch chunk;
+    private final int chunkSize;
+    private final int first;
+    private int[] duplicates;
+    private int duplicateCount;
+
+    /**
+     * Requires: chunkSize >= 1; nothing else changes history during the load
+     * Modifies: this
+     * Effects: starts a load of records appended after history's records,
+     * moved into it chunkSize at a time.
+     */
+    public HistoryLoader(GachaHistory history, int chunkSize) {
+        this.history = history;
+        this.chunk = new PullBatch(chunkSize);
+        this.chunkSize = chunkSize;
+        this.first = history.size();
+        this.duplicates = new int[0];
+    }
+
+    /**
+     * Requires: num4Stars >= 0, pullIndex >= 1, drawCount >= 1
+     * Modifies: this, the history
+     * Effects: adds a record with the given values to the load; throws
+     * IllegalArgumentException if any value is out of range.
+     */
+    public void add(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
+        chunk.add(desiredFlag, num4Stars, pullIndex, drawCount);
+        if (chunk.size() == chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Requires: finish has not been called yet
+     * Modifies: this, the history
+     * Effects: moves the remaining records into the history, reports the
+     * load as described above (nothing if no records were loaded) and
+     * returns the history.
+     */
+    public GachaHistory finish() {
+        flush();
+        int count = history.size() - first;
+        if (count > 0) {
+            EventLog log = EventLog.getInstance();
+            for (int i = 0; i < duplicateCount; i++) {
+                log.logEvent(Event.duplicatePullIndex(duplicates[i]));
+            }
+            history.batchAdded(first, count);
+        }
+        return history;
+    }
+
+    // MODIFIES: this, the history
+    // EFFECTS: moves the chunk's records into the history without reporting
+    //          them, remembering repeated pull indexes for finish
+    private void flush() {
+        if (chunk.size() > 0) {
+            history.appendBatch(chunk, this::duplicateFound);
+            chunk.clear();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: remembers pullIndex as repeated
+    private void duplicateFound(int pullIndex) {
+        if (duplicateCount == duplicates.length) {
+            duplicates = Arrays.copyOf(duplicates, Math.max(16, 2 * duplicateCount));
+        }
+        duplicates[duplicateCount++] = pullIndex;
+    }
+}
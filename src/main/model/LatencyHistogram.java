@@ -0,0 +1,175 @@
+package model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a histogram of operation times in nanoseconds that any number
+ * of threads may record into at once.
+ *
+ * Buckets are laid out as in HdrHistogram: times below 16 ns get a bucket
+ * each, and every power of two above that is split into 16 equal buckets, so
+ * a bucket is never wider than 1/16 of the times it holds. Times of 2^41 ns
+ * (about 36 minutes) or more share the last bucket. Each bucket is a
+ * LongAdder, so recording is two uncontended adds and never locks.
+ *
+ * Percentiles are read from a snapshot of the buckets and reported as the
+ * upper bound of the bucket they fall in. A snapshot taken while others
+ * record may miss their latest times.
+ */
+public class LatencyHistogram implements LatencyMXBean {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Requires: name is not empty
+     * Modifies: this
+     * Effects: creates an empty histogram called name.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Effects: returns the histogram's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records one operation that took the given time.
+     *
+     * Requires: nothing
+     * Modifies: this
+     * Effects: counts nanos in its bucket; negative times count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        buckets[indexOf(value)].increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Effects: returns the total time of the recorded operations in
+     * nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Requires: 0 <= percentile <= 100
+     * Effects: returns the time in nanoseconds that the given percentage of
+     * the recorded operations took at most, or 0 if there are none.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = snapshot();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    @Override
+    public long getCount() {
+        long total = 0;
+        for (LongAdder bucket : buckets) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0.0 : getTotalNanos() / 1e3 / count;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return getPercentileNanos(50.0) / 1e3;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return getPercentileNanos(90.0) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return getPercentileNanos(99.0) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return getPercentileNanos(99.9) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return getPercentileNanos(100.0) / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+
+    // REQUIRES: value >= 0
+    // EFFECTS: returns the bucket holding value
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // REQUIRES: 0 <= index < BUCKETS
+    // EFFECTS: returns the largest value held by the bucket at index
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    // EFFECTS: returns the current count of every bucket
+    private long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
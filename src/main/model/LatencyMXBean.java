@@ -0,0 +1,50 @@
+package model;
+
+/**
+ * Management interface of a LatencyHistogram, as shown in JMX consoles.
+ * Times are in microseconds and accurate to within 1/16 of their value.
+ */
+public interface LatencyMXBean {
+
+    /**
+     * Effects: returns the number of recorded operations.
+     */
+    long getCount();
+
+    /**
+     * Effects: returns the mean time of the recorded operations, or 0 if
+     * there are none.
+     */
+    double getMeanMicros();
+
+    /**
+     * Effects: returns the median time of the recorded operations.
+     */
+    double getP50Micros();
+
+    /**
+     * Effects: returns the time 90% of the recorded operations took at most.
+     */
+    double getP90Micros();
+
+    /**
+     * Effects: returns the time 99% of the recorded operations took at most.
+     */
+    double getP99Micros();
+
+    /**
+     * Effects: returns the time 99.9% of the recorded operations took at most.
+     */
+    double getP999Micros();
+
+    /**
+     * Effects: returns the longest recorded time.
+     */
+    double getMaxMicros();
+
+    /**
+     * Modifies: this
+     * Effects: forgets every recorded operation.
+     */
+    void reset();
+}
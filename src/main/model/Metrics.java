@@ -0,0 +1,242 @@
+package model;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Represents the registry of operational metrics: latency histograms of
+ * timed operations, counters and gauges. Like the EventLog there is only one
+ * registry in the system, so the model and persistence code can record into
+ * it without it being passed around.
+ *
+ * Hot paths look up their histograms and counters once, into static final
+ * fields, and then only call System.nanoTime and record, which costs tens
+ * of nanoseconds and never locks. Gauges are read only when asked for.
+ *
+ * Once registerMBeans is called the registry is published on the platform
+ * MBean server as gachatracker:type=Metrics, and every histogram, including
+ * those created later, as gachatracker:type=Latency,name=its name.
+ */
+public class Metrics implements MetricsMXBean {
+    /** the JMX domain the registry's MBeans are published under */
+    public static final String DOMAIN = "gachatracker";
+
+    private static final Metrics theMetrics = new Metrics();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final LongAdder loadBytes = counter("load.bytes");
+    private final LongAdder loadPulls = counter("load.pulls");
+    private final LongAdder loadNanos = counter("load.nanos");
+    private final LongAdder saveBytes = counter("save.bytes");
+    private final LongAdder savePulls = counter("save.pulls");
+    private final LongAdder saveNanos = counter("save.nanos");
+    private volatile GachaHistory trackedHistory;
+    private MBeanServer server; // set once the MBeans are registered
+
+    /**
+     * Prevent external construction; the registry starts with gauges of the
+     * EventLog's capacity and lost events.
+     */
+    private Metrics() {
+        gauge("eventLog.capacity", () -> EventLog.getInstance().getCapacity());
+        gauge("eventLog.lost", () -> EventLog.getInstance().getLostCount());
+    }
+
+    /**
+     * Effects: returns the only Metrics registry.
+     */
+    public static Metrics getInstance() {
+        return theMetrics;
+    }
+
+    /**
+     * Requires: name is not empty and holds no ',', '=', ':' or quote
+     * Modifies: this
+     * Effects: returns the histogram called name, creating it (and its MBean,
+     * if the MBeans are registered) the first time.
+     */
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            synchronized (this) {
+                // another thread may have created it since the unlocked get
+                histogram = histograms.get(name);
+                if (histogram == null) {
+                    histogram = new LatencyHistogram(name);
+                    histograms.put(name, histogram);
+                    if (server != null) {
+                        register(histogram);
+                    }
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Requires: name is not empty
+     * Modifies: this
+     * Effects: returns the counter called name, creating it the first time.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Requires: name is not empty, value is safe to call from any thread
+     * Modifies: this
+     * Effects: makes the gauge called name report value, replacing any
+     * earlier one of that name.
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Modifies: this
+     * Effects: removes the gauge called name, if there is one.
+     */
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Makes history the one whose size and memory use are reported, e.g.
+     * the history shown by the app. Only its sizes are read, without locking,
+     * so the values may be slightly out of date.
+     *
+     * Requires: nothing
+     * Modifies: this
+     * Effects: tracks history, or no history if it is null.
+     */
+    public void trackHistory(GachaHistory history) {
+        trackedHistory = history;
+    }
+
+    /**
+     * Requires: bytes >= 0, pulls >= 0, nanos >= 0
+     * Modifies: this
+     * Effects: counts a load of pulls records from bytes bytes taking nanos.
+     */
+    public void recordLoad(long bytes, long pulls, long nanos) {
+        loadBytes.add(bytes);
+        loadPulls.add(pulls);
+        loadNanos.add(nanos);
+    }
+
+    /**
+     * Requires: bytes >= 0, pulls >= 0, nanos >= 0
+     * Modifies: this
+     * Effects: counts a save of pulls records to bytes bytes taking nanos.
+     */
+    public void recordSave(long bytes, long pulls, long nanos) {
+        saveBytes.add(bytes);
+        savePulls.add(pulls);
+        saveNanos.add(nanos);
+    }
+
+    /**
+     * Modifies: this
+     * Effects: publishes the registry and its histograms on the platform
+     * MBean server; does nothing if they are already published. Throws
+     * IllegalStateException if the server rejects them.
+     */
+    public synchronized void registerMBeans() {
+        if (server != null) {
+            return;
+        }
+        MBeanServer platform = ManagementFactory.getPlatformMBeanServer();
+        try {
+            platform.registerMBean(this, new ObjectName(DOMAIN + ":type=Metrics"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics MBean", e);
+        }
+        server = platform;
+        for (LatencyHistogram histogram : histograms.values()) {
+            register(histogram);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getGauges() {
+        Map<String, Double> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsDouble()));
+        return values;
+    }
+
+    @Override
+    public int getHistorySize() {
+        GachaHistory history = trackedHistory;
+        return history == null ? 0 : history.size();
+    }
+
+    @Override
+    public double getBytesPerPull() {
+        GachaHistory history = trackedHistory;
+        return history == null ? 0.0 : history.estimateBytesPerPull();
+    }
+
+    @Override
+    public int getEventLogSize() {
+        return EventLog.getInstance().getSize();
+    }
+
+    @Override
+    public double getLoadBytesPerSecond() {
+        return perSecond(loadBytes, loadNanos);
+    }
+
+    @Override
+    public double getLoadPullsPerSecond() {
+        return perSecond(loadPulls, loadNanos);
+    }
+
+    @Override
+    public double getSaveBytesPerSecond() {
+        return perSecond(saveBytes, saveNanos);
+    }
+
+    @Override
+    public double getSavePullsPerSecond() {
+        return perSecond(savePulls, saveNanos);
+    }
+
+    @Override
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    // EFFECTS: returns amount per second of nanos, or 0 if nanos is 0
+    private static double perSecond(LongAdder amount, LongAdder nanos) {
+        long time = nanos.sum();
+        return time == 0 ? 0.0 : amount.sum() * 1e9 / time;
+    }
+
+    // REQUIRES: server is not null
+    // EFFECTS: publishes histogram on server
+    private void register(LatencyHistogram histogram) {
+        try {
+            server.registerMBean(histogram,
+                    new ObjectName(DOMAIN + ":type=Latency,name=" + histogram.getName()));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the MBean of " + histogram.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import java.util.Map;
+
+/**
+ * Management interface of the Metrics registry, as shown in JMX consoles.
+ * The latency of each timed operation is a separate LatencyMXBean.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Effects: returns the current value of every counter, by name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Effects: returns the current value of every gauge, by name.
+     */
+    Map<String, Double> getGauges();
+
+    /**
+     * Effects: returns the number of records in the tracked history, or 0 if
+     * no history is tracked.
+     */
+    int getHistorySize();
+
+    /**
+     * Effects: returns the estimated memory used per record of the tracked
+     * history, in bytes, or 0 if it is empty or no history is tracked.
+     */
+    double getBytesPerPull();
+
+    /**
+     * Effects: returns the number of events currently held by the EventLog.
+     */
+    int getEventLogSize();
+
+    /**
+     * Effects: returns the bytes read per second of loading, over every load
+     * so far, or 0 if nothing was loaded.
+     */
+    double getLoadBytesPerSecond();
+
+    /**
+     * Effects: returns the records read per second of loading, over every
+     * load so far, or 0 if nothing was loaded.
+     */
+    double getLoadPullsPerSecond();
+
+    /**
+     * Effects: returns the bytes written per second of saving, over every
+     * save so far, or 0 if nothing was saved.
+     */
+    double getSaveBytesPerSecond();
+
+    /**
+     * Effects: returns the records written per second of saving, over every
+     * save so far, or 0 if nothing was saved.
+     */
+    double getSavePullsPerSecond();
+
+    /**
+     * Modifies: this
+     * Effects: sets every counter and histogram back to zero.
+     */
+    void reset();
+}
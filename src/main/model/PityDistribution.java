@@ -0,0 +1,120 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents an immutable probability distribution of a number of draws,
+ * e.g. the number of draws until the next 5-star, from 1 to getMaxDraws().
+ *
+ * Cumulative probabilities are stored alongside the probabilities, so
+ * probabilityWithin is a lookup and drawsForProbability a binary search.
+ */
+public final class PityDistribution {
+    private final double[] pmf; // pmf[n] = P(exactly n draws), pmf[0] == 0
+    private final double[] cdf; // cdf[n] = P(at most n draws)
+    private final double mean;
+
+    // REQUIRES: pmf[0] == 0, pmf.length >= 2, entries >= 0
+    // EFFECTS: creates a distribution with the given probabilities (not copied)
+    PityDistribution(double[] pmf) {
+        this.pmf = pmf;
+        this.cdf = new double[pmf.length];
+        double sum = 0.0;
+        double weighted = 0.0;
+        for (int n = 1; n < pmf.length; n++) {
+            sum += pmf[n];
+            weighted += n * pmf[n];
+            cdf[n] = sum;
+        }
+        this.mean = sum == 0.0 ? 0.0 : weighted / sum;
+    }
+
+    /**
+     * Requires: maxDraws >= 1
+     * Modifies: nothing
+     * Effects: returns the distribution of drawCount over the history's
+     * records, each record counting equally, where draw counts above
+     * maxDraws all count as maxDraws (e.g. the hard pity of the rules the
+     * history is compared with); a history without records gives a
+     * distribution that is 0 everywhere. Throws IllegalArgumentException if
+     * maxDraws < 1.
+     */
+    public static PityDistribution empirical(GachaHistory history, int maxDraws) {
+        if (maxDraws < 1) {
+            throw new IllegalArgumentException("Maximum draws must be at least 1");
+        }
+        int size = history.size();
+        int largest = 1;
+        for (int row = 0; row < size; row++) {
+            largest = Math.max(largest, Math.min(history.getDrawCount(row), maxDraws));
+        }
+        double[] pmf = new double[largest + 1];
+        for (int row = 0; row < size; row++) {
+            pmf[Math.min(history.getDrawCount(row), maxDraws)] += 1.0 / size;
+        }
+        return new PityDistribution(pmf);
+    }
+
+    /**
+     * Effects: returns the largest number of draws with a stored probability.
+     */
+    public int getMaxDraws() {
+        return pmf.length - 1;
+    }
+
+    /**
+     * Effects: returns the probability of exactly draws draws.
+     */
+    public double probabilityAt(int draws) {
+        return draws < 1 || draws >= pmf.length ? 0.0 : pmf[draws];
+    }
+
+    /**
+     * Effects: returns the probability of at most draws draws.
+     */
+    public double probabilityWithin(int draws) {
+        if (draws < 1) {
+            return 0.0;
+        }
+        return cdf[Math.min(draws, cdf.length - 1)];
+    }
+
+    /**
+     * Requires: 0 < probability <= 1
+     * Effects: returns the smallest number of draws that is reached with at
+     * least the given probability, or getMaxDraws() if the probability lies
+     * in the negligible tail beyond it.
+     */
+    public int drawsForProbability(double probability) {
+        int n = Arrays.binarySearch(cdf, 1, cdf.length, probability);
+        if (n < 0) {
+            n = -n - 1;
+        }
+        while (n > 1 && cdf[n - 1] >= probability) {
+            n--; // step back over ties, e.g. draws with probability 0
+        }
+        return Math.min(n, cdf.length - 1);
+    }
+
+    /**
+     * Effects: returns the expected number of draws.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Requires: other is not null
+     * Effects: returns the largest difference between the cumulative
+     * probabilities of this and other at any number of draws (the
+     * Kolmogorov-Smirnov distance); 0 means they are identical.
+     */
+    public double maxCdfGap(PityDistribution other) {
+        int end = Math.max(getMaxDraws(), other.getMaxDraws());
+        double gap = 0.0;
+        for (int n = 1; n <= end; n++) {
+            gap = Math.max(gap, Math.abs(probabilityWithin(n) - other.probabilityWithin(n)));
+        }
+        return gap;
+    }
+}
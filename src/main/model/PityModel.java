@@ -0,0 +1,169 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents the exact draw-count distributions implied by a set of pity
+ * rules, answering questions such as "how many draws until I am 90% likely
+ * to get the featured 5-star?".
+ *
+ * The draws are a Markov chain whose state is the pity counter (draws since
+ * the last 5-star) and whether the next 5-star is guaranteed to be
+ * featured. Distributions are computed by dynamic programming over these
+ * states, one draw at a time, carrying the probability mass of every state
+ * forward until all but a negligible tail has reached the featured 5-star.
+ * Nothing is simulated, so the answers are exact up to that tail.
+ *
+ * Models are cached by rule set, and each model computes the distribution
+ * from a given state once, on first use; after that a query is an array
+ * lookup or a binary search.
+ *
+ * Records of a GachaHistory are taken to each end with a 5-star, their draw
+ * count being the draws since the previous one, so their drawCount
+ * distribution can be compared with getFiveStarDistribution().
+ */
+public final class PityModel {
+    private static final double TAIL = 1e-12;
+    private static final ConcurrentHashMap<PityRules, PityModel> CACHE = new ConcurrentHashMap<>();
+
+    private final PityRules rules;
+    private final double[] rate; // rate[k] = chance of a 5-star on draw k since the last one
+    private final PityDistribution fiveStar;
+    private final AtomicReferenceArray<PityDistribution> featured; // by start state, see state()
+
+    // EFFECTS: creates a model of rules and computes its 5-star distribution
+    private PityModel(PityRules rules) {
+        this.rules = rules;
+        int hardPity = rules.getHardPity();
+        this.rate = new double[hardPity + 1];
+        for (int k = 1; k <= hardPity; k++) {
+            rate[k] = rules.rateAt(k);
+        }
+        this.featured = new AtomicReferenceArray<>(2 * hardPity);
+
+        double[] pmf = new double[hardPity + 1];
+        double survival = 1.0;
+        for (int k = 1; k <= hardPity; k++) {
+            pmf[k] = survival * rate[k];
+            survival -= pmf[k];
+        }
+        this.fiveStar = new PityDistribution(pmf);
+    }
+
+    /**
+     * Requires: rules is not null
+     * Modifies: nothing
+     * Effects: returns the model of rules, shared by every caller asking for
+     * equal rules.
+     */
+    public static PityModel of(PityRules rules) {
+        return CACHE.computeIfAbsent(rules, PityModel::new);
+    }
+
+    /**
+     * Effects: returns the rules this model describes.
+     */
+    public PityRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Effects: returns the distribution of the number of draws from one 5-star
+     * to the next, featured or not.
+     */
+    public PityDistribution getFiveStarDistribution() {
+        return fiveStar;
+    }
+
+    /**
+     * Requires: 0 <= pity < getRules().getHardPity()
+     * Modifies: this
+     * Effects: returns the distribution of the number of further draws until
+     * the featured 5-star, starting pity draws after the last 5-star, with
+     * the next 5-star guaranteed to be featured if guaranteed is true; throws
+     * IllegalArgumentException if pity is out of range.
+     */
+    public PityDistribution getFeaturedDistribution(int pity, boolean guaranteed) {
+        if (pity < 0 || pity >= rules.getHardPity()) {
+            throw new IllegalArgumentException("Pity must be between 0 and " + (rules.getHardPity() - 1));
+        }
+        int state = state(pity, guaranteed);
+        PityDistribution distribution = featured.get(state);
+        if (distribution == null) {
+            // Racing threads compute equal distributions; either may be kept.
+            distribution = computeFeatured(pity, guaranteed);
+            featured.compareAndSet(state, null, distribution);
+        }
+        return distribution;
+    }
+
+    /**
+     * Requires: history is not null
+     * Modifies: nothing
+     * Effects: returns the largest difference between the cumulative
+     * distribution of the history's draw counts and getFiveStarDistribution();
+     * small values mean the history is consistent with these rules. Draw
+     * counts above the hard pity count as the hard pity.
+     */
+    public double compareWith(GachaHistory history) {
+        return fiveStar.maxCdfGap(PityDistribution.empirical(history, rules.getHardPity()));
+    }
+
+    // EFFECTS: returns the index of a start state in featured
+    private int state(int pity, boolean guaranteed) {
+        return 2 * pity + (guaranteed ? 1 : 0);
+    }
+
+    // EFFECTS: carries the probability mass of each (pity, guaranteed) state
+    //          forward one draw at a time, collecting the mass that reaches the
+    //          featured 5-star on each draw, until less than TAIL is left
+    private PityDistribution computeFeatured(int pity, boolean guaranteed) {
+        int hardPity = rules.getHardPity();
+        double win = rules.getFeaturedChance();
+        boolean guarantee = rules.isGuaranteeAfterLoss();
+        double[] open = new double[hardPity]; // mass by pity, next 5-star not guaranteed
+        double[] sure = new double[hardPity]; // mass by pity, next 5-star guaranteed
+        double[] nextOpen = new double[hardPity];
+        double[] nextSure = new double[hardPity];
+        (guaranteed ? sure : open)[pity] = 1.0;
+
+        double[] pmf = new double[2 * hardPity + 1];
+        double left = 1.0;
+        int draw = 0;
+        while (left >= TAIL) {
+            draw++;
+            if (draw == pmf.length) {
+                pmf = Arrays.copyOf(pmf, 2 * pmf.length);
+            }
+            Arrays.fill(nextOpen, 0.0);
+            Arrays.fill(nextSure, 0.0);
+            double reached = 0.0;
+            double lost = 0.0;
+            for (int p = 0; p < hardPity; p++) {
+                double r = rate[p + 1];
+                if (p + 1 < hardPity) {
+                    nextOpen[p + 1] = open[p] * (1.0 - r);
+                    nextSure[p + 1] = sure[p] * (1.0 - r);
+                }
+                reached += sure[p] * r + open[p] * r * win;
+                lost += open[p] * r * (1.0 - win);
+            }
+            (guarantee ? nextSure : nextOpen)[0] = lost;
+            pmf[draw] = reached;
+
+            double[] swap = open;
+            open = nextOpen;
+            nextOpen = swap;
+            swap = sure;
+            sure = nextSure;
+            nextSure = swap;
+            left = 0.0;
+            for (int p = 0; p < hardPity; p++) {
+                left += open[p] + sure[p];
+            }
+        }
+        return new PityDistribution(Arrays.copyOf(pmf, draw + 1));
+    }
+}
@@ -0,0 +1,136 @@
+package model;
+
+import java.util.Objects;
+
+/**
+ * Represents the pity rules of a banner: the chance of a 5-star on each draw,
+ * which rises after the soft pity draw and reaches certainty at the hard pity
+ * draw, and the chance that a 5-star is the featured (desired) one, with an
+ * optional guarantee that the 5-star after a lost 50/50 is featured.
+ *
+ * Draws are counted from the last 5-star: the chance on draw k is
+ * baseRate, plus softPityIncrement for every draw from softPityStart to k,
+ * capped at 1, and exactly 1 on draw hardPity.
+ *
+ * Rules are immutable values, so they can be used as cache keys.
+ */
+public final class PityRules {
+    /** the usual character banner: 0.6% base rate, soft pity at 74, hard pity at 90, 50/50 with guarantee */
+    public static final PityRules STANDARD = new PityRules(0.006, 74, 0.06, 90, 0.5, true);
+
+    private final double baseRate;
+    private final int softPityStart;
+    private final double softPityIncrement;
+    private final int hardPity;
+    private final double featuredChance;
+    private final boolean guaranteeAfterLoss;
+
+    /**
+     * Requires: 0 < baseRate <= 1, softPityStart >= 1, softPityIncrement >= 0,
+     * hardPity >= 1, 0 <= featuredChance <= 1, and featuredChance > 0 or
+     * guaranteeAfterLoss (so the featured 5-star can be obtained at all)
+     * Modifies: this
+     * Effects: creates rules with the given values; throws
+     * IllegalArgumentException if any of them is out of range.
+     */
+    public PityRules(double baseRate, int softPityStart, double softPityIncrement, int hardPity,
+                     double featuredChance, boolean guaranteeAfterLoss) {
+        if (!(baseRate > 0.0 && baseRate <= 1.0) || softPityStart < 1 || !(softPityIncrement >= 0.0)
+                || hardPity < 1 || !(featuredChance >= 0.0 && featuredChance <= 1.0)) {
+            throw new IllegalArgumentException("Pity rule values out of range");
+        }
+        if (featuredChance == 0.0 && !guaranteeAfterLoss) {
+            throw new IllegalArgumentException("The featured 5-star could never be obtained");
+        }
+        this.baseRate = baseRate;
+        this.softPityStart = softPityStart;
+        this.softPityIncrement = softPityIncrement;
+        this.hardPity = hardPity;
+        this.featuredChance = featuredChance;
+        this.guaranteeAfterLoss = guaranteeAfterLoss;
+    }
+
+    /**
+     * Requires: 1 <= draw <= getHardPity()
+     * Effects: returns the chance that the draw-th draw since the last 5-star
+     * gives a 5-star, given that the draws before it did not.
+     */
+    public double rateAt(int draw) {
+        if (draw >= hardPity) {
+            return 1.0;
+        }
+        int boosted = Math.max(0, draw - softPityStart + 1);
+        return Math.min(1.0, baseRate + boosted * softPityIncrement);
+    }
+
+    /**
+     * Effects: returns the chance of a 5-star on a draw before soft pity.
+     */
+    public double getBaseRate() {
+        return baseRate;
+    }
+
+    /**
+     * Effects: returns the first draw whose chance is raised by soft pity.
+     */
+    public int getSoftPityStart() {
+        return softPityStart;
+    }
+
+    /**
+     * Effects: returns how much each draw from soft pity on adds to the chance.
+     */
+    public double getSoftPityIncrement() {
+        return softPityIncrement;
+    }
+
+    /**
+     * Effects: returns the draw on which a 5-star is certain.
+     */
+    public int getHardPity() {
+        return hardPity;
+    }
+
+    /**
+     * Effects: returns the chance that a 5-star is the featured one.
+     */
+    public double getFeaturedChance() {
+        return featuredChance;
+    }
+
+    /**
+     * Effects: returns true if the 5-star after a non-featured one is always featured.
+     */
+    public boolean isGuaranteeAfterLoss() {
+        return guaranteeAfterLoss;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PityRules)) {
+            return false;
+        }
+        PityRules other = (PityRules) o;
+        return Double.compare(baseRate, other.baseRate) == 0
+                && softPityStart == other.softPityStart
+                && Double.compare(softPityIncrement, other.softPityIncrement) == 0
+                && hardPity == other.hardPity
+                && Double.compare(featuredChance, other.featuredChance) == 0
+                && guaranteeAfterLoss == other.guaranteeAfterLoss;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(baseRate, softPityStart, softPityIncrement, hardPity, featuredChance, guaranteeAfterLoss);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("base %.2f%%, soft pity %d (+%.2f%%), hard pity %d, featured %.0f%%%s",
+                baseRate * 100, softPityStart, softPityIncrement * 100, hardPity, featuredChance * 100,
+                guaranteeAfterLoss ? " with guarantee" : "");
+    }
+}
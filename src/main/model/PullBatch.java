@@ -0,0 +1,110 @@
+package model;
+
+/**
+ * Represents a batch of pull records waiting to be added to a GachaHistory
+ * in one step with GachaHistory.addAll, e.g. while a file is being loaded.
+ *
+ * Records are validated as they are added to the batch and kept in the same
+ * column layout a GachaHistory uses, together with their running totals, so
+ * adding the batch to a history is a bulk copy plus a single update of the
+ * history's totals.
+ */
+public class PullBatch {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final PullColumns records;
+    private int desiredCount;
+    private long totalDraws;
+    private long totalFourStars;
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: initializes an empty batch.
+     */
+    public PullBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Requires: expectedSize >= 0
+     * Modifies: this
+     * Effects: initializes an empty batch with room for expectedSize records
+     * before it needs to grow.
+     */
+    public PullBatch(int expectedSize) {
+        records = new PullColumns(null, Math.max(expectedSize, 1));
+    }
+
+    /**
+     * Adds a pull record with the given values to the batch.
+     *
+     * Requires: num4Stars >= 0, pullIndex >= 1, drawCount >= 1
+     * Modifies: this
+     * Effects: appends a record with the given values; throws
+     * IllegalArgumentException if any value is out of range.
+     */
+    public void add(boolean desiredFlag, int num4Stars, int pullIndex, int drawCount) {
+        GachaPull.checkValues(num4Stars, pullIndex, drawCount);
+        records.add(desiredFlag, num4Stars, pullIndex, drawCount);
+        if (desiredFlag) {
+            desiredCount++;
+        }
+        totalDraws += drawCount;
+        totalFourStars += num4Stars;
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns the number of records in the batch.
+     */
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: removes every record from the batch, keeping the room it has
+     * grown, so the batch can be refilled, e.g. after adding it to a history.
+     */
+    public void clear() {
+        records.clear();
+        desiredCount = 0;
+        totalDraws = 0;
+        totalFourStars = 0;
+    }
+
+    /**
+     * Applies visitor to the values of every record in the batch, in order.
+     *
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: calls visitor once per record.
+     */
+    public void forEachPull(PullVisitor visitor) {
+        for (int row = 0; row < records.size(); row++) {
+            visitor.visit(records.isDesired5Star(row), records.getNumberOf4Stars(row),
+                    records.getPullIndex(row), records.getDrawCount(row));
+        }
+    }
+
+    // Columns and totals, read by GachaHistory.addAll.
+
+    PullColumns records() {
+        return records;
+    }
+
+    int desiredCount() {
+        return desiredCount;
+    }
+
+    long totalDraws() {
+        return totalDraws;
+    }
+
+    long totalFourStars() {
+        return totalFourStars;
+    }
+}
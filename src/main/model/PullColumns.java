@@ -0,0 +1,260 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented storage for the pull records of a single GachaHistory.
+ * Each field of a pull lives in its own primitive array (the desired flag is
+ * packed into a bitset), so a record costs a few bytes instead of a whole
+ * object.
+ *
+ * GachaPull objects for stored rows are only created on demand as views and
+ * are cached so the same row always hands back the same object.
+ */
+class PullColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final GachaHistory owner;
+    private long[] desired;
+    private int[] numberOf4Stars;
+    private int[] pullIndex;
+    private int[] drawCount;
+    private GachaPull[] views;
+    private int viewCount; // rows that have a view
+    private int size;
+
+    /**
+     * Requires: owner is not null
+     * Modifies: this
+     * Effects:  creates empty columns whose views belong to owner.
+     */
+    PullColumns(GachaHistory owner) {
+        this(owner, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Requires: capacity >= 1; owner is not null unless view and bind are
+     *           never used (e.g. for a PullBatch)
+     * Modifies: this
+     * Effects:  creates empty columns with room for capacity rows whose views
+     *           belong to owner.
+     */
+    PullColumns(GachaHistory owner, int capacity) {
+        this.owner = owner;
+        desired = new long[wordsFor(capacity)];
+        numberOf4Stars = new int[capacity];
+        pullIndex = new int[capacity];
+        drawCount = new int[capacity];
+        views = new GachaPull[capacity];
+    }
+
+    /**
+     * Requires: newOwner is not null
+     * Modifies: nothing
+     * Effects:  returns columns holding the same rows as this, whose views
+     *           belong to newOwner; no views are shared with this.
+     */
+    PullColumns copyFor(GachaHistory newOwner) {
+        PullColumns copy = new PullColumns(newOwner);
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+        copy.desired = Arrays.copyOf(desired, wordsFor(capacity));
+        copy.numberOf4Stars = Arrays.copyOf(numberOf4Stars, capacity);
+        copy.pullIndex = Arrays.copyOf(pullIndex, capacity);
+        copy.drawCount = Arrays.copyOf(drawCount, capacity);
+        copy.views = new GachaPull[capacity];
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Modifies: this
+     * Effects:  appends copies of all of other's rows after this one's rows;
+     *           no views are created.
+     */
+    void appendAll(PullColumns other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.numberOf4Stars, 0, numberOf4Stars, size, count);
+        System.arraycopy(other.pullIndex, 0, pullIndex, size, count);
+        System.arraycopy(other.drawCount, 0, drawCount, size, count);
+        for (int i = 0; i < count; i++) {
+            writeBit(size + i, other.isDesired5Star(i));
+        }
+        size += count;
+    }
+
+    /**
+     * Modifies: this
+     * Effects:  removes every row, keeping the columns' capacity.
+     */
+    void clear() {
+        Arrays.fill(views, 0, size, null);
+        viewCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Effects: returns the number of stored rows.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Effects: returns the memory used by the columns' arrays in bytes,
+     *          assuming 16-byte array headers and 4-byte references; views
+     *          that were handed out are not counted.
+     */
+    long estimateBytes() {
+        return 5 * 16L + 8L * desired.length
+                + 4L * (numberOf4Stars.length + pullIndex.length + drawCount.length + views.length);
+    }
+
+    /**
+     * Modifies: this
+     * Effects:  appends a row with the given values and returns its position.
+     */
+    int add(boolean desiredFlag, int num4Stars, int index, int draws) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        writeBit(row, desiredFlag);
+        numberOf4Stars[row] = num4Stars;
+        pullIndex[row] = index;
+        drawCount[row] = draws;
+        views[row] = null;
+        return row;
+    }
+
+    /**
+     * Requires: 0 <= row < size()
+     * Modifies: this
+     * Effects:  removes the row, shifting later rows down by one. A view that
+     *           was handed out for the removed row is detached and keeps the
+     *           row's values; views of later rows follow their rows. The
+     *           views are only walked if any were handed out.
+     */
+    void remove(int row) {
+        GachaPull removed = views[row];
+        if (removed != null) {
+            removed.detach(isDesired5Star(row), numberOf4Stars[row], pullIndex[row], drawCount[row]);
+            viewCount--;
+        }
+        int moved = size - row - 1;
+        System.arraycopy(numberOf4Stars, row + 1, numberOf4Stars, row, moved);
+        System.arraycopy(pullIndex, row + 1, pullIndex, row, moved);
+        System.arraycopy(drawCount, row + 1, drawCount, row, moved);
+        removeBit(row);
+        size--;
+        if (viewCount > 0) {
+            System.arraycopy(views, row + 1, views, row, moved);
+            views[size] = null;
+            for (int i = row; i < size; i++) {
+                if (views[i] != null) {
+                    views[i].moveTo(i);
+                }
+            }
+        } else {
+            views[row] = null;
+        }
+    }
+
+    /**
+     * Requires: 0 <= row < size()
+     * Modifies: this
+     * Effects:  returns the view for row, creating it on first use.
+     */
+    GachaPull view(int row) {
+        GachaPull view = views[row];
+        if (view == null) {
+            view = new GachaPull(owner, row);
+            views[row] = view;
+            viewCount++;
+        }
+        return view;
+    }
+
+    /**
+     * Requires: 0 <= row < size(), pull is not stored in any history
+     * Modifies: this, pull
+     * Effects:  makes pull the view of row.
+     */
+    void bind(int row, GachaPull pull) {
+        pull.attach(owner, row);
+        if (views[row] == null) {
+            viewCount++;
+        }
+        views[row] = pull;
+    }
+
+    boolean isDesired5Star(int row) {
+        return (desired[row >>> 6] & (1L << row)) != 0;
+    }
+
+    int getNumberOf4Stars(int row) {
+        return numberOf4Stars[row];
+    }
+
+    int getPullIndex(int row) {
+        return pullIndex[row];
+    }
+
+    int getDrawCount(int row) {
+        return drawCount[row];
+    }
+
+    void setDesired5Star(int row, boolean desiredFlag) {
+        writeBit(row, desiredFlag);
+    }
+
+    void setNumberOf4Stars(int row, int num4Stars) {
+        numberOf4Stars[row] = num4Stars;
+    }
+
+    void setDrawCount(int row, int draws) {
+        drawCount[row] = draws;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows every column so that it can hold at least minCapacity rows
+    private void ensureCapacity(int minCapacity) {
+        int capacity = pullIndex.length;
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        desired = Arrays.copyOf(desired, wordsFor(newCapacity));
+        numberOf4Stars = Arrays.copyOf(numberOf4Stars, newCapacity);
+        pullIndex = Arrays.copyOf(pullIndex, newCapacity);
+        drawCount = Arrays.copyOf(drawCount, newCapacity);
+        views = Arrays.copyOf(views, newCapacity);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets or clears the desired bit of row
+    private void writeBit(int row, boolean value) {
+        if (value) {
+            desired[row >>> 6] |= 1L << row;
+        } else {
+            desired[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops the desired bit of row and shifts all higher bits down by one
+    private void removeBit(int row) {
+        int word = row >>> 6;
+        long keep = (1L << row) - 1;
+        long bits = desired[word];
+        desired[word] = (bits & keep) | ((bits >>> 1) & ~keep);
+        int lastWord = (size - 1) >>> 6;
+        for (int i = word; i < lastWord; i++) {
+            desired[i] |= desired[i + 1] << 63;
+            desired[i + 1] >>>= 1;
+        }
+    }
+
+    // EFFECTS: returns the number of longs needed to hold bits for rows rows
+    private static int wordsFor(int rows) {
+        return (rows + 63) >>> 6;
+    }
+}
@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * The fields of a pull record that records can be sorted and filtered by.
+ *
+ * Effects: each field is read as a non-negative int; desired5Star reads as
+ *          1 for true and 0 for false.
+ */
+public enum PullField {
+    PULL_INDEX("Pull #"),
+    DESIRED_5_STAR("Desired 5-star"),
+    NUMBER_OF_4_STARS("4-stars"),
+    DRAW_COUNT("Total draws");
+
+    private final String label;
+
+    PullField(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Effects: returns a short human-readable name for this field.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Requires: 0 <= position < history.getAllPulls().size()
+     * Effects: returns this field's value for the record at position of
+     * history, without creating a GachaPull view for it.
+     */
+    public int valueAt(GachaHistory history, int position) {
+        switch (this) {
+            case PULL_INDEX:
+                return history.getPullIndex(position);
+            case DESIRED_5_STAR:
+                return history.isDesired5Star(position) ? 1 : 0;
+            case NUMBER_OF_4_STARS:
+                return history.getNumberOf4Stars(position);
+            default:
+                return history.getDrawCount(position);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents an immutable filter on pull records: an inclusive range of
+ * allowed values for each PullField. Fields without a range accept every
+ * value.
+ *
+ * A filter can tell whether it is at least as strict as another one, which
+ * lets a PullQuery refine its previous matches instead of rescanning every
+ * record when the user narrows a filter while typing.
+ */
+public class PullFilter {
+    /** the filter that accepts every record */
+    public static final PullFilter ALL = new PullFilter(new int[PullField.values().length],
+            filled(Integer.MAX_VALUE));
+
+    private final int[] min;
+    private final int[] max;
+
+    // EFFECTS: creates a filter with the given per-field bounds (not copied)
+    private PullFilter(int[] min, int[] max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns a filter like this one but only accepting records whose
+     * field lies in [from, to]; from <= 0 and to == Integer.MAX_VALUE leave
+     * that side unbounded.
+     */
+    public PullFilter withRange(PullField field, int from, int to) {
+        int[] newMin = min.clone();
+        int[] newMax = max.clone();
+        newMin[field.ordinal()] = Math.max(from, 0);
+        newMax[field.ordinal()] = to;
+        return new PullFilter(newMin, newMax);
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects: returns a filter like this one but only accepting records whose
+     * desired flag equals desired, or any flag if desired is null.
+     */
+    public PullFilter withDesired5Star(Boolean desired) {
+        if (desired == null) {
+            return withRange(PullField.DESIRED_5_STAR, 0, Integer.MAX_VALUE);
+        }
+        int flag = desired ? 1 : 0;
+        return withRange(PullField.DESIRED_5_STAR, flag, flag);
+    }
+
+    /**
+     * Effects: returns true if a record with the given values passes this filter.
+     */
+    public boolean accepts(boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        return inRange(PullField.PULL_INDEX, pullIndex)
+                && inRange(PullField.DESIRED_5_STAR, desired5Star ? 1 : 0)
+                && inRange(PullField.NUMBER_OF_4_STARS, numberOf4Stars)
+                && inRange(PullField.DRAW_COUNT, drawCount);
+    }
+
+    /**
+     * Effects: returns true if every record this filter accepts is also
+     * accepted by other.
+     */
+    public boolean narrows(PullFilter other) {
+        for (int i = 0; i < min.length; i++) {
+            if (min[i] < other.min[i] || max[i] > other.max[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns true if the record at row of history passes this filter
+    boolean accepts(GachaHistory history, int row) {
+        for (PullField field : PullField.values()) {
+            if (!inRange(field, field.valueAt(history, row))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // EFFECTS: returns true if value lies within field's range
+    private boolean inRange(PullField field, int value) {
+        return value >= min[field.ordinal()] && value <= max[field.ordinal()];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PullFilter)) {
+            return false;
+        }
+        PullFilter filter = (PullFilter) other;
+        return Arrays.equals(min, filter.min) && Arrays.equals(max, filter.max);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(min) + Arrays.hashCode(max);
+    }
+
+    // EFFECTS: returns an array with one entry per field, all equal to value
+    private static int[] filled(int value) {
+        int[] values = new int[PullField.values().length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
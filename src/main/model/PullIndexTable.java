@@ -0,0 +1,285 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Hash index from pull index to row for the records of a single GachaHistory.
+ *
+ * Entries live in two parallel int arrays (keys and rows) addressed by open
+ * addressing with linear probing, so no Integer boxing or entry objects are
+ * needed. The same key may be entered for several rows, since nothing stops a
+ * history from holding duplicate pull indexes. A removed entry is marked as a
+ * tombstone so later probes still run past it; tombstones are reused by
+ * inserts and cleared out by rebuilding the table once they take up too much
+ * of it.
+ *
+ * Entries hold record ids rather than rows, so removing a record does not
+ * have to renumber the entries of the rows after it. While nothing has been
+ * removed a record's id is its row. The first removal starts a Fenwick tree
+ * (binary indexed tree) over the ids that counts the ids still in use, so
+ * translating between ids and rows costs O(log n) and a removal only clears
+ * its id. New records take the next unused id. Once the removed ids
+ * outnumber the stored ones, or the tree runs out of ids, every entry is
+ * renumbered to its row in one O(n) pass and the tree is dropped again.
+ */
+class PullIndexTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+    private static final int TOMBSTONE = -2;
+
+    private int[] keys;
+    private int[] rows; // record ids; the same as rows while storedIds is null
+    private int mask;
+    private int live;
+    private int tombstones;
+    private int[] storedIds; // Fenwick tree counting the ids in use, or null
+    private long[] removedIds; // bitset of the removed ids below nextId
+    private int nextId;
+    private int removedCount;
+
+    /**
+     * Modifies: this
+     * Effects:  creates an empty index.
+     */
+    PullIndexTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Effects: returns an index with the same entries as this one.
+     */
+    PullIndexTable copy() {
+        PullIndexTable copy = new PullIndexTable();
+        copy.keys = keys.clone();
+        copy.rows = rows.clone();
+        copy.mask = mask;
+        copy.live = live;
+        copy.tombstones = tombstones;
+        if (storedIds != null) {
+            copy.storedIds = storedIds.clone();
+            copy.removedIds = removedIds.clone();
+            copy.nextId = nextId;
+            copy.removedCount = removedCount;
+        }
+        return copy;
+    }
+
+    /**
+     * Modifies: this
+     * Effects:  makes room for entries live entries in total without the
+     *           table needing to grow while they are inserted.
+     */
+    void ensureCapacity(int entries) {
+        int capacity = keys.length;
+        while (entries * 2L > capacity) {
+            capacity *= 2;
+        }
+        if (capacity != keys.length) {
+            rebuild(capacity);
+        }
+    }
+
+    /**
+     * Requires: row is the number of entries, i.e. the record was appended
+     * Modifies: this
+     * Effects:  enters key for row; returns true if key was already entered
+     *           for another row.
+     */
+    boolean insert(int key, int row) {
+        int id = row;
+        if (storedIds != null) {
+            if (nextId == storedIds.length - 1) {
+                renumber();
+            } else {
+                id = nextId++;
+                addStored(id, 1);
+            }
+        }
+        if ((live + tombstones + 1) * 4L > keys.length * 3L) {
+            // Grow only if live entries fill half the table; otherwise
+            // rebuilding at the same size is enough to drop the tombstones.
+            rebuild((live + 1) * 2 > keys.length ? keys.length * 2 : keys.length);
+        }
+        boolean duplicate = false;
+        int free = -1;
+        int slot = slotFor(key);
+        while (rows[slot] != EMPTY) {
+            if (rows[slot] == TOMBSTONE) {
+                if (free < 0) {
+                    free = slot;
+                }
+            } else if (keys[slot] == key) {
+                duplicate = true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (free >= 0) {
+            slot = free;
+            tombstones--;
+        }
+        keys[slot] = key;
+        rows[slot] = id;
+        live++;
+        return duplicate;
+    }
+
+    /**
+     * Effects: returns the lowest row entered for key, or -1 if there is none.
+     */
+    int find(int key) {
+        int found = -1;
+        for (int slot = slotFor(key); rows[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = rows[slot];
+            if (id >= 0 && keys[slot] == key && (found < 0 || id < found)) {
+                found = id;
+            }
+        }
+        // ids are handed out in row order, so the lowest id has the lowest row
+        return found < 0 || storedIds == null ? found : storedBefore(found);
+    }
+
+    /**
+     * Effects: returns the memory used by the table's arrays in bytes,
+     *          assuming 16-byte array headers.
+     */
+    long estimateBytes() {
+        long bytes = 2 * 16L + 4L * (keys.length + rows.length);
+        if (storedIds != null) {
+            bytes += 2 * 16L + 4L * storedIds.length + 8L * removedIds.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Requires: key is entered for row
+     * Modifies: this
+     * Effects:  removes the entry for row; the entries of every later row
+     *           then stand for the row before, in O(log n) amortized time.
+     */
+    void rowRemoved(int key, int row) {
+        if (storedIds == null) {
+            startRemovals();
+        }
+        int id = idOfRow(row);
+        rows[slotOf(key, id)] = TOMBSTONE;
+        live--;
+        tombstones++;
+        addStored(id, -1);
+        removedIds[id >>> 6] |= 1L << id;
+        removedCount++;
+        if (removedCount > live) {
+            renumber();
+        }
+    }
+
+    // EFFECTS: returns the slot holding the entry of key for id
+    private int slotOf(int key, int id) {
+        int slot = slotFor(key);
+        while (rows[slot] != id || keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts counting ids in use, with every current row's id in use
+    //          and room for as many new ids again
+    private void startRemovals() {
+        nextId = live;
+        int size = Math.max(INITIAL_CAPACITY, 2 * live);
+        storedIds = new int[size + 1];
+        for (int node = 1; node <= size; node++) {
+            int low = node - (node & -node);
+            storedIds[node] = Math.max(0, Math.min(node, live) - low);
+        }
+        removedIds = new long[(size + 63) >>> 6];
+        removedCount = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: changes the count of id by delta in the Fenwick tree
+    private void addStored(int id, int delta) {
+        for (int node = id + 1; node < storedIds.length; node += node & -node) {
+            storedIds[node] += delta;
+        }
+    }
+
+    // EFFECTS: returns the number of ids in use below id, i.e. the row of id
+    private int storedBefore(int id) {
+        int count = 0;
+        for (int node = id; node > 0; node -= node & -node) {
+            count += storedIds[node];
+        }
+        return count;
+    }
+
+    // REQUIRES: 0 <= row < number of ids in use
+    // EFFECTS: returns the id of row, the lowest id with row ids in use below it
+    private int idOfRow(int row) {
+        int node = 0;
+        int remaining = row + 1;
+        for (int step = Integer.highestOneBit(storedIds.length - 1); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next < storedIds.length && storedIds[next] < remaining) {
+                node = next;
+                remaining -= storedIds[next];
+            }
+        }
+        return node;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces every entry's id by its row, making ids and rows the
+    //          same again, and stops counting ids in use
+    private void renumber() {
+        int[] removedBelow = new int[removedIds.length + 1];
+        for (int word = 0; word < removedIds.length; word++) {
+            removedBelow[word + 1] = removedBelow[word] + Long.bitCount(removedIds[word]);
+        }
+        for (int slot = 0; slot < rows.length; slot++) {
+            int id = rows[slot];
+            if (id >= 0) {
+                int word = id >>> 6;
+                rows[slot] = id - removedBelow[word] - Long.bitCount(removedIds[word] & ((1L << id) - 1));
+            }
+        }
+        storedIds = null;
+        removedIds = null;
+        removedCount = 0;
+    }
+
+    // EFFECTS: returns the slot a probe for key starts at
+    private int slotFor(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: re-enters every live entry into a table of the given capacity,
+    //          dropping all tombstones
+    private void rebuild(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldRows = rows;
+        allocate(capacity);
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] >= 0) {
+                int slot = slotFor(oldKeys[i]);
+                while (rows[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                rows[slot] = oldRows[i];
+            }
+        }
+        tombstones = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the table with an empty one of the given power-of-two capacity
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        rows = new int[capacity];
+        Arrays.fill(rows, EMPTY);
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for pull records added to or removed from a
+ * GachaHistory, so latency spikes in a recording can be tied to them.
+ *
+ * When no recording has the event enabled, begin and commit do nothing and
+ * the JIT removes the allocation, so an uninstrumented run pays nothing.
+ */
+@Name("gachatracker.PullMutation")
+@Label("Pull Mutation")
+@Category({"Gacha Tracker", "Model"})
+@Description("Pull records added to or removed from a history")
+final class PullMutationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    @Description("add, addAll or remove")
+    String operation;
+
+    @Label("Records")
+    @Description("Number of records added or removed")
+    int records;
+
+    @Label("Pull Index")
+    @Description("Pull index of the record, or 0 for a batch")
+    int pullIndex;
+
+    @Label("Row")
+    @Description("Position of the (first) record in the history")
+    int row;
+
+    @Label("History Size")
+    @Description("Number of records in the history afterwards")
+    int historySize;
+
+    /**
+     * Modifies: this
+     * Effects: ends the event and, if a recording wants it (it is enabled
+     * and took at least the threshold), fills in its fields and writes it.
+     */
+    void commit(String operation, int records, int pullIndex, int row, int historySize) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.records = records;
+            this.pullIndex = pullIndex;
+            this.row = row;
+            this.historySize = historySize;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Represents a filtered, sorted view of a GachaHistory's records, given as
+ * the records' positions in getAllPulls().
+ *
+ * The records that pass the filter are kept as a bitset over positions, and
+ * the sort order as an int[] permutation of all positions, built by sorting
+ * primitive (value, position) keys, so no records or boxed values are
+ * created. Narrowing the filter only re-tests the records that matched
+ * before, and changing the filter never re-sorts. Sorting is stable: records
+ * with equal values keep their order in the history.
+ *
+ * The query does not watch the history. After a single record is added,
+ * removed or edited, rowAdded, rowRemoved or rowChanged update the view in
+ * place: the record is tested against the filter and binary-searched into
+ * the order, and only the positions after it are shifted. After larger
+ * changes call refresh().
+ */
+public class PullQuery {
+    private final GachaHistory history;
+    private PullFilter filter = PullFilter.ALL;
+    private PullField sortField;
+    private boolean ascending = true;
+    private final BitSet matches = new BitSet();
+    private int[] sorted;
+    private int[] visible = new int[0];
+    private int visibleCount;
+    private int rowCount;
+
+    /**
+     * Requires: history is not null
+     * Modifies: this
+     * Effects: creates an unsorted, unfiltered view of history's records.
+     */
+    public PullQuery(GachaHistory history) {
+        this.history = history;
+        refresh();
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: shows only the records accepted by newFilter; if newFilter
+     * narrows the current filter, only the current matches are re-tested.
+     */
+    public void setFilter(PullFilter newFilter) {
+        if (newFilter.narrows(filter)) {
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                if (!newFilter.accepts(history, row)) {
+                    matches.clear(row);
+                }
+            }
+            filter = newFilter;
+        } else {
+            filter = newFilter;
+            computeMatches();
+        }
+        collectVisible();
+    }
+
+    /**
+     * Effects: returns the current filter.
+     */
+    public PullFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: orders the records by field, ascending or descending; a null
+     * field restores history order.
+     */
+    public void sortBy(PullField field, boolean ascending) {
+        this.sortField = field;
+        this.ascending = ascending;
+        computeOrder();
+        collectVisible();
+    }
+
+    /**
+     * Effects: returns the field records are sorted by, or null if they are
+     * in history order.
+     */
+    public PullField getSortField() {
+        return sortField;
+    }
+
+    /**
+     * Effects: returns true if records are sorted in ascending order.
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects: recomputes the matches and order from the history's current
+     * records, keeping the filter and sort field.
+     */
+    public void refresh() {
+        rowCount = history.size();
+        computeMatches();
+        computeOrder();
+        collectVisible();
+    }
+
+    /**
+     * Requires: a record was added at position of the history, and the view
+     * was up to date before that; records added after it are reported later
+     * Modifies: this
+     * Effects: adds the record to the view, moving later positions up by one;
+     * returns its index in the view, or -1 if the filter rejects it.
+     */
+    public int rowAdded(int position) {
+        int oldSize = rowCount++;
+        if (position < oldSize) {
+            BitSet tail = matches.get(position, oldSize);
+            matches.clear(position, oldSize);
+            for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+                matches.set(position + 1 + i);
+            }
+        }
+        if (sorted != null) {
+            sorted = ensureCapacity(sorted, oldSize + 1);
+            shiftPositions(sorted, oldSize, position, 1);
+            insertInOrder(sorted, oldSize, position);
+        }
+        visible = ensureCapacity(visible, oldSize + 1);
+        shiftPositions(visible, visibleCount, position, 1);
+        if (!filter.accepts(history, position)) {
+            return -1;
+        }
+        matches.set(position);
+        return insertInOrder(visible, visibleCount++, position);
+    }
+
+    /**
+     * Requires: the record at position of the history was just removed, and
+     * the view was up to date before that
+     * Modifies: this
+     * Effects: removes the record from the view, moving later positions down
+     * by one; returns the index it had in the view, or -1 if it was not shown.
+     */
+    public int rowRemoved(int position) {
+        int oldSize = rowCount--;
+        boolean shown = matches.get(position);
+        BitSet tail = matches.get(position + 1, oldSize);
+        matches.clear(position, oldSize);
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            matches.set(position + i);
+        }
+        if (sorted != null) {
+            removePosition(sorted, oldSize, position);
+        }
+        int index = shown ? removePosition(visible, visibleCount, position) : -1;
+        if (shown) {
+            visibleCount--;
+        } else {
+            shiftPositions(visible, visibleCount, position, -1);
+        }
+        return index;
+    }
+
+    /**
+     * Requires: the record at position of the history was just edited, and
+     * the view was up to date before that
+     * Modifies: this
+     * Effects: re-tests the record against the filter and moves it to its
+     * place in the order.
+     */
+    public void rowChanged(int position) {
+        int size = rowCount;
+        if (sorted != null) {
+            removeEntry(sorted, size, indexOf(sorted, size, position));
+            insertInOrder(sorted, size - 1, position);
+        }
+        if (matches.get(position)) {
+            removeEntry(visible, visibleCount, indexOf(visible, visibleCount, position));
+            visibleCount--;
+            matches.clear(position);
+        }
+        if (filter.accepts(history, position)) {
+            matches.set(position);
+            insertInOrder(visible, visibleCount++, position);
+        }
+    }
+
+    /**
+     * Effects: returns the number of records that pass the filter.
+     */
+    public int size() {
+        return visibleCount;
+    }
+
+    /**
+     * Requires: 0 <= index < size()
+     * Modifies: nothing
+     * Effects: returns the position in the history's getAllPulls() of the
+     * index-th record of this view.
+     */
+    public int positionAt(int index) {
+        if (index < 0 || index >= visibleCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + visibleCount);
+        }
+        return visible[index];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: tests every record against the filter
+    private void computeMatches() {
+        matches.clear();
+        for (int row = 0; row < rowCount; row++) {
+            if (filter.accepts(history, row)) {
+                matches.set(row);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sorts all positions by the sort field, or forgets the order if
+    //          there is none; each key packs the (possibly inverted) value into
+    //          the high half and the position into the low half, so sorting the
+    //          longs sorts by value and then by position
+    private void computeOrder() {
+        if (sortField == null) {
+            sorted = null;
+            return;
+        }
+        long[] keys = new long[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            keys[row] = keyOf(row);
+        }
+        Arrays.parallelSort(keys);
+        sorted = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            sorted[i] = (int) keys[i];
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lists the matching positions in sort order
+    private void collectVisible() {
+        if (visible.length < rowCount) {
+            visible = new int[rowCount];
+        }
+        int count = 0;
+        if (sorted == null) {
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                visible[count++] = row;
+            }
+        } else {
+            for (int i = 0; i < rowCount; i++) {
+                int row = sorted[i];
+                if (matches.get(row)) {
+                    visible[count++] = row;
+                }
+            }
+        }
+        visibleCount = count;
+    }
+
+    // EFFECTS: returns the sort key of the record at row: its (possibly
+    //          inverted) sort field value in the high half and row in the low
+    //          half, or just row if there is no sort field
+    private long keyOf(int row) {
+        if (sortField == null) {
+            return row;
+        }
+        int value = sortField.valueAt(history, row);
+        if (!ascending) {
+            value = Integer.MAX_VALUE - value;
+        }
+        return (long) value << 32 | row;
+    }
+
+    // REQUIRES: positions has room for count + 1 entries, and its first count
+    //           entries are in sort order
+    // MODIFIES: positions
+    // EFFECTS: inserts row at its place in the sort order, found by binary
+    //          search, and returns the index it was inserted at
+    private int insertInOrder(int[] positions, int count, int row) {
+        long key = keyOf(row);
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyOf(positions[mid]) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        System.arraycopy(positions, low, positions, low + 1, count - low);
+        positions[low] = row;
+        return low;
+    }
+
+    // MODIFIES: positions
+    // EFFECTS: adds delta to each of the first count positions that is at
+    //          least from
+    private static void shiftPositions(int[] positions, int count, int from, int delta) {
+        for (int i = 0; i < count; i++) {
+            if (positions[i] >= from) {
+                positions[i] += delta;
+            }
+        }
+    }
+
+    // MODIFIES: positions
+    // EFFECTS: removes position from the first count positions, moves the
+    //          later entries forward and lowers every position above it by
+    //          one; returns the index it was at, or -1 if it was not there
+    private static int removePosition(int[] positions, int count, int position) {
+        int index = -1;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = positions[i];
+            if (row == position) {
+                index = i;
+            } else {
+                positions[kept++] = row > position ? row - 1 : row;
+            }
+        }
+        return index;
+    }
+
+    // EFFECTS: returns the index of position among the first count
+    //          positions, or -1 if it is not there
+    private static int indexOf(int[] positions, int count, int position) {
+        for (int i = 0; i < count; i++) {
+            if (positions[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // REQUIRES: 0 <= index < count
+    // MODIFIES: positions
+    // EFFECTS: removes the entry at index, moving the later entries forward
+    private static void removeEntry(int[] positions, int count, int index) {
+        System.arraycopy(positions, index + 1, positions, index, count - index - 1);
+    }
+
+    // EFFECTS: returns positions if it has room for size entries, and
+    //          otherwise a copy with room for at least twice as many
+    private static int[] ensureCapacity(int[] positions, int size) {
+        if (positions.length >= size) {
+            return positions;
+        }
+        return Arrays.copyOf(positions, Math.max(size, 2 * positions.length));
+    }
+}
@@ -0,0 +1,184 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Range-sum index over the records of a single GachaHistory, ordered by pull
+ * index, for statistics over a span of pull indexes (e.g. one banner).
+ *
+ * The distinct pull indexes are kept sorted in keys; four Fenwick trees
+ * (binary indexed trees) over those keys' ranks hold the number of records,
+ * desired 5-stars, draws and 4-stars for each pull index. A range sum then
+ * costs two prefix sums, O(log n). Adding, removing or editing a record is a
+ * point update, O(log n); a record with a new pull index larger than all
+ * others is appended to the trees in O(log n). Only a new pull index that
+ * falls between existing ones cannot be placed without shifting ranks, so it
+ * marks the index stale and the next query rebuilds it in O(n log n).
+ */
+class PullRangeIndex {
+    private static final int RECORDS = 0;
+    private static final int DESIRED = 1;
+    private static final int DRAWS = 2;
+    private static final int FOURS = 3;
+    private static final int TREES = 4;
+
+    private int[] keys;
+    private int size;
+    private long[][] trees;
+    private boolean stale;
+
+    /**
+     * Modifies: this
+     * Effects:  creates an index of the current records of columns.
+     */
+    PullRangeIndex(PullColumns columns) {
+        rebuild(columns);
+    }
+
+    /**
+     * Effects: returns true if the index must be rebuilt before it is queried.
+     */
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Effects: returns the memory used by the index's arrays in bytes,
+     *          assuming 16-byte array headers and 4-byte references.
+     */
+    long estimateBytes() {
+        return 16L + 4L * keys.length + 16L + 4L * TREES + TREES * (16L + 8L * trees[0].length);
+    }
+
+    /**
+     * Modifies: this
+     * Effects:  recomputes the index from the current records of columns.
+     */
+    void rebuild(PullColumns columns) {
+        int count = columns.size();
+        int[] sortedKeys = new int[count];
+        for (int row = 0; row < count; row++) {
+            sortedKeys[row] = columns.getPullIndex(row);
+        }
+        Arrays.sort(sortedKeys);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || sortedKeys[i] != sortedKeys[distinct - 1]) {
+                sortedKeys[distinct++] = sortedKeys[i];
+            }
+        }
+        keys = Arrays.copyOf(sortedKeys, Math.max(distinct, 16));
+        size = distinct;
+        trees = new long[TREES][keys.length + 1];
+        for (int row = 0; row < count; row++) {
+            int node = Arrays.binarySearch(keys, 0, size, columns.getPullIndex(row)) + 1;
+            trees[RECORDS][node]++;
+            trees[DESIRED][node] += columns.isDesired5Star(row) ? 1 : 0;
+            trees[DRAWS][node] += columns.getDrawCount(row);
+            trees[FOURS][node] += columns.getNumberOf4Stars(row);
+        }
+        // Turn the per-key values into Fenwick trees in one pass by pushing
+        // each node's sum up to its parent.
+        for (long[] tree : trees) {
+            for (int node = 1; node <= size; node++) {
+                int parent = node + (node & -node);
+                if (parent <= size) {
+                    tree[parent] += tree[node];
+                }
+            }
+        }
+        stale = false;
+    }
+
+    /**
+     * Modifies: this
+     * Effects:  adds a record with the given values (sign 1) or takes one out
+     *           (sign -1); marks the index stale if the pull index is new and
+     *           not larger than every known one.
+     */
+    void update(int pullIndex, boolean desired5Star, int numberOf4Stars, int drawCount, int sign) {
+        if (stale) {
+            return;
+        }
+        int rank = Arrays.binarySearch(keys, 0, size, pullIndex);
+        if (rank < 0) {
+            if (-rank - 1 < size) {
+                stale = true;
+                return;
+            }
+            appendKey(pullIndex);
+            rank = size - 1;
+        }
+        add(rank + 1, sign, desired5Star ? sign : 0, (long) sign * drawCount, (long) sign * numberOf4Stars);
+    }
+
+    /**
+     * Requires: the index is not stale
+     * Effects:  returns {records, desired 5-stars, draws, 4-stars} summed over
+     *           the records whose pull index lies in [from, to].
+     */
+    long[] sum(int from, int to) {
+        long[] totals = new long[TREES];
+        if (from > to) {
+            return totals;
+        }
+        int upper = countAtMost(to);
+        int lower = countBelow(from);
+        for (int t = 0; t < TREES; t++) {
+            totals[t] = prefix(trees[t], upper) - prefix(trees[t], lower);
+        }
+        return totals;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends key, larger than every known key, with empty sums
+    private void appendKey(int key) {
+        if (size == keys.length) {
+            int capacity = keys.length + (keys.length >> 1);
+            keys = Arrays.copyOf(keys, capacity);
+            for (int t = 0; t < TREES; t++) {
+                trees[t] = Arrays.copyOf(trees[t], capacity + 1);
+            }
+        }
+        keys[size++] = key;
+        int node = size;
+        // A new last node covers (node - lowbit(node), node]; all but itself
+        // already hold values, so start it at their sum.
+        int covered = node - (node & -node);
+        for (long[] tree : trees) {
+            tree[node] = prefix(tree, node - 1) - prefix(tree, covered);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the given deltas to node and every node covering it
+    private void add(int node, long records, long desired, long draws, long fours) {
+        for (int i = node; i <= size; i += i & -i) {
+            trees[RECORDS][i] += records;
+            trees[DESIRED][i] += desired;
+            trees[DRAWS][i] += draws;
+            trees[FOURS][i] += fours;
+        }
+    }
+
+    // EFFECTS: returns the sum of tree's values for ranks 1..node
+    private static long prefix(long[] tree, int node) {
+        long sum = 0;
+        for (int i = node; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // EFFECTS: returns the number of known keys <= key
+    private int countAtMost(int key) {
+        int rank = Arrays.binarySearch(keys, 0, size, key);
+        return rank >= 0 ? rank + 1 : -rank - 1;
+    }
+
+    // EFFECTS: returns the number of known keys < key
+    private int countBelow(int key) {
+        int rank = Arrays.binarySearch(keys, 0, size, key);
+        return rank >= 0 ? rank : -rank - 1;
+    }
+}
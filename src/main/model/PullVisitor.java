@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * Represents an action applied to the values of pull records one at a time.
+ *
+ * Effects: lets callers walk a GachaHistory's records without a GachaPull
+ *          object being created for each one.
+ */
+@FunctionalInterface
+public interface PullVisitor {
+    /**
+     * Receives the values of one pull record.
+     *
+     * Effects: performs this action on the given record values.
+     */
+    void visit(boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount);
+}
@@ -0,0 +1,199 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents rolling statistics over the most recent pull records of a
+ * GachaHistory, for several window sizes at once (e.g. the last 10, 50 and
+ * 100 pulls).
+ *
+ * The values of the last N records, N being the largest window size, are
+ * kept in a circular buffer, and each window keeps running sums of the
+ * records it covers. Appending a record adds it to every window and drops
+ * the record that falls out of each window, in constant time per window,
+ * so the history is never rescanned. Edits to buffered records adjust the
+ * sums; removing a record rebuilds the buffer from the last N records.
+ */
+public class RollingStats implements GachaHistoryListener {
+    private final GachaHistory history;
+    private final int[] sizes;
+    private final int capacity;
+    private final boolean[] desired;
+    private final int[] fours;
+    private final int[] draws;
+    private int stored;
+    private int head;
+    private final int[] windowDesired;
+    private final long[] windowDraws;
+    private final long[] windowFours;
+
+    /**
+     * Requires: history is not null, at least one window size, every size >= 1
+     * Modifies: this, history
+     * Effects: creates rolling statistics over history's most recent records
+     * for each given window size, and keeps them up to date by listening to
+     * history; throws IllegalArgumentException if no or a non-positive size
+     * is given.
+     */
+    public RollingStats(GachaHistory history, int... windowSizes) {
+        if (windowSizes.length == 0) {
+            throw new IllegalArgumentException("At least one window size is required");
+        }
+        int[] sorted = windowSizes.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] < 1) {
+            throw new IllegalArgumentException("Window sizes must be at least 1");
+        }
+        this.history = history;
+        this.sizes = Arrays.stream(sorted).distinct().toArray();
+        this.capacity = sizes[sizes.length - 1];
+        this.desired = new boolean[capacity];
+        this.fours = new int[capacity];
+        this.draws = new int[capacity];
+        this.windowDesired = new int[sizes.length];
+        this.windowDraws = new long[sizes.length];
+        this.windowFours = new long[sizes.length];
+        reload();
+        history.addListener(this);
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this, history
+     * Effects: stops following the history; the statistics stop changing.
+     */
+    public void detach() {
+        history.removeListener(this);
+    }
+
+    /**
+     * Effects: returns the window sizes, smallest first.
+     */
+    public int[] getWindowSizes() {
+        return sizes.clone();
+    }
+
+    /**
+     * Requires: windowSize is one of getWindowSizes()
+     * Effects: returns the number of records currently in the window, which
+     * is less than windowSize while the history is shorter than that.
+     */
+    public int getCount(int windowSize) {
+        return Math.min(stored, sizes[window(windowSize)]);
+    }
+
+    /**
+     * Requires: windowSize is one of getWindowSizes()
+     * Effects: returns desired 5-stars divided by draws over the last
+     * windowSize records, or 0.0 if there are none.
+     */
+    public double getFiveStarRate(int windowSize) {
+        int w = window(windowSize);
+        if (windowDraws[w] == 0) {
+            return 0.0;
+        }
+        return (double) windowDesired[w] / windowDraws[w];
+    }
+
+    /**
+     * Requires: windowSize is one of getWindowSizes()
+     * Effects: returns the average number of 4-star items over the last
+     * windowSize records, or 0.0 if there are none.
+     */
+    public double getFourStarAvg(int windowSize) {
+        int count = getCount(windowSize);
+        if (count == 0) {
+            return 0.0;
+        }
+        return (double) windowFours[window(windowSize)] / count;
+    }
+
+    @Override
+    public void pullAdded(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        append(desired5Star, numberOf4Stars, drawCount);
+    }
+
+    @Override
+    public void pullsAdded(GachaHistory source, int firstPosition, int count) {
+        if (count >= capacity) {
+            // The batch alone fills every window.
+            reload();
+            return;
+        }
+        for (int row = firstPosition; row < firstPosition + count; row++) {
+            append(history.isDesired5Star(row), history.getNumberOf4Stars(row), history.getDrawCount(row));
+        }
+    }
+
+    @Override
+    public void pullRemoved(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        if (position >= history.size() + 1 - stored) {
+            reload();
+        }
+    }
+
+    @Override
+    public void pullChanged(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        int age = history.size() - position; // 1 for the newest record
+        if (age > stored) {
+            return;
+        }
+        int slot = Math.floorMod(head - age, capacity);
+        for (int w = 0; w < sizes.length; w++) {
+            if (age <= sizes[w]) {
+                windowDesired[w] += (desired5Star ? 1 : 0) - (desired[slot] ? 1 : 0);
+                windowFours[w] += numberOf4Stars - fours[slot];
+                windowDraws[w] += drawCount - draws[slot];
+            }
+        }
+        desired[slot] = desired5Star;
+        fours[slot] = numberOf4Stars;
+        draws[slot] = drawCount;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a record with the given values to every window, dropping
+    //          the record each full window no longer covers
+    private void append(boolean desired5Star, int numberOf4Stars, int drawCount) {
+        for (int w = 0; w < sizes.length; w++) {
+            if (stored >= sizes[w]) {
+                int oldest = Math.floorMod(head - sizes[w], capacity);
+                windowDesired[w] -= desired[oldest] ? 1 : 0;
+                windowFours[w] -= fours[oldest];
+                windowDraws[w] -= draws[oldest];
+            }
+            windowDesired[w] += desired5Star ? 1 : 0;
+            windowFours[w] += numberOf4Stars;
+            windowDraws[w] += drawCount;
+        }
+        desired[head] = desired5Star;
+        fours[head] = numberOf4Stars;
+        draws[head] = drawCount;
+        head = (head + 1) % capacity;
+        stored = Math.min(stored + 1, capacity);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: empties every window and refills them from the last records of
+    //          the history
+    private void reload() {
+        stored = 0;
+        head = 0;
+        Arrays.fill(windowDesired, 0);
+        Arrays.fill(windowDraws, 0);
+        Arrays.fill(windowFours, 0);
+        int size = history.size();
+        for (int row = Math.max(0, size - capacity); row < size; row++) {
+            append(history.isDesired5Star(row), history.getNumberOf4Stars(row), history.getDrawCount(row));
+        }
+    }
+
+    // EFFECTS: returns the index of the window with the given size
+    private int window(int windowSize) {
+        int w = Arrays.binarySearch(sizes, windowSize);
+        if (w < 0) {
+            throw new IllegalArgumentException("No window of size " + windowSize);
+        }
+        return w;
+    }
+}
@@ -0,0 +1,338 @@
+package model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a Monte Carlo test of whether a history's desired 5-star rate is
+ * significantly above an official rate, rather than above it by luck.
+ *
+ * Each simulated history has the same draw counts as the real one, with
+ * every draw giving the desired 5-star with the official probability; a
+ * record of d draws is therefore desired with probability 1 - (1 - p)^d.
+ * Records with the same draw count are sampled together as one binomial
+ * variate, by binary search in a precomputed CDF, so a simulation costs
+ * O(distinct draw counts) rather than O(records).
+ *
+ * Simulations are split into fork-join tasks, each with its own
+ * SplittableRandom split from the seed, and run on the common pool. The
+ * result is deterministic for a given seed and number of simulations. A run
+ * can be cancelled from another thread and reports its progress while it
+ * runs.
+ */
+public class SignificanceTest {
+    private static final int BATCH = 1024;
+    private static final double TAIL = 1e-15;
+
+    /**
+     * The outcome of a completed run.
+     */
+    public static final class Result {
+        private final double observedRate;
+        private final double pValue;
+        private final double bandLow;
+        private final double bandHigh;
+        private final double confidenceLevel;
+        private final int simulations;
+
+        Result(double observedRate, double pValue, double bandLow, double bandHigh,
+               double confidenceLevel, int simulations) {
+            this.observedRate = observedRate;
+            this.pValue = pValue;
+            this.bandLow = bandLow;
+            this.bandHigh = bandHigh;
+            this.confidenceLevel = confidenceLevel;
+            this.simulations = simulations;
+        }
+
+        /**
+         * Effects: returns the history's desired 5-star rate.
+         */
+        public double getObservedRate() {
+            return observedRate;
+        }
+
+        /**
+         * Effects: returns the estimated probability of a rate at least as high
+         * as the observed one if the official rate were the true rate.
+         */
+        public double getPValue() {
+            return pValue;
+        }
+
+        /**
+         * Effects: returns the lower end of the range of rates that simulated
+         * histories fell in with probability getConfidenceLevel().
+         */
+        public double getBandLow() {
+            return bandLow;
+        }
+
+        /**
+         * Effects: returns the upper end of that range.
+         */
+        public double getBandHigh() {
+            return bandHigh;
+        }
+
+        /**
+         * Effects: returns the confidence level of the band, e.g. 0.95.
+         */
+        public double getConfidenceLevel() {
+            return confidenceLevel;
+        }
+
+        /**
+         * Effects: returns the number of simulated histories.
+         */
+        public int getSimulations() {
+            return simulations;
+        }
+    }
+
+    private final long totalDraws;
+    private final int observedDesired;
+    private final int[] groupLow;
+    private final double[][] groupCdf;
+    private final int minDesired;
+    private final int maxDesired;
+    private final AtomicLong completed = new AtomicLong();
+    private volatile long target;
+    private volatile boolean cancelled;
+
+    /**
+     * Requires: 0 <= officialRate <= 1; called on the thread that owns history
+     * Modifies: this
+     * Effects: prepares a test of history's current records against
+     * officialRate; later changes to history are not seen. Throws
+     * IllegalArgumentException if officialRate is out of range.
+     */
+    public SignificanceTest(GachaHistory history, double officialRate) {
+        if (!(officialRate >= 0.0 && officialRate <= 1.0)) {
+            throw new IllegalArgumentException("Official rate must be between 0 and 1");
+        }
+        int size = history.size();
+        int[] drawCounts = new int[size];
+        int[] desired = new int[1];
+        int[] row = new int[1];
+        history.forEachPull((desired5Star, numberOf4Stars, pullIndex, drawCount) -> {
+            drawCounts[row[0]++] = drawCount;
+            desired[0] += desired5Star ? 1 : 0;
+        });
+        Arrays.sort(drawCounts);
+        this.totalDraws = history.totalDraws();
+        this.observedDesired = desired[0];
+
+        // One group per distinct draw count; each holds the CDF of the number of
+        // desired records among its records, trimmed to where the tails matter.
+        int groups = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || drawCounts[i] != drawCounts[i - 1]) {
+                groups++;
+            }
+        }
+        groupLow = new int[groups];
+        groupCdf = new double[groups][];
+        int min = 0;
+        int max = 0;
+        int g = 0;
+        for (int start = 0; start < size; g++) {
+            int end = start;
+            while (end < size && drawCounts[end] == drawCounts[start]) {
+                end++;
+            }
+            double q = -Math.expm1(drawCounts[start] * Math.log1p(-officialRate));
+            buildGroup(g, end - start, q);
+            min += groupLow[g];
+            max += groupLow[g] + groupCdf[g].length - 1;
+            start = end;
+        }
+        this.minDesired = min;
+        this.maxDesired = max;
+    }
+
+    /**
+     * Requires: simulations >= 1, 0 < confidenceLevel < 1
+     * Modifies: this
+     * Effects: simulates the given number of histories in parallel and returns
+     * the p-value of the observed rate and the central confidenceLevel band of
+     * simulated rates; throws CancellationException if cancel() was called.
+     */
+    public Result run(int simulations, double confidenceLevel, long seed) {
+        if (simulations < 1 || !(confidenceLevel > 0.0 && confidenceLevel < 1.0)) {
+            throw new IllegalArgumentException("Need at least one simulation and a level between 0 and 1");
+        }
+        completed.set(0);
+        target = simulations;
+        int leaf = Math.max(BATCH, simulations / 256);
+        long[] histogram = ForkJoinPool.commonPool().invoke(
+                new SimulationTask(new SplittableRandom(seed), simulations, leaf));
+        if (cancelled) {
+            throw new CancellationException("Simulation cancelled");
+        }
+
+        long atLeastObserved = 0;
+        for (int x = Math.max(observedDesired, minDesired); x <= maxDesired; x++) {
+            atLeastObserved += histogram[x - minDesired];
+        }
+        double tail = (1.0 - confidenceLevel) / 2;
+        return new Result(rate(observedDesired), (atLeastObserved + 1.0) / (simulations + 1.0),
+                rate(quantile(histogram, tail, simulations)), rate(quantile(histogram, 1.0 - tail, simulations)),
+                confidenceLevel, simulations);
+    }
+
+    /**
+     * Modifies: this
+     * Effects: asks a running (or the next) run to stop as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Effects: returns true if cancel() has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Effects: returns the fraction of the current run's simulations done so
+     * far, from 0.0 to 1.0.
+     */
+    public double getProgress() {
+        long total = target;
+        return total == 0 ? 0.0 : Math.min(1.0, (double) completed.get() / total);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stores the CDF of Binomial(count, q), dropping tails below TAIL;
+    //          the pmf is built from log ratios so large groups do not underflow
+    private void buildGroup(int g, int count, double q) {
+        if (q <= 0.0 || q >= 1.0) {
+            groupLow[g] = q <= 0.0 ? 0 : count;
+            groupCdf[g] = new double[] {1.0};
+            return;
+        }
+        double[] logPmf = new double[count + 1];
+        double logOdds = Math.log(q) - Math.log1p(-q);
+        double peak = 0.0;
+        for (int k = 0; k < count; k++) {
+            logPmf[k + 1] = logPmf[k] + Math.log((double) (count - k) / (k + 1)) + logOdds;
+            peak = Math.max(peak, logPmf[k + 1]);
+        }
+        double[] pmf = new double[count + 1];
+        double total = 0.0;
+        for (int k = 0; k <= count; k++) {
+            pmf[k] = Math.exp(logPmf[k] - peak);
+            total += pmf[k];
+        }
+        int low = 0;
+        double dropped = 0.0;
+        while (low < count && dropped + pmf[low] / total < TAIL) {
+            dropped += pmf[low++] / total;
+        }
+        int high = count;
+        dropped = 0.0;
+        while (high > low && dropped + pmf[high] / total < TAIL) {
+            dropped += pmf[high--] / total;
+        }
+        double[] cdf = new double[high - low + 1];
+        double sum = 0.0;
+        for (int k = low; k <= high; k++) {
+            sum += pmf[k];
+            cdf[k - low] = sum;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= sum;
+        }
+        cdf[cdf.length - 1] = 1.0;
+        groupLow[g] = low;
+        groupCdf[g] = cdf;
+    }
+
+    // EFFECTS: returns the number of desired records in one simulated history
+    private int simulateOnce(SplittableRandom random) {
+        int desired = 0;
+        for (int g = 0; g < groupCdf.length; g++) {
+            double[] cdf = groupCdf[g];
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cdf.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            desired += groupLow[g] + low;
+        }
+        return desired;
+    }
+
+    // EFFECTS: returns the smallest desired count whose cumulative share of
+    //          the simulations reaches fraction
+    private int quantile(long[] histogram, double fraction, int simulations) {
+        long needed = (long) Math.ceil(fraction * simulations);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= needed) {
+                return minDesired + i;
+            }
+        }
+        return maxDesired;
+    }
+
+    // EFFECTS: returns desired divided by the history's total draws
+    private double rate(int desired) {
+        return totalDraws == 0 ? 0.0 : (double) desired / totalDraws;
+    }
+
+    /**
+     * Runs count simulations, splitting in halves down to leaf simulations;
+     * returns a histogram of simulated desired counts offset by minDesired.
+     */
+    private final class SimulationTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final SplittableRandom random;
+        private final int count;
+        private final int leaf;
+
+        SimulationTask(SplittableRandom random, int count, int leaf) {
+            this.random = random;
+            this.count = count;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (count <= leaf) {
+                long[] histogram = new long[maxDesired - minDesired + 1];
+                for (int done = 0; done < count && !cancelled; done += BATCH) {
+                    int batch = Math.min(BATCH, count - done);
+                    for (int i = 0; i < batch; i++) {
+                        histogram[simulateOnce(random) - minDesired]++;
+                    }
+                    completed.addAndGet(batch);
+                }
+                return histogram;
+            }
+            SimulationTask left = new SimulationTask(random.split(), count / 2, leaf);
+            left.fork();
+            long[] histogram = new SimulationTask(random, count - count / 2, leaf).compute();
+            long[] other = left.join();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other[i];
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a statistic computed over a range of pull
+ * indexes, including any rebuild of the range index it needed.
+ */
+@Name("gachatracker.Stats")
+@Label("Statistics")
+@Category({"Gacha Tracker", "Model"})
+@Description("Statistics computed over a range of pull indexes")
+final class StatsEvent extends jdk.jfr.Event {
+    @Label("From Pull Index")
+    int fromPullIndex;
+
+    @Label("To Pull Index")
+    int toPullIndex;
+
+    @Label("Records")
+    @Description("Number of records in the range")
+    long records;
+
+    @Label("History Size")
+    int historySize;
+
+    @Label("Index Rebuilt")
+    @Description("Whether the range index had to be built or rebuilt first")
+    boolean indexRebuilt;
+}
@@ -0,0 +1,215 @@
+package persistence;
+
+import model.GachaHistory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Represents a background service that loads and saves a GachaHistory off the
+ * thread that owns it (for the GUI, the Swing event dispatch thread).
+ *
+ * Edits are reported with changed(); a save is only started once no edit has
+ * arrived for the quiet period, so a burst of edits costs one write. The
+ * history is snapshotted (see GachaHistory.copy) on the owner thread and the
+ * copy is written by a worker thread, to a temporary file that then replaces
+ * the destination. Results are reported to a Listener on the owner thread.
+ */
+public class AutosaveService {
+
+    /**
+     * Represents a receiver of load and save results, called on the owner thread.
+     */
+    public interface Listener {
+        /**
+         * Effects: called when a snapshot of pulls records starts being written.
+         */
+        void saveStarted(int pulls);
+
+        /**
+         * Effects: called when a snapshot of pulls records was written in millis ms.
+         */
+        void saveCompleted(int pulls, long millis);
+
+        /**
+         * Effects: called when a save failed with the given exception.
+         */
+        void saveFailed(Exception e);
+
+        /**
+         * Effects: called when a history was loaded in millis ms.
+         */
+        void loadCompleted(GachaHistory history, long millis);
+
+        /**
+         * Effects: called when a load failed with the given exception.
+         */
+        void loadFailed(Exception e);
+    }
+
+    private final String destination;
+    private final long quietPeriodMillis;
+    private final Supplier<GachaHistory> source;
+    private final Executor ownerThread;
+    private final Listener listener;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService worker;
+    private ScheduledFuture<?> pending;
+    private boolean dirty;
+
+    /**
+     * REQUIRES: quietPeriodMillis >= 0; source may only be called on the
+     *           thread ownerThread runs tasks on
+     * MODIFIES: this
+     * EFFECTS:  constructs a service that saves the history supplied by source
+     *           to destination once edits have been quiet for quietPeriodMillis,
+     *           running source and listener callbacks through ownerThread
+     */
+    public AutosaveService(String destination, long quietPeriodMillis, Supplier<GachaHistory> source,
+                           Executor ownerThread, Listener listener) {
+        this.destination = destination;
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.source = source;
+        this.ownerThread = ownerThread;
+        this.listener = listener;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "autosave-timer"));
+        this.worker = Executors.newSingleThreadExecutor(r -> daemon(r, "autosave-writer"));
+    }
+
+    /**
+     * REQUIRES: called on the owner thread
+     * MODIFIES: this
+     * EFFECTS:  records that the history changed; restarts the quiet period
+     *           so that the save happens only after edits stop
+     */
+    public synchronized void changed() {
+        dirty = true;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = timer.schedule(() -> ownerThread.execute(this::saveNow),
+                quietPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * REQUIRES: called on the owner thread
+     * MODIFIES: this
+     * EFFECTS:  cancels any pending autosave, snapshots the history and
+     *           writes the snapshot in the background; does nothing once the
+     *           service is closed
+     */
+    public void saveNow() {
+        cancelPending();
+        if (worker.isShutdown()) {
+            return;
+        }
+        dirty = false;
+        GachaHistory snapshot = source.get().copy();
+        worker.execute(() -> write(snapshot));
+    }
+
+    /**
+     * REQUIRES: called on the owner thread
+     * MODIFIES: this
+     * EFFECTS:  reads the history at destination in the background and hands
+     *           it to the listener
+     */
+    public void load() {
+        cancelPending();
+        worker.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                GachaHistory loaded = new JsonStreamReader(destination).read();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                ownerThread.execute(() -> listener.loadCompleted(loaded, millis));
+            } catch (IOException | RuntimeException e) {
+                ownerThread.execute(() -> listener.loadFailed(e));
+            }
+        });
+    }
+
+    /**
+     * REQUIRES: called on the owner thread
+     * MODIFIES: this
+     * EFFECTS:  if there are unsaved edits, saves now; then waits for
+     *           outstanding work to finish and stops the background threads
+     */
+    public void close() throws InterruptedException {
+        shutdown();
+        awaitTermination(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    /**
+     * REQUIRES: called on the owner thread
+     * MODIFIES: this
+     * EFFECTS:  if there are unsaved edits, starts saving them; then stops
+     *           accepting work without waiting for outstanding work to finish
+     */
+    public void shutdown() {
+        if (dirty) {
+            saveNow();
+        }
+        timer.shutdownNow();
+        worker.shutdown();
+    }
+
+    /**
+     * REQUIRES: shutdown was called; may be called on any thread, so the owner
+     *           thread can keep delivering listener callbacks meanwhile
+     * EFFECTS:  waits up to timeoutMillis for outstanding work to finish;
+     *           returns true if it finished, false if the time ran out
+     */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        return worker.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: cancels the pending autosave, if any
+    private synchronized void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    // EFFECTS: writes snapshot to a temporary file, moves it over destination
+    //          and reports the outcome on the owner thread
+    private void write(GachaHistory snapshot) {
+        int pulls = snapshot.getAllPulls().size();
+        ownerThread.execute(() -> listener.saveStarted(pulls));
+        long start = System.nanoTime();
+        Path target = Paths.get(destination);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        JsonStreamWriter writer = new JsonStreamWriter(temp.toString());
+        try {
+            try {
+                writer.open();
+                writer.write(snapshot);
+            } finally {
+                writer.close();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            ownerThread.execute(() -> listener.saveCompleted(pulls, millis));
+        } catch (IOException | RuntimeException e) {
+            ownerThread.execute(() -> listener.saveFailed(e));
+        }
+    }
+
+    // EFFECTS: returns a daemon thread with the given name that runs r
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,167 @@
+package persistence;
+
+import model.GachaHistory;
+import model.HistoryLoader;
+import model.LatencyHistogram;
+import model.Metrics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.CRC32C;
+
+/**
+ * Represents a reader that reads GachaHistory from a file in the compact
+ * binary format written by BinaryWriter.
+ *
+ * Records are moved into the history a chunk at a time as they are decoded
+ * (see HistoryLoader), so they are never held twice, and are reported as one
+ * batch only once the checksum of the whole file has matched.
+ */
+public class BinaryReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK_SIZE = 8192;
+    private static final LatencyHistogram READ_TIME = Metrics.getInstance().histogram("BinaryReader.read");
+
+    private String source;
+    private InputStream in;
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+    private CRC32C crc;
+    private boolean checksumming;
+
+    /**
+     * REQUIRES: source is a valid file path pointing to a binary history file
+     * MODIFIES: none
+     * EFFECTS:  constructs a reader to read from source file
+     */
+    public BinaryReader(String source) {
+        this.source = source;
+    }
+
+    /**
+     * REQUIRES: the file at source must exist and be in the binary history format
+     * MODIFIES: none
+     * EFFECTS:
+     *  - reads the binary data from the specified file (source) and returns a
+     *    new GachaHistory containing all of its pulls;
+     *  - throws IOException if the file cannot be read, does not start with
+     *    the expected header, is truncated, or fails its checksum;
+     *  - throws IllegalArgumentException if a pull has out-of-range values;
+     *  - records the time taken and the bytes and records read in Metrics,
+     *    and as a HistoryLoadEvent if one is being recorded.
+     */
+    public GachaHistory read() throws IOException {
+        HistoryLoadEvent event = new HistoryLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try (InputStream input = Files.newInputStream(Paths.get(source))) {
+            in = input;
+            buffer = new byte[BUFFER_SIZE];
+            pos = 0;
+            limit = 0;
+            crc = new CRC32C();
+            checksumming = true;
+            GachaHistory history = parseGachaHistory();
+            long elapsed = System.nanoTime() - start;
+            long bytes = Files.size(Paths.get(source));
+            int records = history.getAllPulls().size();
+            READ_TIME.record(elapsed);
+            Metrics.getInstance().recordLoad(bytes, records, elapsed);
+            event.commit("binary", source, bytes, records);
+            return history;
+        } finally {
+            in = null;
+            buffer = null;
+        }
+    }
+
+    // EFFECTS: parses the header and all records into a new GachaHistory a
+    //          chunk at a time, reporting them once the checksum matches
+    private GachaHistory parseGachaHistory() throws IOException {
+        for (byte b : BinaryWriter.MAGIC) {
+            if (next() != b) {
+                throw new IOException(source + " is not a binary gacha history file");
+            }
+        }
+        int version = next();
+        if (version != BinaryWriter.VERSION) {
+            throw new IOException("Unsupported binary history version " + version + " in " + source);
+        }
+        long records = readVarint();
+        HistoryLoader loader = new HistoryLoader(new GachaHistory(), CHUNK_SIZE);
+        long pullIndex = 0;
+        for (long i = 0; i < records; i++) {
+            long flagAndFours = readVarint();
+            long zigzag = readVarint();
+            pullIndex += (zigzag >>> 1) ^ -(zigzag & 1);
+            long drawCount = readVarint();
+            loader.add((flagAndFours & 1) != 0, toInt(flagAndFours >>> 1), toInt(pullIndex),
+                    toInt(drawCount));
+        }
+        verifyChecksum();
+        return loader.finish();
+    }
+
+    // EFFECTS: reads the stored checksum and compares it with the computed one
+    private void verifyChecksum() throws IOException {
+        crc.update(buffer, 0, pos);
+        checksumming = false;
+        int stored = 0;
+        for (int i = 0; i < 4; i++) {
+            stored = (stored << 8) | next();
+        }
+        if (stored != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch in " + source);
+        }
+        if (pos < limit || in.read() != -1) {
+            throw new IOException("Unexpected data after checksum in " + source);
+        }
+    }
+
+    // EFFECTS: reads an unsigned LEB128 varint
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = next();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in " + source);
+    }
+
+    // EFFECTS: returns value as an int, or throws IOException if it does not fit
+    private int toInt(long value) throws IOException {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IOException("Value out of range in " + source);
+        }
+        return (int) value;
+    }
+
+    // EFFECTS: consumes and returns the next byte; throws EOFException at end of file
+    private int next() throws IOException {
+        if (pos == limit) {
+            fill();
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the consumed buffer to the checksum and refills it from the file
+    private void fill() throws IOException {
+        if (checksumming) {
+            crc.update(buffer, 0, limit);
+        }
+        pos = 0;
+        limit = in.read(buffer);
+        if (limit <= 0) {
+            limit = 0;
+            throw new EOFException("Unexpected end of file in " + source);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package persistence;
+
+import model.GachaHistory;
+import model.HistoryGenerator;
+import model.LatencyHistogram;
+import model.Metrics;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.zip.CRC32C;
+
+/**
+ * Represents a writer that writes GachaHistory to file in the compact binary format.
+ *
+ * Layout (all integers are unsigned LEB128 varints unless noted):
+ *  - header: the magic bytes "GCHB", one version byte, then the record count;
+ *  - one record per pull: (numberOf4Stars << 1 | desired5Star), the zigzag
+ *    encoded difference from the previous pullIndex, then drawCount;
+ *  - a 4-byte big-endian CRC32C of everything before it.
+ * A typical pull takes three bytes.
+ */
+public class BinaryWriter {
+    static final byte[] MAGIC = {'G', 'C', 'H', 'B'};
+    static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final LatencyHistogram WRITE_TIME = Metrics.getInstance().histogram("BinaryWriter.write");
+
+    private String destination;
+    private OutputStream out;
+    private byte[] buffer;
+    private int count;
+    private CRC32C crc;
+    private long previousIndex;
+    private long written;
+
+    /**
+     * REQUIRES: destination is a valid file path where data can be written
+     * MODIFIES: this
+     * EFFECTS:  constructs a writer to write to destination file
+     */
+    public BinaryWriter(String destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * REQUIRES: destination file must be writable
+     * MODIFIES: this
+     * EFFECTS:  opens the destination for writing, replacing any existing
+     *           content; throws FileNotFoundException if the destination is
+     *           not a valid path, or IOException if it cannot be opened
+     */
+    public void open() throws IOException {
+        try {
+            out = Files.newOutputStream(Paths.get(destination));
+        } catch (InvalidPathException e) {
+            throw new FileNotFoundException(destination + " (" + e.getReason() + ")");
+        }
+        buffer = new byte[BUFFER_SIZE];
+        count = 0;
+        crc = new CRC32C();
+    }
+
+    /**
+     * REQUIRES: writer is open
+     * MODIFIES: this
+     * EFFECTS:  writes the binary representation of gachaHistory to file, and
+     *           records the time taken and the bytes and records written in
+     *           Metrics and as a HistorySaveEvent if one is being recorded;
+     *           throws IOException if the data cannot be written
+     */
+    public void write(GachaHistory gachaHistory) throws IOException {
+        HistorySaveEvent event = new HistorySaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long firstByte = written + count;
+        int records = gachaHistory.getAllPulls().size();
+        writeHeader(records);
+        try {
+            gachaHistory.forEachPull(this::writePullUnchecked);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeChecksum();
+        long elapsed = System.nanoTime() - start;
+        long bytes = written - firstByte;
+        WRITE_TIME.record(elapsed);
+        Metrics.getInstance().recordSave(bytes, records, elapsed);
+        event.commit("binary", destination, bytes, records);
+    }
+
+    /**
+     * REQUIRES: writer is open, count >= 0
+     * MODIFIES: this
+     * EFFECTS:  writes count records made by generator to file as they are
+     *           generated, without holding the whole history in memory;
+     *           throws IOException if the data cannot be written
+     */
+    public void write(HistoryGenerator generator, int count) throws IOException {
+        writeHeader(count);
+        generator.generate(count, chunk -> {
+            try {
+                chunk.forEachPull(this::writePullUnchecked);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+        writeChecksum();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: buffers the header of a file holding records pulls
+    private void writeHeader(long records) {
+        for (byte b : MAGIC) {
+            buffer[count++] = b;
+        }
+        buffer[count++] = VERSION;
+        putVarint(records);
+        previousIndex = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes out the buffer followed by the checksum of everything written
+    private void writeChecksum() throws IOException {
+        flushBuffer();
+        int checksum = (int) crc.getValue();
+        out.write(new byte[] {(byte) (checksum >>> 24), (byte) (checksum >>> 16),
+                (byte) (checksum >>> 8), (byte) checksum});
+        written += 4;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes one pull record like writePull, rethrowing IOException
+    //          as UncheckedIOException so it can be used as a PullVisitor
+    private void writePullUnchecked(boolean desired, int num4Stars, int pullIndex, int drawCount) {
+        try {
+            writePull(desired, num4Stars, pullIndex, drawCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS:  closes the file; throws IOException if it cannot be closed
+     */
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            buffer = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes one pull record into the buffer
+    private void writePull(boolean desired, int num4Stars, int pullIndex, int drawCount) throws IOException {
+        if (buffer.length - count < 3 * MAX_VARINT_BYTES) {
+            flushBuffer();
+        }
+        putVarint(((long) num4Stars << 1) | (desired ? 1 : 0));
+        long delta = pullIndex - previousIndex;
+        putVarint((delta << 1) ^ (delta >> 63));
+        putVarint(drawCount);
+        previousIndex = pullIndex;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends value to the buffer as an unsigned LEB128 varint
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the buffered bytes to the checksum and writes them out
+    private void flushBuffer() throws IOException {
+        crc.update(buffer, 0, count);
+        out.write(buffer, 0, count);
+        written += count;
+        count = 0;
+    }
+}
@@ -0,0 +1,237 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.EventSink;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a sink that keeps a durable, rolling on-disk copy of the EventLog.
+ *
+ * Logged events are only queued on the logging thread; a background writer
+ * thread takes them off the queue in batches, appends one line per event
+ * ("time kind description") to the log file and flushes once per batch. When
+ * the file reaches maxFileBytes it is rotated: path becomes path.1, path.1
+ * becomes path.2 and so on, keeping at most maxFiles old files. If the
+ * writer falls so far behind that the queue is full, new events are dropped
+ * and counted rather than making the logging thread wait. If writing fails
+ * the sink unregisters itself, reports the error on standard error, counts
+ * the unwritten events as dropped and rethrows the error from close().
+ */
+public class EventLogFileSink implements EventSink {
+    private static final long DEFAULT_MAX_FILE_BYTES = 1024 * 1024;
+    private static final int DEFAULT_MAX_FILES = 5;
+    private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final int MAX_BATCH = 1024;
+    private static final long POLL_MILLIS = 200;
+
+    private final Path path;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final BlockingQueue<Event> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running;
+    private volatile IOException failure;
+    private OutputStream out;
+    private long fileBytes;
+
+    /**
+     * REQUIRES: path is a valid file path whose directory exists
+     * MODIFIES: this
+     * EFFECTS:  constructs a sink writing to path with 1 MB files, 5 rotated
+     *           files and room for 8192 queued events
+     */
+    public EventLogFileSink(String path) {
+        this(path, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILES, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * REQUIRES: path is a valid file path whose directory exists,
+     *           maxFileBytes >= 1, maxFiles >= 0, queueCapacity >= 1
+     * MODIFIES: this
+     * EFFECTS:  constructs a sink writing to path that rotates at maxFileBytes,
+     *           keeps maxFiles rotated files and queues up to queueCapacity events
+     */
+    public EventLogFileSink(String path, long maxFileBytes, int maxFiles, int queueCapacity) {
+        this.path = Paths.get(path);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::run, "event-log-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * REQUIRES: this sink has not been started
+     * MODIFIES: this
+     * EFFECTS:  opens the log file, starts the writer thread and registers
+     *           this sink with the EventLog; throws IOException if the file
+     *           cannot be opened
+     */
+    public void start() throws IOException {
+        openFile();
+        running = true;
+        writerThread.start();
+        EventLog.getInstance().addSink(this);
+    }
+
+    @Override
+    public void accept(Event e) {
+        if (failure != null || !queue.offer(e)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Effects: returns the number of events dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * EFFECTS: returns true if writing to the log file failed, after which
+     *          this sink no longer receives events.
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS:  unregisters this sink, writes every queued event, closes the
+     *           log file and stops the writer thread; throws IOException if
+     *           the writer thread failed to write
+     */
+    public void close() throws IOException, InterruptedException {
+        EventLog.getInstance().removeSink(this);
+        running = false;
+        writerThread.join();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // EFFECTS: takes batches of events off the queue and writes them until
+    //          closed, then writes whatever is left and closes the file
+    private void run() {
+        List<Event> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (running || !queue.isEmpty()) {
+                Event first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (IOException e) {
+            fail(e, batch.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records e as the failure, stops receiving events and counts
+    //          the unwritten events, unwritten of them already taken off
+    //          the queue, as dropped
+    private void fail(IOException e, int unwritten) {
+        failure = e;
+        running = false;
+        EventLog.getInstance().removeSink(this);
+        System.err.println("Event log file " + path + " failed, no longer writing events: " + e);
+        List<Event> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        dropped.addAndGet(unwritten + rest.size());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends one line per event, rotating when the file is full,
+    //          and flushes the batch to the file, emitting an
+    //          EventLogFlushEvent if one is being recorded
+    private void writeBatch(List<Event> batch) throws IOException {
+        EventLogFlushEvent flush = new EventLogFlushEvent();
+        flush.begin();
+        long bytes = 0;
+        boolean rotated = false;
+        for (Event e : batch) {
+            byte[] line = (Instant.ofEpochMilli(e.getTime()) + " " + e.getKind() + " "
+                    + e.getDescription() + "\n").getBytes(StandardCharsets.UTF_8);
+            if (fileBytes > 0 && fileBytes + line.length > maxFileBytes) {
+                rotate();
+                rotated = true;
+            }
+            out.write(line);
+            fileBytes += line.length;
+            bytes += line.length;
+        }
+        out.flush();
+        flush.end();
+        if (flush.shouldCommit()) {
+            flush.events = batch.size();
+            flush.bytes = bytes;
+            flush.rotated = rotated;
+            flush.commit();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the current file, shifts the rotated files up by one,
+    //          dropping the oldest, and starts a new empty file
+    private void rotate() throws IOException {
+        out.close();
+        if (maxFiles == 0) {
+            Files.delete(path);
+        } else {
+            Files.deleteIfExists(rotated(maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                if (Files.exists(rotated(i))) {
+                    Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openFile();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the log file for appending and records its current size
+    private void openFile() throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND));
+        fileBytes = Files.size(path);
+    }
+
+    // EFFECTS: returns the path of the i-th rotated file
+    private Path rotated(int i) {
+        return path.resolveSibling(path.getFileName() + "." + i);
+    }
+}
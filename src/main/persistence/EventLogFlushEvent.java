@@ -0,0 +1,28 @@
+package persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a batch of EventLog events written and flushed
+ * to the log file by an EventLogFileSink.
+ */
+@Name("gachatracker.EventLogFlush")
+@Label("Event Log Flush")
+@Category({"Gacha Tracker", "Persistence"})
+@Description("A batch of logged events written to the event log file")
+final class EventLogFlushEvent extends jdk.jfr.Event {
+    @Label("Events")
+    int events;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Rotated")
+    @Description("Whether the log file was rotated during the batch")
+    boolean rotated;
+}
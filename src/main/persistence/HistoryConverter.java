@@ -0,0 +1,48 @@
+package persistence;
+
+import model.GachaHistory;
+
+import java.io.IOException;
+
+/**
+ * Converts saved GachaHistory files between the JSON and binary formats.
+ */
+public class HistoryConverter {
+
+    /**
+     * REQUIRES: jsonSource is a JSON history file, binaryDestination is writable
+     * MODIFIES: none
+     * EFFECTS:  reads the JSON history at jsonSource and writes it to
+     *           binaryDestination in the binary format; throws IOException if
+     *           either file cannot be accessed
+     */
+    public static void jsonToBinary(String jsonSource, String binaryDestination) throws IOException {
+        GachaHistory history = new JsonStreamReader(jsonSource).read();
+        BinaryWriter writer = new BinaryWriter(binaryDestination);
+        try {
+            writer.open();
+            writer.write(history);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * REQUIRES: binarySource is a binary history file, jsonDestination is writable
+     * MODIFIES: none
+     * EFFECTS:  reads the binary history at binarySource and writes it to
+     *           jsonDestination as JSON, compact if compact is true; throws
+     *           IOException if either file cannot be accessed
+     */
+    public static void binaryToJson(String binarySource, String jsonDestination, boolean compact)
+            throws IOException {
+        GachaHistory history = new BinaryReader(binarySource).read();
+        JsonStreamWriter writer = new JsonStreamWriter(jsonDestination, compact);
+        try {
+            writer.open();
+            writer.write(history);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package persistence;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+
+/**
+ * Fields shared by the Flight Recorder events for loading and saving a
+ * history file.
+ */
+abstract class HistoryIoEvent extends jdk.jfr.Event {
+    @Label("Format")
+    @Description("json, json-stream or binary")
+    String format;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Records")
+    int records;
+
+    /**
+     * Modifies: this
+     * Effects: ends the event and, if a recording wants it (it is enabled
+     * and took at least the threshold), fills in its fields and writes it.
+     */
+    void commit(String format, String path, long bytes, int records) {
+        end();
+        if (shouldCommit()) {
+            this.format = format;
+            this.path = path;
+            this.bytes = bytes;
+            this.records = records;
+            commit();
+        }
+    }
+}
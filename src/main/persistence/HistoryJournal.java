@@ -0,0 +1,342 @@
+package persistence;
+
+import model.GachaHistory;
+import model.GachaHistoryListener;
+import model.GachaPull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Represents an append-only journal that persists a GachaHistory change by change.
+ *
+ * The history is stored as a binary snapshot (see BinaryWriter) plus a journal
+ * of the adds, removals and edits made since that snapshot. Each change costs
+ * one small record appended to the journal, so saving is proportional to the
+ * change instead of the history size. Once the journal holds
+ * checkpointInterval records, the history is written to a new snapshot that
+ * atomically replaces the old one and the journal is emptied.
+ *
+ * Journal layout: the magic bytes "GCHJ", a version byte, a byte that is 1 if
+ * a snapshot existed when the journal was started, and the CRC32C stored at
+ * the end of that snapshot; then records of one length byte, the payload
+ * (operation byte, position and, for adds and edits, the pull's values as
+ * varints) and a 4-byte CRC32C of the payload. A journal whose header does not
+ * match the current snapshot is stale and ignored, and replay stops at the
+ * first torn or corrupt record, so a crash at any point loses at most the
+ * change being written.
+ */
+public class HistoryJournal implements GachaHistoryListener {
+    private static final byte[] MAGIC = {'G', 'C', 'H', 'J'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 10;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 10000;
+    private static final int MAX_PAYLOAD = 1 + 5 * 4;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_CHANGE = 3;
+
+    private Path snapshot;
+    private Path journal;
+    private int checkpointInterval;
+    private GachaHistory history;
+    private FileChannel channel;
+    private ByteBuffer record;
+    private CRC32C crc;
+    private int journalRecords;
+
+    /**
+     * REQUIRES: snapshotPath and journalPath are valid, distinct file paths
+     * MODIFIES: this
+     * EFFECTS:  constructs a journal over the given files that checkpoints
+     *           every 10000 changes
+     */
+    public HistoryJournal(String snapshotPath, String journalPath) {
+        this(snapshotPath, journalPath, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * REQUIRES: snapshotPath and journalPath are valid, distinct file paths,
+     *           checkpointInterval >= 1
+     * MODIFIES: this
+     * EFFECTS:  constructs a journal over the given files that checkpoints
+     *           every checkpointInterval changes
+     */
+    public HistoryJournal(String snapshotPath, String journalPath, int checkpointInterval) {
+        this.snapshot = Paths.get(snapshotPath);
+        this.journal = Paths.get(journalPath);
+        this.checkpointInterval = checkpointInterval;
+        this.record = ByteBuffer.allocate(1 + MAX_PAYLOAD + 4);
+        this.crc = new CRC32C();
+    }
+
+    /**
+     * REQUIRES: this journal is not open
+     * MODIFIES: this
+     * EFFECTS:  loads the snapshot (or starts empty if there is none), replays
+     *           every intact journal record on top of it, and returns the
+     *           resulting history; from then on every change to that history
+     *           is appended to the journal until close() is called. Throws
+     *           IOException if the files cannot be read or opened.
+     */
+    public GachaHistory open() throws IOException {
+        history = Files.exists(snapshot) ? new BinaryReader(snapshot.toString()).read() : new GachaHistory();
+        byte[] header = snapshotHeader();
+        long validLength = 0;
+        journalRecords = 0;
+        if (Files.exists(journal)) {
+            validLength = replay(Files.readAllBytes(journal), header);
+        }
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (validLength == 0) {
+            startJournal(header);
+        } else {
+            channel.truncate(validLength);
+            channel.position(validLength);
+        }
+        history.addListener(this);
+        return history;
+    }
+
+    /**
+     * REQUIRES: this journal is open
+     * MODIFIES: this
+     * EFFECTS:  writes the whole history to a new snapshot, atomically
+     *           replaces the old snapshot with it and empties the journal;
+     *           throws IOException if the files cannot be written
+     */
+    public void checkpoint() throws IOException {
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        BinaryWriter writer = new BinaryWriter(temp.toString());
+        try {
+            writer.open();
+            writer.write(history);
+        } finally {
+            writer.close();
+        }
+        try (FileChannel written = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        startJournal(snapshotHeader());
+        journalRecords = 0;
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS:  stops journaling changes to the history and closes the journal
+     *           file; changes already journaled are kept
+     */
+    public void close() throws IOException {
+        if (channel != null) {
+            history.removeListener(this);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Override
+    public void pullAdded(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        append(OP_ADD, position, desired5Star, numberOf4Stars, pullIndex, drawCount);
+    }
+
+    /**
+     * A batch that would fill the journal is checkpointed at once instead of
+     * journaled: the history already holds every record of the batch when it
+     * is reported, so a checkpoint part way through would snapshot the whole
+     * batch and then journal its remaining records a second time.
+     */
+    @Override
+    public void pullsAdded(GachaHistory added, int firstPosition, int count) {
+        if (journalRecords + count >= checkpointInterval) {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        GachaHistoryListener.super.pullsAdded(added, firstPosition, count);
+    }
+
+    @Override
+    public void pullRemoved(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        record.clear();
+        record.put((byte) 0);
+        record.put(OP_REMOVE);
+        putVarint(position);
+        finishRecord();
+    }
+
+    @Override
+    public void pullChanged(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        append(OP_CHANGE, position, desired5Star, numberOf4Stars, pullIndex, drawCount);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends an add or change record carrying the pull's values
+    private void append(byte op, int position, boolean desired5Star, int numberOf4Stars,
+                        int pullIndex, int drawCount) {
+        record.clear();
+        record.put((byte) 0);
+        record.put(op);
+        putVarint(position);
+        putVarint(((long) numberOf4Stars << 1) | (desired5Star ? 1 : 0));
+        putVarint(pullIndex);
+        putVarint(drawCount);
+        finishRecord();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: fills in the length and checksum of the record in progress, writes
+    //          it to the journal, and checkpoints if the journal is full
+    private void finishRecord() {
+        int payloadLength = record.position() - 1;
+        record.put(0, (byte) payloadLength);
+        crc.reset();
+        crc.update(record.array(), 1, payloadLength);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (++journalRecords >= checkpointInterval) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: empties the journal and writes a header for the current snapshot
+    private void startJournal(byte[] header) throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies every intact record in bytes to the history and returns
+    //          the length of the intact prefix, or 0 if the journal does not
+    //          belong to the current snapshot
+    private long replay(byte[] bytes, byte[] header) {
+        if (bytes.length < HEADER_SIZE) {
+            return 0;
+        }
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            if (bytes[i] != header[i]) {
+                return 0;
+            }
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.position(HEADER_SIZE);
+        int valid = HEADER_SIZE;
+        while (in.remaining() >= 1) {
+            int length = in.get(valid) & 0xFF;
+            if (length == 0 || length > MAX_PAYLOAD || in.remaining() < 1 + length + 4) {
+                break;
+            }
+            crc.reset();
+            crc.update(bytes, valid + 1, length);
+            if (in.getInt(valid + 1 + length) != (int) crc.getValue()) {
+                break;
+            }
+            in.position(valid + 1);
+            try {
+                apply(in);
+            } catch (RuntimeException e) {
+                break;
+            }
+            valid += 1 + length + 4;
+            in.position(valid);
+            journalRecords++;
+        }
+        return valid;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies the record payload at in's position to the history
+    private void apply(ByteBuffer in) {
+        byte op = in.get();
+        int position = (int) getVarint(in);
+        if (op == OP_REMOVE) {
+            if (position >= history.getAllPulls().size()) {
+                throw new IllegalStateException("No record at position " + position);
+            }
+            history.removePull(position);
+            return;
+        }
+        long flagAndFours = getVarint(in);
+        boolean desired = (flagAndFours & 1) != 0;
+        int numberOf4Stars = (int) (flagAndFours >>> 1);
+        int pullIndex = (int) getVarint(in);
+        int drawCount = (int) getVarint(in);
+        if (op == OP_ADD) {
+            history.addPull(desired, numberOf4Stars, pullIndex, drawCount);
+        } else if (op == OP_CHANGE) {
+            GachaPull pull = history.getAllPulls().get(position);
+            pull.setDesired5Star(desired);
+            pull.setNumberOf4Stars(numberOf4Stars);
+            pull.setDrawCount(drawCount);
+        } else {
+            throw new IllegalStateException("Unknown journal operation " + op);
+        }
+    }
+
+    // EFFECTS: returns the journal header describing the current snapshot file
+    private byte[] snapshotHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC);
+        header.put((byte) VERSION);
+        if (Files.exists(snapshot)) {
+            header.put((byte) 1);
+            try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                ByteBuffer stored = ByteBuffer.allocate(4);
+                in.read(stored, Math.max(0, in.size() - 4));
+                header.put(stored.array());
+            }
+        } else {
+            header.put((byte) 0);
+            header.putInt(0);
+        }
+        return header.array();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends value to the record in progress as an unsigned LEB128 varint
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            record.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        record.put((byte) value);
+    }
+
+    // EFFECTS: reads an unsigned LEB128 varint from in
+    private static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+}
@@ -0,0 +1,16 @@
+package persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for reading a history from a file.
+ */
+@Name("gachatracker.HistoryLoad")
+@Label("History Load")
+@Category({"Gacha Tracker", "Persistence"})
+@Description("A history read from a file")
+final class HistoryLoadEvent extends HistoryIoEvent {
+}
@@ -0,0 +1,258 @@
+package persistence;
+
+import model.GachaHistory;
+import model.GachaHistoryListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a store of many accounts' pull histories, each kept in its own
+ * binary file and loaded on demand.
+ *
+ * Files are sharded across 256 subdirectories of the root directory by a
+ * hash of the account ID, so no directory holds more than a fraction of the
+ * accounts. Loaded histories are kept in a least-recently-used cache whose
+ * weight is their total number of pull records, plus one per history so
+ * that empty ones count too. Once the weight exceeds the limit, the least
+ * recently used histories are dropped, and those changed since they were
+ * loaded or last written are written back first. A history is marked as
+ * changed by a listener, so callers never have to.
+ *
+ * Every method is synchronized. A history returned by get should only be
+ * used until the next call to this repository from any thread, since it may
+ * be evicted then; changes made to it after that are not saved.
+ */
+public class HistoryRepository {
+    private static final Pattern ACCOUNT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String EXTENSION = ".bin";
+
+    private final Path root;
+    private final long maxCachedPulls;
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPulls;
+    private long hits;
+    private long misses;
+
+    /**
+     * REQUIRES: rootDirectory is a directory path that can be created and
+     *           written, maxCachedPulls >= 0
+     * MODIFIES: this
+     * EFFECTS:  constructs a repository storing histories under rootDirectory
+     *           and keeping histories with at most about maxCachedPulls pull
+     *           records in memory
+     */
+    public HistoryRepository(String rootDirectory, long maxCachedPulls) {
+        this.root = Paths.get(rootDirectory);
+        this.maxCachedPulls = maxCachedPulls;
+    }
+
+    /**
+     * REQUIRES: accountId is 1 to 64 letters, digits, '_' or '-'
+     * MODIFIES: this
+     * EFFECTS:  returns the account's history, from memory if it is cached and
+     *           otherwise read from its file, or a new empty history if the
+     *           account has none yet; then evicts least recently used
+     *           histories while the cache is over its limit, writing back
+     *           changed ones. The returned history is never evicted by this
+     *           call. Throws IllegalArgumentException for an invalid ID, and
+     *           IOException if a file cannot be read or written.
+     */
+    public synchronized GachaHistory get(String accountId) throws IOException {
+        checkAccountId(accountId);
+        Entry entry = cache.get(accountId);
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+            Path file = pathOf(accountId);
+            GachaHistory history = Files.exists(file) ? new BinaryReader(file.toString()).read() : new GachaHistory();
+            entry = new Entry(accountId, history);
+            cache.put(accountId, entry);
+            cachedPulls += entry.pulls;
+        }
+        evict(entry);
+        return entry.history;
+    }
+
+    /**
+     * REQUIRES: accountId is 1 to 64 letters, digits, '_' or '-'
+     * MODIFIES: nothing
+     * EFFECTS:  returns true if the account's history is cached or has a file;
+     *           throws IllegalArgumentException for an invalid ID
+     */
+    public synchronized boolean exists(String accountId) {
+        checkAccountId(accountId);
+        return cache.containsKey(accountId) || Files.exists(pathOf(accountId));
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS:  writes every cached history changed since it was loaded or
+     *           last written; throws IOException if one cannot be written,
+     *           leaving it marked as changed.
+     */
+    public synchronized void flush() throws IOException {
+        for (Entry entry : cache.values()) {
+            if (entry.dirty) {
+                write(entry);
+            }
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS:  flushes changed histories, then empties the cache; throws
+     *           IOException if a history cannot be written, in which case
+     *           the cache is left as it was.
+     */
+    public synchronized void close() throws IOException {
+        flush();
+        for (Entry entry : cache.values()) {
+            entry.history.removeListener(entry);
+        }
+        cache.clear();
+        cachedPulls = 0;
+    }
+
+    /**
+     * EFFECTS: returns the number of histories held in memory.
+     */
+    public synchronized int getCachedAccounts() {
+        return cache.size();
+    }
+
+    /**
+     * EFFECTS: returns the total number of pull records held in memory.
+     */
+    public synchronized long getCachedPulls() {
+        return cachedPulls;
+    }
+
+    /**
+     * EFFECTS: returns how many calls of get found the history in memory.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * EFFECTS: returns how many calls of get had to read or create the history.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    // REQUIRES: accountId is valid
+    // EFFECTS: returns the file of the account, in the shard directory named by
+    //          the low byte of the ID's hash code in hex
+    Path pathOf(String accountId) {
+        String shard = String.format("%02x", accountId.hashCode() & 0xFF);
+        return root.resolve(shard).resolve(accountId + EXTENSION);
+    }
+
+    // EFFECTS: throws IllegalArgumentException if accountId is not valid
+    private static void checkAccountId(String accountId) {
+        if (accountId == null || !ACCOUNT_ID.matcher(accountId).matches()) {
+            throw new IllegalArgumentException("Invalid account ID: " + accountId);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops least recently used entries other than keep until the cache
+    //          fits its limit, writing back changed ones first
+    private void evict(Entry keep) throws IOException {
+        List<Entry> victims = new ArrayList<>();
+        long remaining = cachedPulls + cache.size();
+        for (Iterator<Entry> it = cache.values().iterator(); it.hasNext() && remaining > maxCachedPulls; ) {
+            Entry entry = it.next();
+            if (entry != keep) {
+                victims.add(entry);
+                remaining -= entry.pulls + 1;
+            }
+        }
+        for (Entry entry : victims) {
+            if (entry.dirty) {
+                write(entry); // on failure the entry stays cached and changed
+            }
+            entry.history.removeListener(entry);
+            cache.remove(entry.accountId);
+            cachedPulls -= entry.pulls;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes entry's history to a temporary file that then replaces
+    //          the account's file, and marks it unchanged
+    private void write(Entry entry) throws IOException {
+        Path target = pathOf(entry.accountId);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        BinaryWriter writer = new BinaryWriter(temp.toString());
+        try {
+            writer.open();
+            writer.write(entry.history);
+        } finally {
+            writer.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        entry.dirty = false;
+    }
+
+    /**
+     * A cached history, which tracks its own size and whether it changed.
+     */
+    private final class Entry implements GachaHistoryListener {
+        private final String accountId;
+        private final GachaHistory history;
+        private long pulls;
+        private boolean dirty;
+
+        Entry(String accountId, GachaHistory history) {
+            this.accountId = accountId;
+            this.history = history;
+            this.pulls = history.getAllPulls().size();
+            history.addListener(this);
+        }
+
+        @Override
+        public void pullAdded(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+            resized(1);
+        }
+
+        @Override
+        public void pullsAdded(GachaHistory source, int firstPosition, int count) {
+            resized(count);
+        }
+
+        @Override
+        public void pullRemoved(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+            resized(-1);
+        }
+
+        @Override
+        public void pullChanged(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+            synchronized (HistoryRepository.this) {
+                dirty = true;
+            }
+        }
+
+        // MODIFIES: this, HistoryRepository.this
+        // EFFECTS: records that the history changed size by delta
+        private void resized(int delta) {
+            synchronized (HistoryRepository.this) {
+                pulls += delta;
+                cachedPulls += delta;
+                dirty = true;
+            }
+        }
+    }
+}
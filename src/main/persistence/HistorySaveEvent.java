@@ -0,0 +1,16 @@
+package persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for writing a history to a file.
+ */
+@Name("gachatracker.HistorySave")
+@Label("History Save")
+@Category({"Gacha Tracker", "Persistence"})
+@Description("A history written to a file")
+final class HistorySaveEvent extends HistoryIoEvent {
+}
@@ -1,7 +1,9 @@
 package persistence;
 
 import model.GachaHistory;
-import model.GachaPull;
+import model.LatencyHistogram;
+import model.Metrics;
+import model.PullBatch;
 import org.json.JSONArray;
 
 import org.json.JSONObject;
@@ -15,6 +17,8 @@ import java.nio.file.Paths;
  * Represents a reader that reads GachaHistory data from JSON file.
  */
 public class JsonReader {
+    private static final LatencyHistogram READ_TIME = Metrics.getInstance().histogram("JsonReader.read");
+
     private String source;
 
     /**
@@ -38,9 +42,14 @@ public class JsonReader {
      *    that were in the JSON file);
      *  - throws IOException if an error occurs reading data from the file
      *    (e.g. file not found, no access permission);
-     *  - throws JSONException if JSON is badly formed (missing keys, wrong types, etc.).
+     *  - throws JSONException if JSON is badly formed (missing keys, wrong types, etc.);
+     *  - records the time taken and the bytes and records read in Metrics,
+     *    and as a HistoryLoadEvent if one is being recorded.
      */
     public GachaHistory read() throws IOException {
+        HistoryLoadEvent event = new HistoryLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
         // 1) 读取文件为字符串
         String jsonData = Files.readString(Paths.get(source));
 
@@ -48,34 +57,45 @@ public class JsonReader {
         JSONObject jsonObject = new JSONObject(jsonData);
 
         // 3) 构造并返回 GachaHistory
-        return parseGachaHistory(jsonObject);
+        GachaHistory history = parseGachaHistory(jsonObject);
+
+        // 4) 记录耗时与吞吐量（字符数即 ASCII JSON 的字节数）
+        long elapsed = System.nanoTime() - start;
+        int records = history.getAllPulls().size();
+        READ_TIME.record(elapsed);
+        Metrics.getInstance().recordLoad(jsonData.length(), records, elapsed);
+        event.commit("json", source, jsonData.length(), records);
+        return history;
     }
 
     // EFFECTS: parses GachaHistory from given JSON object, 
     //          if no "pullRecords" array is present, returns an empty GachaHistory.
+    //          All pulls are parsed into one batch and added to the history together.
     private GachaHistory parseGachaHistory(JSONObject jsonObject) {
         GachaHistory history = new GachaHistory();
         JSONArray pullsArray = jsonObject.optJSONArray("pullRecords");
         if (pullsArray != null) {
+            PullBatch batch = new PullBatch(pullsArray.length());
             for (Object obj : pullsArray) {
                 JSONObject pullJson = (JSONObject) obj;
                 // 若 pullJson 中字段缺失或非法，将抛出 JSONException / IllegalArgumentException
-                GachaPull pull = parseGachaPull(pullJson);
-                history.addPull(pull);
+                parseGachaPull(pullJson, batch);
             }
+            history.addAll(batch);
         }
         return history;
     }
 
-    // EFFECTS: parses a single GachaPull object from the JSON,
+    // MODIFIES: batch
+    // EFFECTS: parses a single pull from the JSON and adds it to batch,
     //          expects { "desired5Star": bool, "numberOf4Stars": int, "pullIndex": int, "drawCount": int }
-    private GachaPull parseGachaPull(JSONObject pullJson) {
+    private void parseGachaPull(JSONObject pullJson, PullBatch batch) {
         boolean desired    = pullJson.getBoolean("desired5Star");
         int numberOf4Stars = pullJson.getInt("numberOf4Stars");
         int pullIndex      = pullJson.getInt("pullIndex");
         int drawCount      = pullJson.getInt("drawCount");
 
-        // GachaPull 构造器若发现负数或 0 会抛出 IllegalArgumentException
-        return new GachaPull(desired, numberOf4Stars, pullIndex, drawCount);
+        // 若发现负数或 0，PullBatch 会抛出 IllegalArgumentException
+        batch.add(desired, numberOf4Stars, pullIndex, drawCount);
     }
 }
\ No newline at end of file
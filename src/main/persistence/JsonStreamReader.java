@@ -0,0 +1,452 @@
+package persistence;
+
+import model.GachaHistory;
+import model.HistoryLoader;
+import model.LatencyHistogram;
+import model.Metrics;
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Represents a reader that streams GachaHistory data from a JSON file.
+ *
+ * Unlike JsonReader, the document is never held in memory as a whole: bytes
+ * are read from a FileChannel into one fixed-size buffer, tokenized in place
+ * without decoding them into Strings, and each pull is added to a
+ * HistoryLoader as soon as its object is closed. The loader moves the records
+ * into the history CHUNK_SIZE at a time, so they are never held twice, and
+ * reports them with a single summary event once the whole file has been
+ * parsed. Apart from the records themselves, extra memory use is therefore
+ * constant no matter how large the file is.
+ */
+public class JsonStreamReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final byte[] PULL_RECORDS = ascii("pullRecords");
+    private static final byte[] DESIRED_5_STAR = ascii("desired5Star");
+    private static final byte[] NUMBER_OF_4_STARS = ascii("numberOf4Stars");
+    private static final byte[] PULL_INDEX = ascii("pullIndex");
+    private static final byte[] DRAW_COUNT = ascii("drawCount");
+    private static final String[] FIELD_NAMES = {"desired5Star", "numberOf4Stars", "pullIndex", "drawCount"};
+    private static final int ALL_FIELDS = 0b1111;
+    private static final LatencyHistogram READ_TIME = Metrics.getInstance().histogram("JsonStreamReader.read");
+
+    private String source;
+    private int bufferSize;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long position;
+    private byte[] key;
+    private int keyLength;
+
+    /**
+     * REQUIRES: source is a valid file path pointing to a JSON file
+     *           that structurally matches GachaHistory's format
+     * MODIFIES: none
+     * EFFECTS:  constructs a reader to stream from source file
+     */
+    public JsonStreamReader(String source) {
+        this(source, BUFFER_SIZE);
+    }
+
+    // REQUIRES: bufferSize >= 1
+    // EFFECTS: constructs a reader to stream from source file using a read
+    //          buffer of the given size
+    JsonStreamReader(String source, int bufferSize) {
+        this.source = source;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * REQUIRES: the file at source must exist and contain valid JSON data
+     *           structured for GachaHistory
+     * MODIFIES: none
+     * EFFECTS:
+     *  - streams JSON data from the specified file (source), adding each pull
+     *    to a new GachaHistory as it is parsed, and returns that history;
+     *  - if there is no "pullRecords" array, returns an empty GachaHistory;
+     *  - throws IOException if an error occurs reading data from the file;
+     *  - throws JSONException if the JSON is badly formed or a pull is missing
+     *    a field or has a field of the wrong type;
+     *  - throws IllegalArgumentException if a pull has out-of-range values;
+     *  - records the time taken and the bytes and records read in Metrics,
+     *    and as a HistoryLoadEvent if one is being recorded.
+     */
+    public GachaHistory read() throws IOException {
+        HistoryLoadEvent event = new HistoryLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try (FileChannel in = FileChannel.open(Paths.get(source), StandardOpenOption.READ)) {
+            channel = in;
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+            buffer.flip();
+            position = 0;
+            key = new byte[MAX_KEY_LENGTH];
+            GachaHistory history = parseGachaHistory();
+            long elapsed = System.nanoTime() - start;
+            int records = history.getAllPulls().size();
+            READ_TIME.record(elapsed);
+            Metrics.getInstance().recordLoad(position, records, elapsed);
+            event.commit("json-stream", source, position, records);
+            return history;
+        } finally {
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    // EFFECTS: parses the top-level object, streaming its pulls into a new
+    //          GachaHistory a chunk at a time
+    private GachaHistory parseGachaHistory() throws IOException {
+        HistoryLoader loader = new HistoryLoader(new GachaHistory(), CHUNK_SIZE);
+        expect('{');
+        if (!closes('}')) {
+            do {
+                readKey();
+                expect(':');
+                if (keyEquals(PULL_RECORDS) && peekNonSpace() == '[') {
+                    parsePullRecords(loader);
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+        if (nextNonSpace() != -1) {
+            throw syntaxError("Unexpected content after the top-level object");
+        }
+        return loader.finish();
+    }
+
+    // MODIFIES: loader
+    // EFFECTS: parses the pullRecords array, adding each pull to loader
+    private void parsePullRecords(HistoryLoader loader) throws IOException {
+        expect('[');
+        if (!closes(']')) {
+            do {
+                parseGachaPull(loader);
+            } while (nextMember(']'));
+        }
+    }
+
+    // MODIFIES: loader
+    // EFFECTS: parses a single pull object and adds it to loader,
+    //          expects { "desired5Star": bool, "numberOf4Stars": int, "pullIndex": int, "drawCount": int }
+    private void parseGachaPull(HistoryLoader loader) throws IOException {
+        boolean desired = false;
+        int numberOf4Stars = 0;
+        int pullIndex = 0;
+        int drawCount = 0;
+        int seen = 0;
+        expect('{');
+        if (!closes('}')) {
+            do {
+                readKey();
+                expect(':');
+                if (keyEquals(DESIRED_5_STAR)) {
+                    desired = readBoolean();
+                    seen |= 1;
+                } else if (keyEquals(NUMBER_OF_4_STARS)) {
+                    numberOf4Stars = readInt();
+                    seen |= 2;
+                } else if (keyEquals(PULL_INDEX)) {
+                    pullIndex = readInt();
+                    seen |= 4;
+                } else if (keyEquals(DRAW_COUNT)) {
+                    drawCount = readInt();
+                    seen |= 8;
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+        if (seen != ALL_FIELDS) {
+            String missing = FIELD_NAMES[Integer.numberOfTrailingZeros(~seen)];
+            throw new JSONException("JSONObject[\"" + missing + "\"] not found.");
+        }
+        loader.add(desired, numberOf4Stars, pullIndex, drawCount);
+    }
+
+    // EFFECTS: reads a JSON boolean literal
+    private boolean readBoolean() throws IOException {
+        int c = nextNonSpace();
+        if (c == 't') {
+            expectLiteral("rue");
+            return true;
+        } else if (c == 'f') {
+            expectLiteral("alse");
+            return false;
+        }
+        throw syntaxError("Expected a boolean");
+    }
+
+    // EFFECTS: reads a JSON number that must be an integer in int range
+    private int readInt() throws IOException {
+        int c = nextNonSpace();
+        boolean negative = c == '-';
+        if (negative) {
+            c = next();
+        }
+        if (c < '0' || c > '9') {
+            throw syntaxError("Expected an integer");
+        }
+        long value = c - '0';
+        while (isDigit(peek())) {
+            value = value * 10 + (next() - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw syntaxError("Integer out of range");
+            }
+        }
+        int after = peek();
+        if (after == '.' || after == 'e' || after == 'E') {
+            throw syntaxError("Expected an integer");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw syntaxError("Integer out of range");
+        }
+        return (int) value;
+    }
+
+    // EFFECTS: consumes one JSON value of any type without keeping it
+    private void skipValue() throws IOException {
+        int c = nextNonSpace();
+        if (c == '{') {
+            if (!closes('}')) {
+                do {
+                    readKey();
+                    expect(':');
+                    skipValue();
+                } while (nextMember('}'));
+            }
+        } else if (c == '[') {
+            if (!closes(']')) {
+                do {
+                    skipValue();
+                } while (nextMember(']'));
+            }
+        } else if (c == '"') {
+            readString(false);
+        } else if (c == 't') {
+            expectLiteral("rue");
+        } else if (c == 'f') {
+            expectLiteral("alse");
+        } else if (c == 'n') {
+            expectLiteral("ull");
+        } else if (c == '-' || isDigit(c)) {
+            skipNumber();
+        } else {
+            throw syntaxError("Expected a value");
+        }
+    }
+
+    // EFFECTS: consumes the rest of a number whose first character was already read
+    private void skipNumber() throws IOException {
+        int c = peek();
+        while (isDigit(c) || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+            next();
+            c = peek();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an object key into the key buffer
+    private void readKey() throws IOException {
+        if (nextNonSpace() != '"') {
+            throw syntaxError("Expected a key");
+        }
+        readString(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes a string whose opening quote was already read; if keep
+    //          is true, stores its UTF-8 bytes in the key buffer (keys longer
+    //          than the buffer are recorded as matching nothing)
+    private void readString(boolean keep) throws IOException {
+        keyLength = 0;
+        while (true) {
+            int c = next();
+            if (c == '"') {
+                return;
+            } else if (c == -1 || c < 0x20) {
+                throw syntaxError("Unterminated string");
+            } else if (c == '\\') {
+                c = readEscape();
+                if (keep && c >= 0x80) {
+                    appendCodeUnit(c);
+                    continue;
+                }
+            }
+            if (keep) {
+                appendKeyByte(c);
+            }
+        }
+    }
+
+    // EFFECTS: consumes an escape sequence after its backslash and returns the
+    //          character it stands for
+    private int readEscape() throws IOException {
+        int c = next();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Illegal escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return value;
+            default:
+                throw syntaxError("Illegal escape");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the UTF-8 encoding of an escaped UTF-16 code unit to the key buffer
+    private void appendCodeUnit(int c) {
+        if (c < 0x800) {
+            appendKeyByte(0xC0 | (c >> 6));
+        } else {
+            appendKeyByte(0xE0 | (c >> 12));
+            appendKeyByte(0x80 | ((c >> 6) & 0x3F));
+        }
+        appendKeyByte(0x80 | (c & 0x3F));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends b to the key buffer, or marks the key as too long
+    private void appendKeyByte(int b) {
+        if (keyLength < 0) {
+            return;
+        }
+        if (keyLength == key.length) {
+            keyLength = -1;
+            return;
+        }
+        key[keyLength++] = (byte) b;
+    }
+
+    // EFFECTS: returns true if the last key read equals expected
+    private boolean keyEquals(byte[] expected) {
+        return keyLength == expected.length && Arrays.equals(key, 0, keyLength, expected, 0, expected.length);
+    }
+
+    // EFFECTS: consumes the separator after an object member or array element;
+    //          returns true if another one follows, false if close ends the container
+    private boolean nextMember(char close) throws IOException {
+        int c = nextNonSpace();
+        if (c == ',') {
+            return true;
+        } else if (c == close) {
+            return false;
+        }
+        throw syntaxError("Expected ',' or '" + close + "'");
+    }
+
+    // EFFECTS: consumes close and returns true if it is the next non-space character
+    private boolean closes(char close) throws IOException {
+        if (peekNonSpace() == close) {
+            next();
+            return true;
+        }
+        return false;
+    }
+
+    // EFFECTS: consumes the next non-space character, which must be expected
+    private void expect(char expected) throws IOException {
+        if (nextNonSpace() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    // EFFECTS: consumes the given characters, which must come next
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (next() != rest.charAt(i)) {
+                throw syntaxError("Illegal literal");
+            }
+        }
+    }
+
+    // EFFECTS: skips whitespace and returns the next byte without consuming it, or -1 at end of file
+    private int peekNonSpace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    // EFFECTS: skips whitespace and consumes the next byte, or returns -1 at end of file
+    private int nextNonSpace() throws IOException {
+        peekNonSpace();
+        return next();
+    }
+
+    // EFFECTS: returns the next byte without consuming it, or -1 at end of file
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    // EFFECTS: consumes and returns the next byte, or returns -1 at end of file
+    private int next() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        position++;
+        return buffer.get() & 0xFF;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refills the empty buffer from the channel; returns false at end of file
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        return read > 0;
+    }
+
+    // EFFECTS: returns a JSONException describing a syntax error at the current position
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at byte " + position + " of " + source);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
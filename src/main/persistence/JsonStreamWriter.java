@@ -0,0 +1,265 @@
+package persistence;
+
+import model.GachaHistory;
+import model.HistoryGenerator;
+import model.LatencyHistogram;
+import model.Metrics;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a writer that streams the JSON representation of GachaHistory to file.
+ *
+ * Unlike JsonWriter, no JSONObject tree or String of the whole document is
+ * built: each pull's fields are encoded as UTF-8 straight into a fixed-size
+ * buffer that is drained to a FileChannel whenever it fills up. Output can be
+ * indented (the default) or compact, and is readable by both JsonReader and
+ * JsonStreamReader.
+ */
+public class JsonStreamWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_BYTES = 256;
+    private static final int TAB = 4;
+    private static final LatencyHistogram WRITE_TIME = Metrics.getInstance().histogram("JsonStreamWriter.write");
+
+    private String destination;
+    private boolean compact;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private byte[] digits;
+    private boolean firstRecord;
+
+    /**
+     * REQUIRES: destination is a valid file path where data can be written
+     * MODIFIES: this
+     * EFFECTS:  constructs a writer that streams indented JSON to destination file
+     */
+    public JsonStreamWriter(String destination) {
+        this(destination, false);
+    }
+
+    /**
+     * REQUIRES: destination is a valid file path where data can be written
+     * MODIFIES: this
+     * EFFECTS:  constructs a writer to stream to destination file; if compact
+     *           is true, no whitespace is written between tokens
+     */
+    public JsonStreamWriter(String destination, boolean compact) {
+        this.destination = destination;
+        this.compact = compact;
+    }
+
+    /**
+     * REQUIRES: destination file must be writable
+     * MODIFIES: this
+     * EFFECTS:  opens the destination for writing, replacing any existing
+     *           content; throws FileNotFoundException if the destination is
+     *           not a valid path, or IOException if it cannot be opened
+     */
+    public void open() throws IOException {
+        try {
+            channel = FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (InvalidPathException e) {
+            throw new FileNotFoundException(destination + " (" + e.getReason() + ")");
+        }
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        digits = new byte[11];
+    }
+
+    /**
+     * REQUIRES: writer is open
+     * MODIFIES: this
+     * EFFECTS:  streams the JSON representation of gachaHistory to file, and
+     *           records the time taken and the bytes and records written in
+     *           Metrics and as a HistorySaveEvent if one is being recorded;
+     *           throws IOException if the data cannot be written
+     */
+    public void write(GachaHistory gachaHistory) throws IOException {
+        HistorySaveEvent event = new HistorySaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long firstByte = channel.position() + buffer.position();
+        writeStart();
+        try {
+            gachaHistory.forEachPull(this::writePullUnchecked);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeEnd();
+        long elapsed = System.nanoTime() - start;
+        long bytes = channel.position() - firstByte;
+        int records = gachaHistory.getAllPulls().size();
+        WRITE_TIME.record(elapsed);
+        Metrics.getInstance().recordSave(bytes, records, elapsed);
+        event.commit("json-stream", destination, bytes, records);
+    }
+
+    /**
+     * REQUIRES: writer is open, count >= 0
+     * MODIFIES: this
+     * EFFECTS:  streams count records made by generator to file as they are
+     *           generated, without holding the whole history in memory;
+     *           throws IOException if the data cannot be written
+     */
+    public void write(HistoryGenerator generator, int count) throws IOException {
+        writeStart();
+        generator.generate(count, chunk -> {
+            try {
+                chunk.forEachPull(this::writePullUnchecked);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+        writeEnd();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes everything before the first pull object into the buffer
+    private void writeStart() throws IOException {
+        putAscii("{");
+        newLine(1);
+        putAscii(compact ? "\"pullRecords\":[" : "\"pullRecords\": [");
+        firstRecord = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes everything after the last pull object and drains the buffer
+    private void writeEnd() throws IOException {
+        if (!firstRecord) {
+            newLine(1);
+        }
+        putAscii("]");
+        newLine(0);
+        putAscii("}");
+        drain();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes one pull object like writePull, rethrowing IOException
+    //          as UncheckedIOException so it can be used as a PullVisitor
+    private void writePullUnchecked(boolean desired, int num4Stars, int pullIndex, int drawCount) {
+        try {
+            writePull(desired, num4Stars, pullIndex, drawCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * MODIFIES: this
+     * EFFECTS:  writes out any buffered data and closes the file;
+     *           throws IOException if the data cannot be written
+     */
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                drain();
+            } finally {
+                channel.close();
+                channel = null;
+                buffer = null;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: encodes one pull object into the buffer, draining it first if needed
+    private void writePull(boolean desired, int num4Stars, int pullIndex, int drawCount) throws IOException {
+        if (buffer.remaining() < MAX_RECORD_BYTES) {
+            drain();
+        }
+        if (!firstRecord) {
+            putAscii(",");
+        }
+        firstRecord = false;
+        newLine(2);
+        putAscii("{");
+        putField("desired5Star", 3);
+        putAscii(desired ? "true" : "false");
+        putAscii(",");
+        putField("numberOf4Stars", 3);
+        putInt(num4Stars);
+        putAscii(",");
+        putField("pullIndex", 3);
+        putInt(pullIndex);
+        putAscii(",");
+        putField("drawCount", 3);
+        putInt(drawCount);
+        newLine(2);
+        putAscii("}");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts a quoted key and its colon on a new line at the given depth
+    private void putField(String name, int depth) throws IOException {
+        newLine(depth);
+        putAscii("\"");
+        putAscii(name);
+        putAscii(compact ? "\":" : "\": ");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts a new line indented to depth, unless output is compact
+    private void newLine(int depth) throws IOException {
+        if (compact) {
+            return;
+        }
+        putAscii("\n");
+        for (int i = 0; i < depth * TAB; i++) {
+            put((byte) ' ');
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts the decimal digits of value without creating a String
+    private void putInt(int value) throws IOException {
+        long v = value;
+        if (v < 0) {
+            put((byte) '-');
+            v = -v;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        for (; i < digits.length; i++) {
+            put(digits[i]);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts the characters of an ASCII string
+    private void putAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put((byte) s.charAt(i));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts one byte, draining the buffer first if it is full
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes all buffered bytes to the channel and empties the buffer
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,6 +1,8 @@
 package persistence;
 
 import model.GachaHistory;
+import model.LatencyHistogram;
+import model.Metrics;
 import org.json.JSONObject;
 
 import java.io.File;
@@ -13,6 +15,7 @@ import java.io.UnsupportedEncodingException;
  */
 public class JsonWriter {
     private static final int TAB = 4;
+    private static final LatencyHistogram WRITE_TIME = Metrics.getInstance().histogram("JsonWriter.write");
     private PrintWriter writer;
     private String destination;
 
@@ -48,13 +51,25 @@ public class JsonWriter {
     /**
      * REQUIRES: writer is open
      * MODIFIES: this
-     * EFFECTS:  writes JSON representation of gachaHistory to file
+     * EFFECTS:  writes JSON representation of gachaHistory to file, and records
+     *           the time taken and the bytes and records written in Metrics,
+     *           and as a HistorySaveEvent if one is being recorded
      */
     public void write(GachaHistory gachaHistory) {
+        HistorySaveEvent event = new HistorySaveEvent();
+        event.begin();
+        long start = System.nanoTime();
         // 1) 通过 gachaHistory.toJson() 得到其 JSON 对象
         JSONObject json = gachaHistory.toJson();
         // 2) 将 JSON 对象转换成带缩进的字符串并写入文件
-        saveToFile(json.toString(TAB));
+        String jsonData = json.toString(TAB);
+        saveToFile(jsonData);
+        // 3) 记录耗时与吞吐量（字符数即 ASCII JSON 的字节数）
+        long elapsed = System.nanoTime() - start;
+        int records = gachaHistory.getAllPulls().size();
+        WRITE_TIME.record(elapsed);
+        Metrics.getInstance().recordSave(jsonData.length(), records, elapsed);
+        event.commit("json", destination, jsonData.length(), records);
     }
 
     /**
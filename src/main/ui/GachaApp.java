@@ -2,11 +2,21 @@ package ui;
 
 import model.GachaHistory;
 import model.GachaPull;
-import persistence.JsonReader;
-import persistence.JsonWriter;
+import model.Metrics;
+import model.PityDistribution;
+import model.PityModel;
+import model.PityRules;
+import persistence.HistoryJournal;
+import persistence.JsonStreamReader;
+import persistence.EventLogFileSink;
+import persistence.JsonStreamWriter;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Scanner;
 
@@ -22,6 +32,11 @@ public class GachaApp {
     private GachaHistory history;
     private Scanner scanner;
     private static final String DATA_FILE = "./data/gachaHistory.json";
+    private static final String EVENT_LOG_FILE = "./data/events.log";
+    private static final String SNAPSHOT_FILE = "./data/gachaHistory.bin";
+    private static final String JOURNAL_FILE = "./data/gachaHistory.journal";
+    private EventLogFileSink eventSink;
+    private HistoryJournal journal; // null unless changes are journaled
     /**
      * Requires: nothing
      * Modifies: this
@@ -30,8 +45,24 @@ public class GachaApp {
      */
 
     public GachaApp() {
+        this(false);
+    }
+
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects:  constructs a new GachaApp; if journaled, the history is replayed from
+     *           SNAPSHOT_FILE and JOURNAL_FILE when the app runs and every change is
+     *           appended to JOURNAL_FILE as it is made, instead of saving DATA_FILE.
+     */
+    public GachaApp(boolean journaled) {
+        if (journaled) {
+            journal = new HistoryJournal(SNAPSHOT_FILE, JOURNAL_FILE);
+        }
         history = new GachaHistory();
         scanner = new Scanner(System.in);
+        Metrics.getInstance().registerMBeans();
+        Metrics.getInstance().trackHistory(history);
         
     }
 
@@ -47,40 +78,128 @@ public class GachaApp {
      * Effects:  continuously reads user input, processes commands, and prints results until quit.
      */
     public void runGachaApp() {
+        startEventLogFile();
+        openJournal();
         boolean exit = false;
         while (!exit) {
             displayMenu();
             System.out.print("Enter command: ");
             String command = scanner.nextLine().trim().toLowerCase();
-            switch (command) {
-                case "add":
-                    addNewPull();
-                    break;
-                case "view":
-                    viewPulls();
-                    break;
-                case "remove":
-                    removePull();
-                    break;
-                case "stats":
-                    displayStats();
-                    break;
-                case "save":
-                    saveData();
-                    break;
-                case "load":
-                    loadData();
-                    break;
-                case "quit":
-                    exit = true;
-                    System.out.println("Exiting Gacha Statistics Tracker. Goodbye!");
-                    break;
-                default:
-                    System.out.println("Invalid command. Please try again.");
+            try {
+                exit = runCommand(command);
+            } catch (UncheckedIOException e) {
+                System.out.println("Error: Unable to write to journal: " + e.getCause().getMessage());
             }
         }
     }
 
+    /**
+     * Requires: nothing
+     * Modifies: this
+     * Effects:  carries out command and returns true if it was "quit".
+     */
+    private boolean runCommand(String command) {
+        boolean exit = false;
+        switch (command) {
+            case "add":
+                addNewPull();
+                break;
+            case "view":
+                viewPulls();
+                break;
+            case "remove":
+                removePull();
+                break;
+            case "stats":
+                displayStats();
+                break;
+            case "pity":
+                displayPityOdds();
+                break;
+            case "save":
+                saveData();
+                break;
+            case "load":
+                loadData();
+                break;
+            case "quit":
+                exit = true;
+                closeJournal();
+                stopEventLogFile();
+                System.out.println("Exiting Gacha Statistics Tracker. Goodbye!");
+                break;
+            default:
+                System.out.println("Invalid command. Please try again.");
+        }
+        return exit;
+    }
+
+    /**
+     * Starts copying logged events to EVENT_LOG_FILE in the background.
+     * Effects: prints a warning and carries on without the file if it cannot be opened.
+     */
+    private void startEventLogFile() {
+        eventSink = new EventLogFileSink(EVENT_LOG_FILE);
+        try {
+            eventSink.start();
+        } catch (IOException e) {
+            eventSink = null;
+            System.out.println("Warning: Unable to open event log file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replays the history from SNAPSHOT_FILE and JOURNAL_FILE if changes are journaled;
+     * from then on every change is appended to JOURNAL_FILE as it is made.
+     * Effects: prints a warning and falls back to saving DATA_FILE if the journal cannot be opened.
+     */
+    private void openJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            history = journal.open();
+            Metrics.getInstance().trackHistory(history);
+            System.out.println("Replayed " + history.getAllPulls().size() + " pulls from " + JOURNAL_FILE);
+        } catch (IOException | RuntimeException e) {
+            journal = null;
+            System.out.println("Warning: Unable to open journal, saving to " + DATA_FILE + " instead: "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops journaling changes and closes JOURNAL_FILE, if changes are journaled.
+     * Effects: prints an error message if the journal cannot be closed.
+     */
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error: Unable to close journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes any events still queued to EVENT_LOG_FILE and closes it.
+     * Effects: prints an error message if the events cannot be written.
+     */
+    private void stopEventLogFile() {
+        if (eventSink == null) {
+            return;
+        }
+        try {
+            eventSink.close();
+        } catch (IOException e) {
+            System.out.println("Error: Unable to write event log file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Displays the main menu of commands for the user.
      *
@@ -94,6 +213,7 @@ public class GachaApp {
         System.out.println(" - view   : View all recorded gacha pulls");
         System.out.println(" - remove : Remove a gacha pull record");
         System.out.println(" - stats  : Display statistics");
+        System.out.println(" - pity   : Estimate draws needed for the featured 5-star");
         System.out.println(" - save   : Save gacha history to file");
         System.out.println(" - load   : Load gacha history from file");
         System.out.println(" - quit   : Exit the application");
@@ -117,8 +237,12 @@ public class GachaApp {
             int drawCount = Integer.parseInt(scanner.nextLine().trim());
 
             GachaPull pull = new GachaPull(desired5Star, numberOf4Stars, pullIndex, drawCount);
+            boolean duplicate = history.containsPullIndex(pullIndex);
             history.addPull(pull);
             System.out.println("Gacha pull record added successfully.");
+            if (duplicate) {
+                System.out.println("Warning: pull index " + pullIndex + " was already recorded.");
+            }
         } catch (NumberFormatException e) {
             System.out.println("Invalid input. Enter valid integers for pull index, 4-star count, and draw count.");
         } catch (IllegalArgumentException e) {
@@ -155,15 +279,7 @@ public class GachaApp {
         System.out.print("Enter the pull index of the record to remove: ");
         try {
             int indexToRemove = Integer.parseInt(scanner.nextLine().trim());
-            GachaPull toRemove = null;
-            for (GachaPull pull : history.getAllPulls()) {
-                if (pull.getPullIndex() == indexToRemove) {
-                    toRemove = pull;
-                    break;
-                }
-            }
-            if (toRemove != null) {
-                history.removePull(toRemove);
+            if (history.removePullByIndex(indexToRemove)) {
                 System.out.println("Record removed successfully.");
             } else {
                 System.out.println("No record found with pull index: " + indexToRemove);
@@ -198,32 +314,88 @@ public class GachaApp {
         }
     }
 
+    /**
+     * Requires: nothing
+     * Modifies: nothing
+     * Effects:  Prompts for the current pity and guarantee, then displays how many draws give a
+     *           50% and a 90% chance of the featured 5-star under the standard pity rules, and how
+     *           closely the recorded draw counts follow those rules.
+     */
+    private void displayPityOdds() {
+        PityModel model = PityModel.of(PityRules.STANDARD);
+        try {
+            System.out.print("Enter draws since your last 5-star: ");
+            int pity = Integer.parseInt(scanner.nextLine().trim());
+            System.out.print("Is your next 5-star guaranteed to be featured? (yes/no): ");
+            String guaranteedInput = scanner.nextLine().trim().toLowerCase();
+            boolean guaranteed = guaranteedInput.equals("yes") || guaranteedInput.equals("y");
+
+            PityDistribution featured = model.getFeaturedDistribution(pity, guaranteed);
+            System.out.println("Rules: " + model.getRules());
+            System.out.println("Expected draws: " + String.format("%.1f", featured.getMean()));
+            System.out.println("Draws for a 50% chance: " + featured.drawsForProbability(0.5));
+            System.out.println("Draws for a 90% chance: " + featured.drawsForProbability(0.9));
+            if (history.getAllPulls().size() > 0) {
+                System.out.println("Largest gap between your draw counts and the rules: "
+                        + String.format("%.1f%%", model.compareWith(history) * 100));
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Please enter a valid integer.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     /**
      * Saves the current GachaHistory to a JSON file.
-     * Uses JsonWriter to write data to the default DATA_FILE.
+     * Uses JsonStreamWriter to stream data to a temporary file that then replaces DATA_FILE,
+     * so a failed save leaves the previous file intact. If changes are journaled, writes a
+     * new snapshot to SNAPSHOT_FILE and empties JOURNAL_FILE instead.
      * Effects: Persists current state and prints success or error messages.
      */
     private void saveData() {
-        JsonWriter writer = new JsonWriter(DATA_FILE);
+        if (journal != null) {
+            try {
+                journal.checkpoint();
+                System.out.println("Gacha history checkpointed successfully to " + SNAPSHOT_FILE);
+            } catch (IOException e) {
+                System.out.println("Error: Unable to write to file: " + e.getMessage());
+            }
+            return;
+        }
+        Path target = Paths.get(DATA_FILE);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        JsonStreamWriter writer = new JsonStreamWriter(temp.toString());
         try {
-            writer.open();
-            writer.write(history);
-            writer.close();
+            try {
+                writer.open();
+                writer.write(history);
+            } finally {
+                writer.close();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
             System.out.println("Gacha history saved successfully to " + DATA_FILE);
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: Unable to open file for writing: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error: Unable to write to file: " + e.getMessage());
         }
     }
 
     /**
      * Loads GachaHistory from a JSON file.
-     * Uses JsonReader to read data from the default DATA_FILE.
+     * Uses JsonStreamReader to stream data from the default DATA_FILE. If changes are
+     * journaled, replays SNAPSHOT_FILE and JOURNAL_FILE again instead.
      * Effects: Replaces current history with the loaded history and prints success or error messages.
      */
     private void loadData() {
-        JsonReader reader = new JsonReader(DATA_FILE);
+        if (journal != null) {
+            closeJournal();
+            openJournal();
+            return;
+        }
+        JsonStreamReader reader = new JsonStreamReader(DATA_FILE);
         try {
             history = reader.read();
+            Metrics.getInstance().trackHistory(history);
             System.out.println("Gacha history loaded successfully from " + DATA_FILE);
         } catch (IOException e) {
             System.out.println("Error: Unable to read from file: " + e.getMessage());
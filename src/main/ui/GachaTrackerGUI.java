@@ -3,11 +3,17 @@ package ui;
 
 import model.GachaHistory;
 import model.GachaPull;
-import persistence.JsonReader;
-import persistence.JsonWriter;
+import model.Metrics;
+import model.RollingStats;
+import persistence.AutosaveService;
+import persistence.EventLogFileSink;
+import persistence.HistoryJournal;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
@@ -19,27 +25,55 @@ import model.EventLog;
 
 public class GachaTrackerGUI extends JFrame {
     private static final String DATA_FILE = "./data/gachaHistory.json";
+    private static final long AUTOSAVE_QUIET_MILLIS = 2000;
+    private static final String EVENT_LOG_FILE = "./data/events.log";
+    private static final String SNAPSHOT_FILE = "./data/gachaHistory.bin";
+    private static final String JOURNAL_FILE = "./data/gachaHistory.journal";
+    private static final int[] ROLLING_WINDOWS = {10, 50, 100}; // 最近N次抽卡的统计窗口
+    private static final long EXIT_SAVE_WAIT_MILLIS = 10_000; // 退出时最多等待保存完成的时间
 
     private GachaHistory history;
-    private JsonReader reader;
-    private JsonWriter writer;
-    private DefaultListModel<String> listModel;
+    private RollingStats rollingStats;
+    private AutosaveService persistence;
+    private HistoryJournal journal; // null unless changes are journaled (逐条记录修改的日志)
+    private boolean autosaveEnabled; // only after the history was loaded from or saved to DATA_FILE
+    private boolean manualSavePending;
+    private PullListModel listModel;
+    private PullTableFrame tableFrame; // open table window, or null
+    private JLabel statusLabel;
+    private EventLogFileSink eventSink;
+    private boolean closing;
 
     private JList<String> recordList; // 新增定义
 
     public GachaTrackerGUI() {
+        this(false);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Creates and shows the window; if journaled, the history is replayed from
+    //          SNAPSHOT_FILE and JOURNAL_FILE and every change is appended to JOURNAL_FILE as
+    //          it is made, instead of autosaving DATA_FILE (日志模式：启动时恢复，逐条保存修改)
+    public GachaTrackerGUI(boolean journaled) {
         super("Gacha Statistics Tracker"); // 抽卡统计记录器
         history = new GachaHistory();
-        reader = new JsonReader(DATA_FILE);
-        writer = new JsonWriter(DATA_FILE);
+        rollingStats = new RollingStats(history, ROLLING_WINDOWS);
+        Metrics.getInstance().registerMBeans(); // 通过 JMX 公开运行指标
+        Metrics.getInstance().trackHistory(history);
+        persistence = new AutosaveService(DATA_FILE, AUTOSAVE_QUIET_MILLIS, () -> history,
+                SwingUtilities::invokeLater, new PersistenceListener());
 
         initializeUI();
+        startEventLogFile();
+        if (journaled) {
+            openJournal();
+        }
     }
 
     // MODIFIES: this
     // EFFECTS: Initializes and sets up the basic GUI layout (初始化并设置基本界面布局)
     private void initializeUI() {
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE); // 保存完成后由 exitAfterSaving 退出
         setSize(1000, 800);
         setLocationRelativeTo(null); 
     
@@ -48,10 +82,16 @@ public class GachaTrackerGUI extends JFrame {
         JLabel titleLabel = new JLabel("Welcome to Gacha Statistics Tracker", JLabel.CENTER);
         mainPanel.add(titleLabel, BorderLayout.NORTH);
     
-        mainPanel.add(createButtonPanel(), BorderLayout.SOUTH); // 抽取按钮面板创建
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(createButtonPanel(), BorderLayout.CENTER); // 抽取按钮面板创建
+        statusLabel = new JLabel(" ", JLabel.CENTER);
+        bottomPanel.add(statusLabel, BorderLayout.SOUTH);
+        mainPanel.add(bottomPanel, BorderLayout.SOUTH);
     
-        listModel = new DefaultListModel<>();
+        listModel = new PullListModel(history);
         recordList = new JList<>(listModel);
+        // 固定行高，避免 JList 为计算尺寸而格式化每一行
+        recordList.setPrototypeCellValue(PullListModel.PROTOTYPE_ROW);
         mainPanel.add(new JScrollPane(recordList), BorderLayout.CENTER);
 
         add(mainPanel);
@@ -60,15 +100,63 @@ public class GachaTrackerGUI extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                if (closing) {
+                    return;
+                }
+                closing = true;
                 System.out.println("Event log since app started:");
                 for (Event event : EventLog.getInstance()) {
                     System.out.println(event.toString());
                 }
+                closeJournal();
+                persistence.shutdown(); // 退出前写入未保存的修改
+                statusLabel.setText("Saving before exit...");
+                Thread exit = new Thread(GachaTrackerGUI.this::exitAfterSaving, "gui-exit");
+                exit.setDaemon(true);
+                exit.start();
             }
         });
         setVisible(true);
     }
     
+    // MODIFIES: this
+    // EFFECTS: Waits a bounded time for the final save, off the event dispatch thread so the
+    //          window keeps repainting and shows the save's progress, then closes the event
+    //          log file and exits (在后台等待最后一次保存完成后退出)
+    private void exitAfterSaving() {
+        try {
+            if (!persistence.awaitTermination(EXIT_SAVE_WAIT_MILLIS)) {
+                System.out.println("Gave up waiting for the final save after "
+                        + EXIT_SAVE_WAIT_MILLIS + " ms");
+            }
+            if (eventSink != null) {
+                eventSink.close();
+            }
+        } catch (IOException ex) {
+            System.out.println("Failed to write event log file: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        SwingUtilities.invokeLater(() -> {
+            dispose();
+            System.exit(0);
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Starts copying logged events to EVENT_LOG_FILE in the background so they
+    //          survive a crash; shows a status message if the file cannot be opened
+    //          (在后台把事件日志写入文件)
+    private void startEventLogFile() {
+        eventSink = new EventLogFileSink(EVENT_LOG_FILE);
+        try {
+            eventSink.start();
+        } catch (IOException ex) {
+            eventSink = null;
+            statusLabel.setText("Event log file unavailable: " + ex.getMessage());
+        }
+    }
+
     // 仅抽取按钮创建逻辑
     // EFFECTS: Create Button Layout
     private JPanel createButtonPanel() {
@@ -88,47 +176,134 @@ public class GachaTrackerGUI extends JFrame {
     
         JButton statsButton = new JButton("Stats");
         statsButton.addActionListener(e -> showStatsDialog());
+
+        JButton tableButton = new JButton("Table View");
+        tableButton.addActionListener(e -> showTableView());
     
         buttonPanel.add(loadButton);
         buttonPanel.add(saveButton);
         buttonPanel.add(addButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(statsButton);
+        buttonPanel.add(tableButton);
     
         return buttonPanel;
     }
 
-    // MODIFIES: this, history
-    // EFFECTS: Loads gacha history from JSON file and shows confirmation dialog
-    private void loadGachaHistory() {
+    // MODIFIES: this
+    // EFFECTS: Replays the history from SNAPSHOT_FILE and JOURNAL_FILE and journals every later
+    //          change; shows a status message and keeps using DATA_FILE if the journal cannot be
+    //          opened (从快照和日志恢复数据)
+    private void openJournal() {
+        HistoryJournal opened = new HistoryJournal(SNAPSHOT_FILE, JOURNAL_FILE);
         try {
-            history = reader.read();
-            listModel.clear(); // Clear previous records 清除旧记录
-            for (GachaPull pull : history.getAllPulls()) {
-                listModel.addElement("Pull #" + pull.getPullIndex() // 第x次抽卡
-                        + ": Desired 5-star? " + pull.isDesired5Star() // 是否期望的五星
-                        + ", #4-stars: " + pull.getNumberOf4Stars() // 四星数量
-                        + ", Total draws: " + pull.getDrawCount()); // 总抽数
-            }
-            JOptionPane.showMessageDialog(this, "Data loaded successfully!"); // 数据加载成功！
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Failed to load data: " + ex.getMessage()); // 数据加载失败
+            installHistory(opened.open());
+            journal = opened;
+            statusLabel.setText("Replayed " + history.getAllPulls().size() + " pulls from the journal");
+        } catch (IOException | RuntimeException ex) {
+            journal = null;
+            statusLabel.setText("Journal unavailable, using " + DATA_FILE + ": " + ex.getMessage());
         }
     }
 
-    // MODIFIES: none
-    // EFFECTS: Saves the current gacha history data to a JSON file and shows a
-    // confirmation dialog (将当前的抽卡历史数据保存到 JSON 文件，并显示成功或失败提示)
-    private void saveGachaHistory() {
+    // MODIFIES: this
+    // EFFECTS: Stops journaling changes and closes JOURNAL_FILE, if changes are journaled
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
         try {
-            writer.open();
-            writer.write(history);
-            writer.close();
-            JOptionPane.showMessageDialog(this, "Data saved successfully!"); // 数据保存成功！
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Failed to save data: " + ex.getMessage()); // 数据保存失败
+            journal.close();
+        } catch (IOException ex) {
+            System.out.println("Failed to close journal: " + ex.getMessage());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Shows that a change could not be journaled and redraws every view from the
+    //          history, which already holds the change (日志写入失败时提示并刷新界面)
+    private void journalFailed(UncheckedIOException ex) {
+        installHistory(history);
+        statusLabel.setText("Journal write failed");
+        JOptionPane.showMessageDialog(this,
+                "Failed to write journal: " + ex.getCause().getMessage()); // 日志写入失败
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Shows loaded in every view and tracks its statistics (切换当前显示的数据)
+    private void installHistory(GachaHistory loaded) {
+        history = loaded;
+        Metrics.getInstance().trackHistory(history);
+        rollingStats.detach();
+        rollingStats = new RollingStats(history, ROLLING_WINDOWS);
+        showAllPulls();
+        if (tableFrame != null && tableFrame.isDisplayable()) {
+            tableFrame.setHistory(history);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Starts loading gacha history from the JSON file in the background;
+    //          PersistenceListener shows the result (后台读取文件，结果由 PersistenceListener 显示).
+    //          If changes are journaled, replays the snapshot and journal again instead.
+    private void loadGachaHistory() {
+        if (journal != null) {
+            closeJournal();
+            openJournal();
+            return;
         }
+        statusLabel.setText("Loading data...");
+        persistence.load();
     }
+
+    // MODIFIES: this
+    // EFFECTS: Snapshots the current gacha history and saves it to the JSON file in the
+    //          background; PersistenceListener shows the result (快照当前数据并在后台保存).
+    //          If changes are journaled, writes a new snapshot and empties the journal instead.
+    private void saveGachaHistory() {
+        if (journal != null) {
+            try {
+                journal.checkpoint();
+                statusLabel.setText("Checkpointed " + history.getAllPulls().size() + " pulls");
+                JOptionPane.showMessageDialog(this, "Data saved successfully!"); // 数据保存成功！
+            } catch (IOException ex) {
+                statusLabel.setText("Save failed");
+                JOptionPane.showMessageDialog(this,
+                        "Failed to save data: " + ex.getMessage()); // 数据保存失败
+            }
+            return;
+        }
+        manualSavePending = true;
+        autosaveEnabled = true;
+        persistence.saveNow();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Schedules an autosave of the edited history once edits have been quiet,
+    //          if the history belongs to DATA_FILE (编辑停止后自动保存)
+    private void historyChanged() {
+        if (autosaveEnabled) {
+            persistence.changed();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Shows the records of history in the list; rows are formatted only when
+    //          they are displayed (切换列表显示的数据，只在显示时格式化)
+    private void showAllPulls() {
+        listModel.setHistory(history);
+    }
+    // MODIFIES: this
+    // EFFECTS: Opens a sortable, filterable table of the records, or brings the open one
+    //          to the front (打开可排序、筛选的表格窗口)
+    private void showTableView() {
+        if (tableFrame != null && tableFrame.isDisplayable()) {
+            tableFrame.toFront();
+            return;
+        }
+        tableFrame = new PullTableFrame(new PullTableModel(history), this);
+    }
+
     // REQUIRES: none
     // MODIFIES: this, history, listModel
     // EFFECTS: Prompts user to input details for a new gacha pull and adds it to the history.
@@ -142,9 +317,18 @@ public class GachaTrackerGUI extends JFrame {
             int numberOf4Stars = promptForInt("Enter number of 4-star items:");
             int drawCount = promptForInt("Enter total draw count:");
 
+            boolean duplicate = history.containsPullIndex(pullIndex);
             addPullAndUpdateView(pullIndex, desired5Star, numberOf4Stars, drawCount);
 
-            JOptionPane.showMessageDialog(this, "Record added successfully!");
+            if (duplicate) {
+                // 抽卡序号重复时提醒用户，但仍然保留记录
+                JOptionPane.showMessageDialog(this,
+                        "Record added, but pull #" + pullIndex + " was already recorded.",
+                        "Duplicate Pull Index",
+                        JOptionPane.WARNING_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Record added successfully!");
+            }
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Input format error! Please enter valid numbers.");
         } catch (RuntimeException ex) {
@@ -183,19 +367,25 @@ public class GachaTrackerGUI extends JFrame {
     
     // REQUIRES: numberOf4Stars >= 0, drawCount >= 0
     // MODIFIES: this, history, listModel
-    // EFFECTS: Creates a new GachaPull object using given details, adds it to the history,
-    //          and updates the GUI listModel to display the new record.
+    // EFFECTS: Creates a new GachaPull object using given details and adds it to the history;
+    //          listModel is notified by the history and shows the new record. If the change
+    //          cannot be journaled, shows the failure and rethrows it.
     //          (创建新的GachaPull记录，更新历史记录和GUI界面显示)
     private void addPullAndUpdateView(int pullIndex, boolean desired5Star, int numberOf4Stars, int drawCount) {
         GachaPull newPull = new GachaPull(desired5Star, numberOf4Stars, pullIndex, drawCount);
-        history.addPull(newPull);
-        listModel.addElement("Pull #" + pullIndex + ": Desired 5-star? " + desired5Star
-                + ", #4-stars: " + numberOf4Stars + ", Total draws: " + drawCount);
+        try {
+            history.addPull(newPull);
+        } catch (UncheckedIOException ex) {
+            journalFailed(ex);
+            throw ex;
+        }
+        historyChanged();
     }
 
     // REQUIRES: recordList != null
     // MODIFIES: this, history, listModel
-    // EFFECTS: Deletes selected pull from history and updates the GUI immediately.
+    // EFFECTS: Deletes selected pull from history; listModel is notified by the history
+    // and updates the GUI immediately.
     // If no pull is selected, shows an error dialog.
     private void deleteSelectedPull(JList<String> recordList) {
         int selectedIndex = recordList.getSelectedIndex();
@@ -208,11 +398,14 @@ public class GachaTrackerGUI extends JFrame {
             return;
         }
 
-        // Remove from data model (GachaHistory)
-        history.removePull(selectedIndex);
-
-        // Remove from GUI list model to update interface immediately
-        listModel.remove(selectedIndex);
+        // Remove from data model (GachaHistory); listModel fires the removal itself
+        try {
+            history.removePull(selectedIndex);
+        } catch (UncheckedIOException ex) {
+            journalFailed(ex);
+            return;
+        }
+        historyChanged();
 
         JOptionPane.showMessageDialog(this,
                 "Selected pull record deleted successfully!");
@@ -221,7 +414,8 @@ public class GachaTrackerGUI extends JFrame {
     // REQUIRES: none
     // MODIFIES: none
     // EFFECTS: Displays a dialog window showing current statistics including 
-    // desired 5-star rate and average number of 4-star items per pull. 
+    // desired 5-star rate and average number of 4-star items per pull, overall and
+    // over the last ROLLING_WINDOWS pulls.
     //          Allows the user to input an official desired 5-star rate for comparison. 
     //          If user clicks OK, performs threshold comparison.
     //          (显示统计数据弹窗界面，包括五星概率、四星平均个数，并允许输入官方概率进行比较；用户点击确定后进行概率比较)
@@ -231,12 +425,19 @@ public class GachaTrackerGUI extends JFrame {
         double fourStarAvg = history.calculateFourStarAvg();
 
         // 创建弹窗界面
-        JPanel statsPanel = new JPanel(new GridLayout(4, 1, 10, 10));
+        JPanel statsPanel = new JPanel(new GridLayout(4 + ROLLING_WINDOWS.length, 1, 10, 10));
 
         // 显示当前统计数据
         statsPanel.add(new JLabel("Desired 5-star rate: " + String.format("%.2f%%", desiredRate * 100)));
         statsPanel.add(new JLabel("Average number of 4-star items per pull: " + String.format("%.2f", fourStarAvg)));
 
+        // 显示最近N次抽卡的滚动统计
+        for (int window : ROLLING_WINDOWS) {
+            statsPanel.add(new JLabel(String.format("Last %d pulls (%d recorded): 5-star rate %.2f%%, 4-star avg %.2f",
+                    window, rollingStats.getCount(window), rollingStats.getFiveStarRate(window) * 100,
+                    rollingStats.getFourStarAvg(window))));
+        }
+
         // 输入官方五星概率
         JTextField thresholdField = new JTextField();
         statsPanel.add(new JLabel("Enter official desired 5-star rate (e.g., 0.60):"));
@@ -256,7 +457,8 @@ public class GachaTrackerGUI extends JFrame {
     // MODIFIES: none
     // EFFECTS: Parses user's input threshold and compares it with the actual desired 5-star rate. 
     //          Displays a dialog informing user whether actual rate is above or below the official threshold.
-    //          Then opens a new window displaying a bar chart comparison. If input is invalid, shows error dialog.
+    //          Then opens a new window displaying a bar chart comparison, and a window testing whether
+    //          the difference is significant. If input is invalid, shows error dialog.
     //          (根据输入的官方概率与实际概率进行比较，并弹窗提示用户比较结果，然后打开柱状图窗口；若输入无效则显示错误提示)
     private void performThresholdComparison(String thresholdStr, double actualRate) {
         try {
@@ -276,6 +478,9 @@ public class GachaTrackerGUI extends JFrame {
             JOptionPane.showMessageDialog(this, message, "Comparison Result", JOptionPane.INFORMATION_MESSAGE);
 
             displayChart(actualRate, threshold); // 仅提取图表方法即可
+            if (threshold >= 0 && threshold <= 1) {
+                new SignificanceDialog(this, history, threshold); // 检验差异是否显著
+            }
             
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid threshold input. Please enter a valid number.",
@@ -296,7 +501,52 @@ public class GachaTrackerGUI extends JFrame {
         chartFrame.setVisible(true);
     }
 
+    /**
+     * Shows the results of background loads and saves; runs on the event dispatch thread.
+     */
+    private class PersistenceListener implements AutosaveService.Listener {
+        @Override
+        public void saveStarted(int pulls) {
+            statusLabel.setText("Saving " + pulls + " pulls...");
+        }
+
+        @Override
+        public void saveCompleted(int pulls, long millis) {
+            statusLabel.setText("Saved " + pulls + " pulls in " + millis + " ms");
+            if (manualSavePending) {
+                manualSavePending = false;
+                JOptionPane.showMessageDialog(GachaTrackerGUI.this,
+                        "Data saved successfully!"); // 数据保存成功！
+            }
+        }
+
+        @Override
+        public void saveFailed(Exception e) {
+            manualSavePending = false;
+            statusLabel.setText("Save failed");
+            JOptionPane.showMessageDialog(GachaTrackerGUI.this,
+                    "Failed to save data: " + e.getMessage()); // 数据保存失败
+        }
+
+        @Override
+        public void loadCompleted(GachaHistory loaded, long millis) {
+            installHistory(loaded);
+            autosaveEnabled = true;
+            statusLabel.setText("Loaded " + loaded.getAllPulls().size() + " pulls in " + millis + " ms");
+            JOptionPane.showMessageDialog(GachaTrackerGUI.this, "Data loaded successfully!"); // 数据加载成功！
+        }
+
+        @Override
+        public void loadFailed(Exception e) {
+            statusLabel.setText("Load failed");
+            JOptionPane.showMessageDialog(GachaTrackerGUI.this,
+                    "Failed to load data: " + e.getMessage()); // 数据加载失败
+        }
+    }
+
+    // EFFECTS: Starts the GUI; with the argument --journal every change is journaled as it is
+    //          made instead of autosaved (使用 --journal 参数启用日志模式)
     public static void main(String[] args) {
-        new GachaTrackerGUI();
+        new GachaTrackerGUI(Arrays.asList(args).contains("--journal"));
     }
 }
@@ -0,0 +1,57 @@
+package ui;
+
+import model.HistoryGenerator;
+import model.PityRules;
+import persistence.BinaryWriter;
+import persistence.JsonStreamWriter;
+
+import java.io.IOException;
+
+/**
+ * Command-line entry point that writes a synthetic history file for load
+ * testing, e.g. java ui.GenerateHistory 100000000 ./data/large.bin 42
+ *
+ * Files ending in ".bin" are written in the binary format, anything else as
+ * compact JSON. Records follow the standard 5-star and 4-star pity rules.
+ */
+public class GenerateHistory {
+
+    /**
+     * Requires: args holds a record count >= 0, a writable file path and
+     *           optionally a seed
+     * Modifies: none
+     * Effects:  generates the records and writes them to the file, then prints
+     *           how long it took.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: GenerateHistory <record count> <file> [seed]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        String file = args[1];
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        HistoryGenerator generator = new HistoryGenerator(PityRules.STANDARD, HistoryGenerator.STANDARD_FOUR_STAR,
+                seed);
+
+        long start = System.nanoTime();
+        if (file.endsWith(".bin")) {
+            BinaryWriter writer = new BinaryWriter(file);
+            try {
+                writer.open();
+                writer.write(generator, count);
+            } finally {
+                writer.close();
+            }
+        } else {
+            JsonStreamWriter writer = new JsonStreamWriter(file, true);
+            try {
+                writer.open();
+                writer.write(generator, count);
+            } finally {
+                writer.close();
+            }
+        }
+        System.out.printf("Wrote %d records to %s in %.2f s%n", count, file, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -1,5 +1,7 @@
 package ui;
 
+import java.util.Arrays;
+
 /**
  * The main entry point for running the Gacha Statistics Tracker in console mode.
  * Contains only a short main method to instantiate and run the GachaApp.
@@ -9,9 +11,10 @@ public class Main {
     /**
      * Requires: nothing
      * Modifies: none
-     * Effects:  creates and runs the console-based GachaApp.
+     * Effects:  creates and runs the console-based GachaApp; with the argument --journal
+     *           every change is journaled as it is made instead of saved on request.
      */
     public static void main(String[] args) {
-        new GachaApp().runGachaApp();
+        new GachaApp(Arrays.asList(args).contains("--journal")).runGachaApp();
     }
 }
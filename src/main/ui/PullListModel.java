@@ -0,0 +1,92 @@
+package ui;
+
+import model.GachaHistory;
+import model.GachaHistoryListener;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * List model that shows the pull records of a GachaHistory in a JList.
+ * (显示抽卡记录的列表模型)
+ *
+ * Rows are read straight from the history's columns (no GachaPull views are
+ * created) and formatted only when the list asks for them, i.e. when a cell
+ * is rendered, so showing a history costs nothing per record. The model
+ * listens to the history and reports each add, removal or edit to the list
+ * as a single interval event.
+ */
+public class PullListModel extends AbstractListModel<String> implements GachaHistoryListener {
+    private static final long serialVersionUID = 1L;
+
+    /** a typical row, for lists that size their cells without asking for every row */
+    public static final String PROTOTYPE_ROW =
+            format(false, 10, 1000000, 1000);
+
+    private GachaHistory history;
+
+    // REQUIRES: history is not null
+    // MODIFIES: this, history
+    // EFFECTS: creates a model showing history and starts listening to it
+    public PullListModel(GachaHistory history) {
+        this.history = history;
+        history.addListener(this);
+    }
+
+    // REQUIRES: history is not null; called on the event dispatch thread
+    // MODIFIES: this, history
+    // EFFECTS: stops showing the current history and shows the given one instead
+    //          (切换为显示另一个 history)
+    public void setHistory(GachaHistory newHistory) {
+        int oldSize = getSize();
+        history.removeListener(this);
+        history = newHistory;
+        history.addListener(this);
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (getSize() > 0) {
+            fireIntervalAdded(this, 0, getSize() - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return history.getAllPulls().size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String[] text = new String[1];
+        history.visitPull(index, (desired5Star, numberOf4Stars, pullIndex, drawCount) ->
+                text[0] = format(desired5Star, numberOf4Stars, pullIndex, drawCount));
+        return text[0];
+    }
+
+    @Override
+    public void pullAdded(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        fireIntervalAdded(this, position, position);
+    }
+
+    @Override
+    public void pullsAdded(GachaHistory source, int firstPosition, int count) {
+        fireIntervalAdded(this, firstPosition, firstPosition + count - 1);
+    }
+
+    @Override
+    public void pullRemoved(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        fireIntervalRemoved(this, position, position);
+    }
+
+    @Override
+    public void pullChanged(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        fireContentsChanged(this, position, position);
+    }
+
+    // EFFECTS: returns the text shown for a pull with the given values
+    private static String format(boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        return "Pull #" + pullIndex // 第x次抽卡
+                + ": Desired 5-star? " + desired5Star // 是否期望的五星
+                + ", #4-stars: " + numberOf4Stars // 四星数量
+                + ", Total draws: " + drawCount; // 总抽数
+    }
+}
@@ -0,0 +1,163 @@
+package ui;
+
+import model.GachaHistory;
+import model.PullField;
+import model.PullFilter;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * Window showing the pull records in a table that can be sorted by clicking
+ * a column header and filtered with the range fields above it.
+ * (可排序、可筛选的抽卡记录表格窗口)
+ *
+ * The filter is applied on every keystroke; typing a stricter bound only
+ * re-tests the rows that are still shown.
+ */
+public class PullTableFrame extends JFrame {
+    private static final long serialVersionUID = 1L;
+    private static final PullField[] RANGE_FIELDS = {
+        PullField.PULL_INDEX, PullField.NUMBER_OF_4_STARS, PullField.DRAW_COUNT
+    };
+    private static final String[] DESIRED_CHOICES = {"Any", "Yes", "No"};
+
+    private final PullTableModel tableModel;
+    private final JTable table;
+    private final JTextField[] fromFields = new JTextField[RANGE_FIELDS.length];
+    private final JTextField[] toFields = new JTextField[RANGE_FIELDS.length];
+    private final JComboBox<String> desiredChoice = new JComboBox<>(DESIRED_CHOICES);
+    private final JLabel countLabel = new JLabel(" ");
+
+    // REQUIRES: tableModel is not null
+    // MODIFIES: this
+    // EFFECTS: creates and shows a window displaying tableModel; the model stops
+    //          listening to its history when the window is closed
+    public PullTableFrame(PullTableModel tableModel, Component parent) {
+        super("Pull Records Table"); // 抽卡记录表格
+        this.tableModel = tableModel;
+        this.table = new JTable(tableModel);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(800, 600);
+        setLocationRelativeTo(parent);
+
+        // 点击表头排序（不使用 TableRowSorter）
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    tableModel.toggleSort(table.convertColumnIndexToModel(column));
+                    updateHeaders();
+                    updateCount();
+                }
+            }
+        });
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.add(createFilterPanel(), BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+        mainPanel.add(countLabel, BorderLayout.SOUTH);
+        add(mainPanel);
+
+        tableModel.addTableModelListener(e -> updateCount());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                tableModel.detach();
+            }
+        });
+        updateCount();
+        setVisible(true);
+    }
+
+    // REQUIRES: called on the event dispatch thread
+    // MODIFIES: this
+    // EFFECTS: shows the records of history instead, keeping the filter and sort order
+    public void setHistory(GachaHistory history) {
+        tableModel.setHistory(history);
+    }
+
+    // EFFECTS: returns the panel with a from/to field per numeric field and a
+    //          choice for the desired flag (筛选面板)
+    private JPanel createFilterPanel() {
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        DocumentListener onEdit = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        };
+        for (int i = 0; i < RANGE_FIELDS.length; i++) {
+            fromFields[i] = new JTextField(5);
+            toFields[i] = new JTextField(5);
+            fromFields[i].getDocument().addDocumentListener(onEdit);
+            toFields[i].getDocument().addDocumentListener(onEdit);
+            filterPanel.add(new JLabel(RANGE_FIELDS[i].getLabel() + ":"));
+            filterPanel.add(fromFields[i]);
+            filterPanel.add(new JLabel("to"));
+            filterPanel.add(toFields[i]);
+        }
+        desiredChoice.addActionListener(e -> applyFilter());
+        filterPanel.add(new JLabel(PullField.DESIRED_5_STAR.getLabel() + ":"));
+        filterPanel.add(desiredChoice);
+        return filterPanel;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: builds a filter from the fields and applies it; empty or invalid
+    //          bounds are treated as unbounded (根据输入筛选；空白或无效输入视为不限)
+    private void applyFilter() {
+        PullFilter filter = PullFilter.ALL;
+        for (int i = 0; i < RANGE_FIELDS.length; i++) {
+            filter = filter.withRange(RANGE_FIELDS[i], parseBound(fromFields[i].getText(), 0),
+                    parseBound(toFields[i].getText(), Integer.MAX_VALUE));
+        }
+        int choice = desiredChoice.getSelectedIndex();
+        filter = filter.withDesired5Star(choice == 0 ? null : choice == 1);
+        tableModel.setFilter(filter);
+    }
+
+    // EFFECTS: returns text as a non-negative int, or unbounded if it is not one
+    private static int parseBound(String text, int unbounded) {
+        try {
+            int value = Integer.parseInt(text.trim());
+            return value >= 0 ? value : unbounded;
+        } catch (NumberFormatException e) {
+            return unbounded;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows the sort arrow in the header of the sorted column
+    private void updateHeaders() {
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            int column = table.convertColumnIndexToModel(i);
+            table.getColumnModel().getColumn(i).setHeaderValue(tableModel.getColumnName(column));
+        }
+        table.getTableHeader().repaint();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows how many records are shown and how long the last query took
+    private void updateCount() {
+        countLabel.setText("Showing " + tableModel.getRowCount() + " of " + tableModel.getTotalCount()
+                + " pulls (" + tableModel.getLastQueryMillis() + " ms)");
+    }
+}
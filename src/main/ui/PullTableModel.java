@@ -0,0 +1,171 @@
+package ui;
+
+import model.GachaHistory;
+import model.GachaHistoryListener;
+import model.PullField;
+import model.PullFilter;
+import model.PullQuery;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that shows the pull records of a GachaHistory with one column
+ * per PullField, sorted and filtered by a PullQuery.
+ * (按字段排序、筛选的抽卡记录表格模型)
+ *
+ * Sorting and filtering work on the history's columns through the query's
+ * int[] permutation and bitset instead of a TableRowSorter, so no boxed
+ * values are compared; cells are only read when the table renders them.
+ */
+public class PullTableModel extends AbstractTableModel implements GachaHistoryListener {
+    private static final long serialVersionUID = 1L;
+    private static final PullField[] COLUMNS = PullField.values();
+    // batches up to this size are added one record at a time; larger ones
+    // re-filter and re-sort the whole history
+    private static final int INCREMENTAL_LIMIT = 64;
+
+    private GachaHistory history;
+    private PullQuery query;
+    private long lastQueryMillis;
+
+    // REQUIRES: history is not null
+    // MODIFIES: this, history
+    // EFFECTS: creates a model showing every record of history in history order
+    //          and starts listening to it
+    public PullTableModel(GachaHistory history) {
+        this.history = history;
+        this.query = new PullQuery(history);
+        history.addListener(this);
+    }
+
+    // REQUIRES: newHistory is not null; called on the event dispatch thread
+    // MODIFIES: this, newHistory
+    // EFFECTS: shows newHistory instead, keeping the current filter and sort order
+    public void setHistory(GachaHistory newHistory) {
+        PullQuery newQuery = new PullQuery(newHistory);
+        newQuery.setFilter(query.getFilter());
+        newQuery.sortBy(query.getSortField(), query.isAscending());
+        history.removeListener(this);
+        history = newHistory;
+        query = newQuery;
+        history.addListener(this);
+        fireTableDataChanged();
+    }
+
+    // MODIFIES: this, history
+    // EFFECTS: stops listening to the history, e.g. when the table is closed
+    public void detach() {
+        history.removeListener(this);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows only the records accepted by filter (只显示符合条件的记录)
+    public void setFilter(PullFilter filter) {
+        long start = System.nanoTime();
+        query.setFilter(filter);
+        lastQueryMillis = (System.nanoTime() - start) / 1_000_000;
+        fireTableDataChanged();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sorts by the field shown in column; sorting by the current sort column
+    //          again reverses the order (按列排序，再次点击则反向)
+    public void toggleSort(int column) {
+        PullField field = COLUMNS[column];
+        boolean ascending = field != query.getSortField() || !query.isAscending();
+        long start = System.nanoTime();
+        query.sortBy(field, ascending);
+        lastQueryMillis = (System.nanoTime() - start) / 1_000_000;
+        fireTableDataChanged();
+    }
+
+    // EFFECTS: returns how long the last filter or sort took, in milliseconds
+    public long getLastQueryMillis() {
+        return lastQueryMillis;
+    }
+
+    // EFFECTS: returns the number of records in the history, filtered or not
+    public int getTotalCount() {
+        return history.getAllPulls().size();
+    }
+
+    // EFFECTS: returns the history position of the record shown in row
+    public int positionAt(int row) {
+        return query.positionAt(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return query.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        String name = COLUMNS[column].getLabel();
+        if (COLUMNS[column] == query.getSortField()) {
+            name += query.isAscending() ? " ▲" : " ▼";
+        }
+        return name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMNS[column] == PullField.DESIRED_5_STAR ? Boolean.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int value = COLUMNS[column].valueAt(history, query.positionAt(row));
+        if (COLUMNS[column] == PullField.DESIRED_5_STAR) {
+            return value == 1;
+        }
+        return value;
+    }
+
+    // A single added, removed or edited record is moved into or out of the
+    // query in place, so the table only re-sorts everything for large batches.
+    // (单条记录增量更新，只有大批量导入才重新排序)
+
+    @Override
+    public void pullAdded(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        int row = query.rowAdded(position);
+        if (row >= 0) {
+            fireTableRowsInserted(row, row);
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    @Override
+    public void pullsAdded(GachaHistory source, int firstPosition, int count) {
+        if (count <= INCREMENTAL_LIMIT) {
+            for (int position = firstPosition; position < firstPosition + count; position++) {
+                query.rowAdded(position);
+            }
+        } else {
+            query.refresh();
+        }
+        fireTableDataChanged();
+    }
+
+    @Override
+    public void pullRemoved(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        int row = query.rowRemoved(position);
+        if (row >= 0) {
+            fireTableRowsDeleted(row, row);
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    @Override
+    public void pullChanged(int position, boolean desired5Star, int numberOf4Stars, int pullIndex, int drawCount) {
+        query.rowChanged(position);
+        fireTableDataChanged();
+    }
+}
@@ -0,0 +1,92 @@
+package ui;
+
+import model.GachaHistory;
+import model.SignificanceTest;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Window that runs a SignificanceTest in the background, showing its progress
+ * and then its p-value and confidence band.
+ * (后台运行显著性检验并显示进度和结果)
+ */
+public class SignificanceDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+    private static final int SIMULATIONS = 1_000_000;
+    private static final double CONFIDENCE_LEVEL = 0.95;
+    private static final int PROGRESS_MILLIS = 100;
+
+    private final SignificanceTest test;
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private final JLabel resultLabel = new JLabel("Simulating " + SIMULATIONS + " histories...");
+    private final JButton cancelButton = new JButton("Cancel");
+    private final Timer progressTimer;
+
+    // REQUIRES: 0 <= officialRate <= 1; called on the event dispatch thread
+    // MODIFIES: this
+    // EFFECTS: snapshots history, shows the window and starts the simulation on a
+    //          background thread; closing the window or pressing Cancel stops it
+    public SignificanceDialog(Frame owner, GachaHistory history, double officialRate) {
+        super(owner, "Significance Test", false); // 显著性检验
+        test = new SignificanceTest(history, officialRate);
+
+        JPanel panel = new JPanel(new GridLayout(3, 1, 10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(resultLabel);
+        progressBar.setStringPainted(true);
+        panel.add(progressBar);
+        cancelButton.addActionListener(e -> test.cancel());
+        panel.add(cancelButton);
+        add(panel);
+
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                test.cancel();
+            }
+        });
+        progressTimer = new Timer(PROGRESS_MILLIS,
+                e -> progressBar.setValue((int) (test.getProgress() * 100)));
+        pack();
+        setLocationRelativeTo(owner);
+        setVisible(true);
+
+        progressTimer.start();
+        Thread worker = new Thread(() -> simulate(officialRate), "significance-test");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // EFFECTS: runs the test and shows its outcome on the event dispatch thread
+    private void simulate(double officialRate) {
+        try {
+            SignificanceTest.Result result = test.run(SIMULATIONS, CONFIDENCE_LEVEL, System.nanoTime());
+            SwingUtilities.invokeLater(() -> showResult(result, officialRate));
+        } catch (CancellationException e) {
+            SwingUtilities.invokeLater(() -> finish("Cancelled."));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows the p-value and the band of rates expected at the official rate
+    private void showResult(SignificanceTest.Result result, double officialRate) {
+        finish(String.format("<html>Observed rate %.3f%% vs official %.3f%%<br>"
+                        + "p-value (rate this high by luck): %.4f<br>"
+                        + "%.0f%% of simulated histories: %.3f%% to %.3f%%</html>",
+                result.getObservedRate() * 100, officialRate * 100, result.getPValue(),
+                result.getConfidenceLevel() * 100, result.getBandLow() * 100, result.getBandHigh() * 100));
+        progressBar.setValue(100);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the progress updates and shows message
+    private void finish(String message) {
+        progressTimer.stop();
+        resultLabel.setText(message);
+        cancelButton.setEnabled(false);
+        pack();
+    }
+}
@@ -0,0 +1,111 @@
+package ui;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command-line load test client for StatsServer, e.g.
+ * java ui.StatsLoadTest http://localhost:8080 200000 10000 0.2
+ *
+ * Sends the given number of requests keeping the given number in flight at
+ * once, and then prints the throughput and the latency percentiles. The
+ * client keeps connections alive and reuses them from its pool, so this
+ * measures request handling rather than connection setup. The given share of requests add one pull; the rest
+ * alternate between reading the statistics and a threshold check.
+ */
+public class StatsLoadTest {
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 100.0};
+
+    /**
+     * Requires: args holds the server's base URL and optionally a request
+     *           count >= 1, a concurrency >= 1 and a write share in [0, 1]
+     * Modifies: none
+     * Effects:  runs the load test against the server and prints a summary;
+     *           requests that fail or get an error status are counted and
+     *           left out of the latencies.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: StatsLoadTest <base url> [requests] [concurrency] [write share]");
+            return;
+        }
+        String base = args[0];
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        double writeShare = args.length > 3 ? Double.parseDouble(args[3]) : 0.2;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        long[] latencies = new long[requests];
+        SplittableRandom random = new SplittableRandom(1L);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = nextRequest(base, i, random.nextDouble() < writeShare, random);
+            inFlight.acquire();
+            int slot = i;
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (error == null && response.statusCode() < 400) {
+                    latencies[slot] = System.nanoTime() - sent;
+                } else {
+                    latencies[slot] = -1;
+                    failures.incrementAndGet();
+                }
+                completed.incrementAndGet();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] succeeded = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        System.out.printf("%d requests, %d in flight: %.0f requests/s, %d failed%n",
+                completed.get(), concurrency, completed.get() / seconds, failures.get());
+        for (double p : PERCENTILES) {
+            System.out.printf("  p%-5s %8.2f ms%n", p == 100.0 ? "max" : trim(p), percentile(succeeded, p) / 1e6);
+        }
+    }
+
+    // EFFECTS: returns the i-th request: a new pull if write is true, and
+    //          otherwise a statistics read or a threshold check
+    private static HttpRequest nextRequest(String base, int i, boolean write, SplittableRandom random) {
+        if (write) {
+            String body = String.format("{\"desired5Star\":%b,\"numberOf4Stars\":%d,\"pullIndex\":%d,\"drawCount\":%d}",
+                    random.nextBoolean(), random.nextInt(10), i + 1, 1 + random.nextInt(90));
+            return HttpRequest.newBuilder(URI.create(base + "/pulls"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        String path = i % 2 == 0 ? "/stats" : "/threshold?rate=0.5";
+        return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+    }
+
+    // REQUIRES: sorted is in ascending order
+    // EFFECTS: returns the nearest-rank percentile p of sorted, or 0 if it is empty
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    // EFFECTS: returns p without a trailing ".0"
+    private static String trim(double p) {
+        return p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p);
+    }
+}
@@ -0,0 +1,261 @@
+package ui;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.ConcurrentGachaHistory;
+import model.Metrics;
+import model.PullBatch;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a small HTTP service on localhost that lets other tools add
+ * pulls to a shared history and read its statistics without the GUI, e.g.
+ * java ui.StatsServer 8080
+ *
+ * Endpoints, all answering with a JSON object:
+ *  - POST /pulls         body { "desired5Star", "numberOf4Stars", "pullIndex", "drawCount" }
+ *  - POST /pulls/batch   body { "pullRecords": [ ... ] }, as in a saved history file
+ *  - GET  /stats         the number of records, 5-star rate and 4-star average
+ *  - GET  /threshold?rate=r   whether the 5-star rate is above r
+ *
+ * The history is a ConcurrentGachaHistory, so requests add and read records
+ * in parallel. Requests are handled on a fixed pool of worker threads with a
+ * bounded queue; when the queue is full the server's own dispatcher thread
+ * runs the request, which stops it accepting more until it is done. Handlers
+ * only do a few microseconds of work and never block, so a small pool keeps
+ * up with many thousands of connections.
+ */
+public class StatsServer {
+    private static final int BACKLOG = 4096;
+    private static final int QUEUE_CAPACITY = 16384;
+
+    static {
+        // The JDK server closes idle keep-alive connections beyond 200 by
+        // default, which fails clients that reuse them, and delays small
+        // responses with Nagle's algorithm; both are read once on first use.
+        setDefault("sun.net.httpserver.maxIdleConnections", "65536");
+        setDefault("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ConcurrentGachaHistory history;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Requires: history is not null, 0 <= port <= 65535, threads >= 1
+     * Modifies: this
+     * Effects: creates a server for history bound to port on the loopback
+     * address (0 picks a free port), handling requests on threads worker
+     * threads; it does not accept requests until started. Throws IOException
+     * if the port cannot be bound.
+     */
+    public StatsServer(ConcurrentGachaHistory history, int port, int threads) throws IOException {
+        this.history = history;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new WorkerFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        server.createContext("/pulls", this::handlePulls);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/threshold", this::handleThreshold);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Modifies: this
+     * Effects: starts accepting requests in the background.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Modifies: this
+     * Effects: stops accepting requests, waits up to delaySeconds for
+     * requests in progress to finish, then stops the worker threads.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Effects: returns the port the server is bound to.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Requires: args is empty or holds a port and optionally a thread count
+     * Modifies: none
+     * Effects: starts a server for an empty history on the given port
+     *          (default 8080), publishes the metrics over JMX with the
+     *          history's size as the server.pulls gauge, and runs until the
+     *          process is stopped.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        ConcurrentGachaHistory history = new ConcurrentGachaHistory();
+        Metrics.getInstance().registerMBeans();
+        Metrics.getInstance().gauge("server.pulls", history::size);
+        StatsServer statsServer = new StatsServer(history, port, threads);
+        statsServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> statsServer.stop(1)));
+        System.out.println("Serving statistics on http://localhost:" + statsServer.getPort()
+                + " with " + threads + " threads");
+    }
+
+    // MODIFIES: history
+    // EFFECTS: adds the posted record, or the posted batch of records, to history
+    private void handlePulls(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use POST");
+            return;
+        }
+        try {
+            JSONObject body = new JSONObject(readBody(exchange));
+            if ("/pulls".equals(path)) {
+                history.addPull(body.getBoolean("desired5Star"), body.getInt("numberOf4Stars"),
+                        body.getInt("pullIndex"), body.getInt("drawCount"));
+                send(exchange, 201, new JSONObject().put("added", 1));
+            } else if ("/pulls/batch".equals(path)) {
+                JSONArray records = body.getJSONArray("pullRecords");
+                PullBatch batch = new PullBatch(records.length());
+                for (int i = 0; i < records.length(); i++) {
+                    JSONObject pull = records.getJSONObject(i);
+                    batch.add(pull.getBoolean("desired5Star"), pull.getInt("numberOf4Stars"),
+                            pull.getInt("pullIndex"), pull.getInt("drawCount"));
+                }
+                history.addAll(batch);
+                send(exchange, 201, new JSONObject().put("added", batch.size()));
+            } else {
+                sendError(exchange, 404, "No such endpoint");
+            }
+        } catch (JSONException | IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    // EFFECTS: answers with the record count, 5-star rate and 4-star average,
+    //          all read at the same moment
+    private void handleStats(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use GET");
+            return;
+        }
+        if (!"/stats".equals(exchange.getRequestURI().getPath())) {
+            sendError(exchange, 404, "No such endpoint");
+            return;
+        }
+        ConcurrentGachaHistory.Snapshot snapshot = history.snapshot();
+        JSONObject stats = new JSONObject();
+        stats.put("pulls", snapshot.getSize());
+        stats.put("fiveStarRate", snapshot.getFiveStarRate());
+        stats.put("fourStarAvg", snapshot.getFourStarAvg());
+        send(exchange, 200, stats);
+    }
+
+    // EFFECTS: answers whether the 5-star rate is above the rate query parameter
+    private void handleThreshold(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use GET");
+            return;
+        }
+        if (!"/threshold".equals(exchange.getRequestURI().getPath())) {
+            sendError(exchange, 404, "No such endpoint");
+            return;
+        }
+        String rate = queryParameter(exchange.getRequestURI(), "rate");
+        if (rate == null) {
+            sendError(exchange, 400, "Missing rate parameter");
+            return;
+        }
+        try {
+            double threshold = Double.parseDouble(rate);
+            boolean above = history.isAboveThreshold(threshold);
+            send(exchange, 200, new JSONObject().put("rate", threshold).put("above", above));
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    // MODIFIES: the system properties
+    // EFFECTS: sets the named system property to value unless it is already set
+    private static void setDefault(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    // EFFECTS: returns the value of the named query parameter, or null
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    // EFFECTS: returns the request body decoded as UTF-8
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // EFFECTS: answers with status and an { "error": message } object
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, new JSONObject().put("error", String.valueOf(message)));
+    }
+
+    // EFFECTS: answers with status and the given JSON object, then ends the
+    //          exchange; the connection is kept open for the next request
+    private static void send(HttpExchange exchange, int status, JSONObject json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Creates named daemon worker threads, so a running server never keeps
+     * the JVM alive on its own.
+     */
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "stats-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ConcurrentGachaHistory class.
+ */
+public class ConcurrentGachaHistoryTest {
+
+    private static final int THREADS = 8;
+    private static final int PULLS_PER_THREAD = 5000;
+
+    private ConcurrentGachaHistory testHistory;
+
+    @BeforeEach
+    void runBefore() {
+        testHistory = new ConcurrentGachaHistory(4);
+    }
+
+    @Test
+    void testEmptyHistory() {
+        assertEquals(0, testHistory.size());
+        assertEquals(0.0, testHistory.calculateFiveStarRate());
+        assertEquals(0.0, testHistory.calculateFourStarAvg());
+        assertFalse(testHistory.isAboveThreshold(0.0));
+        assertEquals(0, testHistory.toHistory().getAllPulls().size());
+    }
+
+    @Test
+    void testSingleThreadMatchesGachaHistory() {
+        GachaHistory plain = new GachaHistory();
+        testHistory.addPull(new GachaPull(true, 1, 1, 10));
+        plain.addPull(new GachaPull(true, 1, 1, 10));
+        testHistory.addPull(false, 3, 2, 20);
+        plain.addPull(false, 3, 2, 20);
+
+        assertEquals(2, testHistory.size());
+        assertEquals(plain.calculateFiveStarRate(), testHistory.calculateFiveStarRate(), 1e-12);
+        assertEquals(plain.calculateFourStarAvg(), testHistory.calculateFourStarAvg(), 1e-12);
+        assertTrue(plain.toJson().similar(testHistory.toHistory().toJson()),
+                "One thread's records should keep their order");
+    }
+
+    @Test
+    void testAddAll() {
+        PullBatch batch = new PullBatch();
+        batch.add(true, 1, 1, 10);
+        batch.add(false, 3, 2, 20);
+        testHistory.addPull(true, 0, 3, 30);
+        testHistory.addAll(batch);
+
+        assertEquals(3, testHistory.size());
+        assertEquals(2.0 / 60, testHistory.calculateFiveStarRate(), 1e-12);
+        assertEquals(4.0 / 3, testHistory.calculateFourStarAvg(), 1e-12);
+        testHistory.addAll(new PullBatch());
+        assertEquals(3, testHistory.size());
+    }
+
+    @Test
+    void testSnapshot() {
+        ConcurrentGachaHistory.Snapshot empty = testHistory.snapshot();
+        assertEquals(0, empty.getSize());
+        assertEquals(0.0, empty.getFiveStarRate());
+        assertEquals(0.0, empty.getFourStarAvg());
+
+        testHistory.addPull(true, 1, 1, 10);
+        testHistory.addPull(false, 3, 2, 20);
+        ConcurrentGachaHistory.Snapshot snapshot = testHistory.snapshot();
+        assertEquals(2, snapshot.getSize());
+        assertEquals(testHistory.calculateFiveStarRate(), snapshot.getFiveStarRate(), 1e-12);
+        assertEquals(2.0, snapshot.getFourStarAvg(), 1e-12);
+        testHistory.addPull(true, 0, 3, 30);
+        assertEquals(2, snapshot.getSize(), "A snapshot should not change after it is taken");
+    }
+
+    @Test
+    void testInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> testHistory.addPull(true, -1, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> testHistory.addPull(true, 0, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> testHistory.addPull(true, 0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> testHistory.isAboveThreshold(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentGachaHistory(0));
+        assertEquals(0, testHistory.size());
+    }
+
+    @Test
+    void testParallelAppendsWithReaders() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < PULLS_PER_THREAD; i++) {
+                        // every other pull is desired and takes 2 draws
+                        testHistory.addPull(i % 2 == 0, 1, thread * PULLS_PER_THREAD + i + 1, 2);
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            try {
+                start.await();
+                while (writing.get()) {
+                    double rate = testHistory.calculateFiveStarRate();
+                    double avg = testHistory.calculateFourStarAvg();
+                    if (rate < 0.0 || rate > 0.5 || avg < 0.0 || avg > 1.0) {
+                        failure.set(new AssertionError("Inconsistent stats: " + rate + ", " + avg));
+                    }
+                    ConcurrentGachaHistory.Snapshot snapshot = testHistory.snapshot();
+                    if (snapshot.getSize() > 0 && (snapshot.getFourStarAvg() != 1.0
+                            || snapshot.getFiveStarRate() > 0.5)) {
+                        failure.set(new AssertionError("Inconsistent snapshot: " + snapshot.getSize() + ", "
+                                + snapshot.getFiveStarRate() + ", " + snapshot.getFourStarAvg()));
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writers.forEach(Thread::start);
+        reader.start();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(THREADS * PULLS_PER_THREAD, testHistory.size());
+        assertEquals(0.25, testHistory.calculateFiveStarRate(), 1e-12);
+        assertEquals(1.0, testHistory.calculateFourStarAvg(), 1e-12);
+        GachaHistory merged = testHistory.toHistory();
+        assertEquals(THREADS * PULLS_PER_THREAD, merged.getAllPulls().size());
+        assertEquals(0.25, merged.calculateFiveStarRate(), 1e-12);
+    }
+}
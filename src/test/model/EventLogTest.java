@@ -0,0 +1,113 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventLog class.
+ * The log is a singleton, so each test reconfigures it first.
+ */
+public class EventLogTest {
+
+    private EventLog log;
+
+    @BeforeEach
+    void runBefore() {
+        log = EventLog.getInstance();
+        log.configure(4, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        log.clear();
+    }
+
+    @AfterEach
+    void runAfter() {
+        log.configure(EventLog.DEFAULT_CAPACITY, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+    }
+
+    @Test
+    void testSingleton() {
+        assertSame(log, EventLog.getInstance(), "getInstance should always return the same log");
+    }
+
+    @Test
+    void testSize() {
+        assertEquals(1, log.getSize(), "Only the cleared event");
+        log.logEvent(new Event("A"));
+        log.logEvent(new Event("B"));
+        assertEquals(3, log.getSize());
+        for (int i = 0; i < 10; i++) {
+            log.logEvent(new Event("C"));
+        }
+        assertEquals(4, log.getSize(), "A full log holds its capacity");
+    }
+
+    @Test
+    void testClearLogsClearedEvent() {
+        log.logEvent(new Event("A"));
+        log.clear();
+        assertEquals(List.of("Event log cleared."), descriptions());
+    }
+
+    @Test
+    void testOverwriteOldestKeepsMostRecent() {
+        for (int i = 1; i <= 6; i++) {
+            log.logEvent(new Event("E" + i));
+        }
+        assertEquals(List.of("E3", "E4", "E5", "E6"), descriptions(), "Only the newest four should remain");
+        assertEquals(3, log.getLostCount(), "Cleared event plus two others were overwritten");
+    }
+
+    @Test
+    void testDropNewestKeepsOldest() {
+        log.configure(3, EventLog.OverflowPolicy.DROP_NEWEST);
+        assertEquals(4, log.getCapacity(), "Capacity should round up to a power of two");
+        for (int i = 1; i <= 6; i++) {
+            log.logEvent(new Event("E" + i));
+        }
+        assertEquals(List.of("Event log cleared.", "E1", "E2", "E3"), descriptions(),
+                "Events logged while full should be dropped");
+        assertEquals(3, log.getLostCount());
+        log.clear();
+        log.logEvent(new Event("E7"));
+        assertEquals(List.of("Event log cleared.", "E7"), descriptions(), "Clearing should make room again");
+    }
+
+    @Test
+    void testConcurrentProducersStayBounded() throws InterruptedException {
+        log.configure(1024, EventLog.OverflowPolicy.OVERWRITE_OLDEST);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    log.logEvent(new Event("x"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1024, descriptions().size(), "The log should hold exactly its capacity");
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> log.configure(0, EventLog.OverflowPolicy.DROP_NEWEST));
+    }
+
+    // EFFECTS: returns the descriptions of the events currently in the log
+    private List<String> descriptions() {
+        List<String> result = new ArrayList<>();
+        for (Event e : log) {
+            result.add(e.getDescription());
+        }
+        return result;
+    }
+}
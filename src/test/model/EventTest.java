@@ -0,0 +1,69 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Event class.
+ */
+public class EventTest {
+
+    @Test
+    void testMessageEvent() {
+        Event e = new Event("Hello");
+        assertEquals(Event.Kind.MESSAGE, e.getKind());
+        assertEquals("Hello", e.getDescription());
+        assertEquals(e.getTime(), e.getDate().getTime(), "Date and time should agree");
+        assertEquals(e.getDate().toString() + "\nHello", e.toString());
+    }
+
+    @Test
+    void testPullAddedDescription() {
+        Event e = Event.pullAdded(1, true, 3, 34);
+        assertEquals(Event.Kind.PULL_ADDED, e.getKind());
+        assertEquals(1, e.getPullIndex());
+        assertEquals("Added pull record: Pull #1, Desired 5-star: true, 4-star count: 3, Total draws: 34",
+                e.getDescription());
+    }
+
+    @Test
+    void testPullsAddedDescription() {
+        Event e = Event.pullsAdded(120);
+        assertEquals(Event.Kind.PULLS_ADDED, e.getKind());
+        assertEquals(120, e.getCount());
+        assertEquals(1, Event.pullRemoved(7).getCount());
+        assertEquals("Added 120 pull records", e.getDescription());
+    }
+
+    @Test
+    void testPullRemovedDescription() {
+        Event e = Event.pullRemoved(7);
+        assertEquals(Event.Kind.PULL_REMOVED, e.getKind());
+        assertEquals("Removed pull record: Pull #7", e.getDescription());
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        Event e = Event.pullRemoved(7);
+        assertEquals(e, e);
+        assertNotEquals(e, null);
+        assertNotEquals(e, "Removed pull record: Pull #7");
+        assertNotEquals(e, Event.pullRemoved(8));
+        assertEquals(e.hashCode(), e.hashCode());
+    }
+
+    @Test
+    void testFilterByKind() {
+        EventLog log = EventLog.getInstance();
+        log.clear();
+        GachaHistory history = new GachaHistory();
+        history.addPull(new GachaPull(true, 1, 1, 10));
+        history.addPull(new GachaPull(false, 1, 2, 10));
+        history.removePull(0);
+        assertEquals(2, log.getEvents(Event.Kind.PULL_ADDED).size());
+        assertEquals(1, log.getEvents(Event.Kind.PULL_REMOVED).size());
+        assertEquals(1, log.getEvents(Event.Kind.PULL_REMOVED).get(0).getPullIndex());
+        assertEquals(1, log.getEvents(Event.Kind.LOG_CLEARED).size());
+    }
+}
@@ -0,0 +1,88 @@
+package model;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Flight Recorder events emitted by GachaHistory.
+ */
+public class FlightRecorderEventsTest {
+
+    @Test
+    void testPullMutationEvents() throws IOException {
+        List<RecordedEvent> events = record("gachatracker.PullMutation", () -> {
+            GachaHistory history = new GachaHistory();
+            history.addPull(true, 1, 7, 30);
+            PullBatch batch = new PullBatch();
+            batch.add(false, 2, 8, 40);
+            batch.add(false, 0, 9, 50);
+            history.addAll(batch);
+            history.removePull(0);
+        });
+
+        assertEquals(List.of("add", "addAll", "remove"),
+                events.stream().map(e -> e.getString("operation")).collect(Collectors.toList()));
+        RecordedEvent add = events.get(0);
+        assertEquals(1, add.getInt("records"));
+        assertEquals(7, add.getInt("pullIndex"));
+        assertEquals(1, add.getInt("historySize"));
+        RecordedEvent addAll = events.get(1);
+        assertEquals(2, addAll.getInt("records"));
+        assertEquals(1, addAll.getInt("row"));
+        assertEquals(3, addAll.getInt("historySize"));
+        RecordedEvent remove = events.get(2);
+        assertEquals(7, remove.getInt("pullIndex"));
+        assertEquals(2, remove.getInt("historySize"));
+    }
+
+    @Test
+    void testStatsEvents() throws IOException {
+        List<RecordedEvent> events = record("gachatracker.Stats", () -> {
+            GachaHistory history = new GachaHistory();
+            for (int i = 1; i <= 10; i++) {
+                history.addPull(i % 2 == 0, 1, i, 20);
+            }
+            history.calculateFiveStarRate(3, 6);
+            history.countPulls(1, 10);
+            history.calculateFiveStarRate(); // reads running totals, not recorded
+        });
+
+        assertEquals(2, events.size());
+        assertEquals(3, events.get(0).getInt("fromPullIndex"));
+        assertEquals(6, events.get(0).getInt("toPullIndex"));
+        assertEquals(4, events.get(0).getLong("records"));
+        assertTrue(events.get(0).getBoolean("indexRebuilt"), "The first range query builds the index");
+        assertEquals(10, events.get(1).getLong("records"));
+        assertFalse(events.get(1).getBoolean("indexRebuilt"));
+    }
+
+    // EFFECTS: runs action while recording the named event with no threshold
+    //          and returns the recorded events of that type, oldest first
+    private static List<RecordedEvent> record(String eventName, Runnable action) throws IOException {
+        Path file = Files.createTempFile("gacha", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals(eventName))
+                    .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
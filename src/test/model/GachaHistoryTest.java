@@ -114,6 +114,340 @@ void testIsAboveThresholdNegative() {
     assertEquals("Threshold cannot be negative", exception.getMessage());
 }
 
+    @Test
+    void testViewsFollowRowsAfterRemoval() {
+        testHistory.addPull(pullA);
+        testHistory.addPull(pullB);
+        testHistory.removePull(0);
+        assertFalse(testHistory.getAllPulls().contains(pullA),
+                "Removed pull should no longer be in the history");
+        assertTrue(testHistory.getAllPulls().contains(pullB),
+                "Remaining pull should still be in the history");
+        assertSame(pullB, testHistory.getAllPulls().get(0),
+                "Remaining pull should have moved to the first position");
+        // The removed pull keeps its values as a standalone pull
+        assertTrue(pullA.isDesired5Star());
+        assertEquals(1, pullA.getNumberOf4Stars());
+        assertEquals(1, pullA.getPullIndex());
+        assertEquals(10, pullA.getDrawCount());
+    }
 
-}
+    @Test
+    void testSetterOnStoredPullUpdatesHistory() {
+        testHistory.addPull(pullA);
+        testHistory.addPull(pullB);
+        testHistory.getAllPulls().get(1).setDesired5Star(true);
+        pullA.setNumberOf4Stars(5);
+        assertEquals(2.0 / 30, testHistory.calculateFiveStarRate(), 0.0001,
+                "Edited desired flag should be reflected in the rate");
+        assertEquals(4.0, testHistory.calculateFourStarAvg(), 0.0001,
+                "Edited 4-star count should be reflected in the average");
+    }
+
+    @Test
+    void testManyPullsRemoveAcrossWords() {
+        for (int i = 1; i <= 200; i++) {
+            testHistory.addPull(new GachaPull(i % 3 == 0, i % 4, i, 10));
+        }
+        testHistory.removePull(5);
+        testHistory.removePull(64);
+        assertEquals(198, testHistory.getAllPulls().size());
+        for (GachaPull pull : testHistory.getAllPulls()) {
+            int i = pull.getPullIndex();
+            assertEquals(i % 3 == 0, pull.isDesired5Star(), "Desired flag should stay with pull #" + i);
+            assertEquals(i % 4, pull.getNumberOf4Stars(), "4-star count should stay with pull #" + i);
+        }
+    }
+
+    @Test
+    void testGetAllPullsIsUnmodifiable() {
+        testHistory.addPull(pullA);
+        assertThrows(UnsupportedOperationException.class, () -> testHistory.getAllPulls().add(pullB));
+    }
+
+    @Test
+    void testTotalsFollowEditsAndRemovals() {
+        testHistory.addPull(pullA);
+        testHistory.addPull(pullB);
+        pullA.setDrawCount(30);
+        assertEquals(1.0 / 50, testHistory.calculateFiveStarRate(), 0.0001,
+                "Edited draw count should be reflected in the rate");
+        testHistory.removePull(pullA);
+        assertEquals(0.0, testHistory.calculateFiveStarRate(), 0.0001,
+                "Only an undesired pull remains");
+        assertEquals(3.0, testHistory.calculateFourStarAvg(), 0.0001,
+                "Only pullB's 4-stars remain");
+        // Edits to a pull that was removed must not touch the history's totals
+        pullA.setNumberOf4Stars(10);
+        assertEquals(3.0, testHistory.calculateFourStarAvg(), 0.0001,
+                "Removed pull should no longer affect the history");
+        testHistory.removePull(0);
+        assertEquals(0.0, testHistory.calculateFourStarAvg(), 0.0001);
+        assertFalse(testHistory.isAboveThreshold(0.0), "Empty history has rate 0");
+    }
+
+    @Test
+    void testAddPullFromValues() {
+        testHistory.addPull(true, 2, 1, 10);
+        GachaPull stored = testHistory.getAllPulls().get(0);
+        assertTrue(stored.isDesired5Star());
+        assertEquals(2, stored.getNumberOf4Stars());
+        assertEquals(1, stored.getPullIndex());
+        assertEquals(10, stored.getDrawCount());
+        assertThrows(IllegalArgumentException.class, () -> testHistory.addPull(true, 1, 2, 0),
+                "Out-of-range values should be rejected");
+        assertEquals(1, testHistory.getAllPulls().size());
+    }
+
+    @Test
+    void testListenerNotifiedOfChanges() {
+        StringBuilder seen = new StringBuilder();
+        GachaHistoryListener listener = new GachaHistoryListener() {
+            @Override
+            public void pullAdded(int position, boolean desired, int fours, int index, int draws) {
+                seen.append("add ").append(position).append(';');
+            }
+
+            @Override
+            public void pullRemoved(int position, boolean desired, int fours, int index, int draws) {
+                seen.append("remove ").append(position).append(" #").append(index).append(';');
+            }
+
+            @Override
+            public void pullChanged(int position, boolean desired, int fours, int index, int draws) {
+                seen.append("change ").append(position).append(' ').append(draws).append(';');
+            }
+        };
+        testHistory.addListener(listener);
+        testHistory.addPull(pullA);
+        testHistory.addPull(pullB);
+        pullB.setDrawCount(25);
+        testHistory.removePull(pullA);
+        testHistory.removeListener(listener);
+        testHistory.removePull(0);
+        assertEquals("add 0;add 1;change 1 25;remove 0 #1;", seen.toString());
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        testHistory.addPull(pullA);
+        GachaHistory copy = testHistory.copy();
+        pullA.setDrawCount(20);
+        copy.addPull(pullB);
+        assertEquals(1, testHistory.getAllPulls().size(), "Adding to the copy should not change the original");
+        assertEquals(10, copy.getAllPulls().get(0).getDrawCount(), "Edits to the original should not reach the copy");
+        assertEquals(1.0 / 30, copy.calculateFiveStarRate(), 0.0001, "Copy should carry the totals over");
+    }
+
+    @Test
+    void testFindAndRemoveByPullIndex() {
+        for (int i = 1; i <= 100; i++) {
+            testHistory.addPull(i % 3 == 0, 1, i * 7, 10);
+        }
+        assertEquals(0, testHistory.positionOf(7));
+        assertEquals(99, testHistory.positionOf(700));
+        assertEquals(-1, testHistory.positionOf(8));
+        assertFalse(testHistory.removePullByIndex(8), "Unknown pull index should not remove anything");
+
+        // removing near the end and near the start shifts few and many rows
+        assertTrue(testHistory.removePullByIndex(693));
+        assertTrue(testHistory.removePullByIndex(14));
+        assertEquals(98, testHistory.getAllPulls().size());
+        for (int position = 0; position < 98; position++) {
+            int pullIndex = testHistory.getAllPulls().get(position).getPullIndex();
+            assertEquals(position, testHistory.positionOf(pullIndex), "Index should follow shifted rows");
+        }
+        assertFalse(testHistory.containsPullIndex(14));
+
+        // re-adding after many removals reuses or clears out tombstones
+        for (int i = 1; i <= 100; i++) {
+            testHistory.removePullByIndex(i * 7);
+            testHistory.addPull(false, 0, i * 7, 10);
+        }
+        assertEquals(100, testHistory.getAllPulls().size());
+        assertEquals(99, testHistory.positionOf(700));
+        assertEquals(0.0, testHistory.calculateFourStarAvg(), 0.0001, "Totals should follow removals");
+    }
+
+    @Test
+    void testIndexFollowsInterleavedRemovalsAndAdds() {
+        for (int i = 1; i <= 1000; i++) {
+            testHistory.addPull(false, 0, i, 10);
+        }
+        // a fixed pseudo-random mix of removals, appends and copies, so the
+        // index both counts removed ids and renumbers them several times
+        int next = 1001;
+        long seed = 42;
+        GachaHistory copy = null;
+        for (int step = 0; step < 3000; step++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int size = testHistory.getAllPulls().size();
+            int choice = (int) ((seed >>> 33) % 3);
+            if (choice < 2 && size > 0) {
+                testHistory.removePull((int) ((seed >>> 20) % size));
+            } else {
+                testHistory.addPull(false, 0, next++, 10);
+            }
+            if (step == 1500) {
+                copy = testHistory.copy();
+            }
+        }
+        List<GachaPull> pulls = testHistory.getAllPulls();
+        for (int position = 0; position < pulls.size(); position++) {
+            assertEquals(position, testHistory.positionOf(pulls.get(position).getPullIndex()));
+        }
+        for (int position = 0; position < copy.getAllPulls().size(); position++) {
+            assertEquals(position, copy.positionOf(copy.getAllPulls().get(position).getPullIndex()),
+                    "A copy should keep its own ids");
+        }
+        for (int i = 1; i < next; i++) {
+            int position = testHistory.positionOf(i);
+            assertTrue(position < 0 || pulls.get(position).getPullIndex() == i);
+        }
+
+        // one removal followed by more appends than the counted ids have room for
+        testHistory.removePull(0);
+        for (int i = 0; i < 5000; i++) {
+            testHistory.addPull(false, 0, next++, 10);
+        }
+        for (int position = 0; position < pulls.size(); position++) {
+            assertEquals(position, testHistory.positionOf(pulls.get(position).getPullIndex()));
+        }
+    }
+
+    @Test
+    void testDuplicatePullIndexIsReported() {
+        EventLog.getInstance().clear();
+        testHistory.addPull(pullA);
+        testHistory.addPull(false, 0, 1, 5);
+        List<Event> duplicates = EventLog.getInstance().getEvents(Event.Kind.DUPLICATE_PULL_INDEX);
+        assertEquals(1, duplicates.size(), "Only the second pull #1 is a duplicate");
+        assertEquals(1, duplicates.get(0).getPullIndex());
+        assertEquals(0, testHistory.positionOf(1), "Lookup should find the first record");
+
+        testHistory.removePull(0);
+        assertEquals(0, testHistory.positionOf(1), "The other record should still be found");
+        assertEquals(5, testHistory.getAllPulls().get(0).getDrawCount());
+    }
+
+    @Test
+    void testCopyHasOwnIndex() {
+        testHistory.addPull(pullA);
+        testHistory.addPull(pullB);
+        GachaHistory copy = testHistory.copy();
+        copy.removePullByIndex(1);
+        assertEquals(0, testHistory.positionOf(1));
+        assertEquals(0, copy.positionOf(2));
+    }
+
+    @Test
+    void testAddAllBatch() {
+        testHistory.addPull(pullA);
+        StringBuilder seen = new StringBuilder();
+        testHistory.addListener(new GachaHistoryListener() {
+            @Override
+            public void pullAdded(int position, boolean desired, int fours, int index, int draws) {
+                seen.append(position).append(" #").append(index).append(';');
+            }
+        });
+        PullBatch batch = new PullBatch(2);
+        batch.add(true, 2, 2, 20);
+        batch.add(false, 4, 3, 30);
+        batch.add(false, 0, 1, 40);
+        assertThrows(IllegalArgumentException.class, () -> batch.add(true, 0, 4, 0),
+                "Out-of-range values should be rejected by the batch");
+        assertEquals(3, batch.size());
+
+        EventLog.getInstance().clear();
+        testHistory.addAll(batch);
+        assertEquals(4, testHistory.getAllPulls().size());
+        assertEquals(3, testHistory.getAllPulls().get(2).getPullIndex());
+        assertEquals(2.0 / 100, testHistory.calculateFiveStarRate(), 0.0001);
+        assertEquals(7.0 / 4, testHistory.calculateFourStarAvg(), 0.0001);
+        assertEquals(1, testHistory.positionOf(2));
+        assertEquals("1 #2;2 #3;3 #1;", seen.toString(), "Default pullsAdded reports each record");
+
+        List<Event> added = EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED);
+        assertEquals(1, added.size(), "A batch should log one summary event");
+        assertEquals(3, added.get(0).getCount());
+        assertEquals(0, EventLog.getInstance().getEvents(Event.Kind.PULL_ADDED).size());
+        assertEquals(1, EventLog.getInstance().getEvents(Event.Kind.DUPLICATE_PULL_INDEX).size());
+
+        testHistory.addAll(new PullBatch());
+        assertEquals(4, testHistory.getAllPulls().size(), "An empty batch changes nothing");
+
+        batch.clear();
+        assertEquals(0, batch.size());
+        batch.add(true, 1, 5, 50);
+        testHistory.addAll(batch);
+        assertEquals(5, testHistory.getAllPulls().size(), "A cleared batch only adds its new records");
+        assertEquals(5, testHistory.getAllPulls().get(4).getPullIndex());
+        assertEquals(3.0 / 150, testHistory.calculateFiveStarRate(), 0.0001);
+        assertEquals(8.0 / 5, testHistory.calculateFourStarAvg(), 0.0001);
+    }
 
+    @Test
+    void testRangeStats() {
+        testHistory.addPull(true, 2, 1, 10);
+        testHistory.addPull(false, 4, 2, 20);
+        testHistory.addPull(true, 0, 3, 30);
+        assertEquals(2.0 / 60, testHistory.calculateFiveStarRate(1, 3), 0.0001);
+        assertEquals(1.0 / 50, testHistory.calculateFiveStarRate(2, 3), 0.0001);
+        assertEquals(3.0, testHistory.calculateFourStarAvg(1, 2), 0.0001);
+        assertEquals(2, testHistory.countPulls(0, 2));
+        assertEquals(0, testHistory.countPulls(4, 100));
+        assertEquals(0.0, testHistory.calculateFiveStarRate(3, 1), "An empty range has rate 0");
+        assertEquals(0.0, testHistory.calculateFourStarAvg(50, 60));
+
+        // once built, the index follows appends, edits and removals
+        testHistory.addPull(true, 1, 10, 5);
+        testHistory.getAllPulls().get(1).setDrawCount(40);
+        testHistory.removePull(0);
+        assertEquals(2.0 / 75, testHistory.calculateFiveStarRate(1, 10), 0.0001);
+        assertEquals(0, testHistory.countPulls(1, 1));
+        assertEquals(2, testHistory.countPulls(2, 3));
+    }
+
+    @Test
+    void testRangeStatsMatchScan() {
+        java.util.Random random = new java.util.Random(7);
+        testHistory.calculateFiveStarRate(1, 1);
+        for (int step = 0; step < 2000; step++) {
+            int size = testHistory.getAllPulls().size();
+            int action = random.nextInt(10);
+            if (action < 6 || size == 0) {
+                // mostly increasing pull indexes, sometimes one out of order
+                int pullIndex = action == 0 ? 1 + random.nextInt(500) : step + 1;
+                testHistory.addPull(random.nextBoolean(), random.nextInt(5), pullIndex, 1 + random.nextInt(90));
+            } else if (action < 8) {
+                testHistory.removePull(random.nextInt(size));
+            } else {
+                GachaPull pull = testHistory.getAllPulls().get(random.nextInt(size));
+                pull.setDesired5Star(random.nextBoolean());
+                pull.setNumberOf4Stars(random.nextInt(5));
+            }
+            if (step % 50 == 0) {
+                int from = random.nextInt(step + 2);
+                int to = from + random.nextInt(300);
+                int count = 0;
+                int desired = 0;
+                long draws = 0;
+                long fours = 0;
+                for (GachaPull pull : testHistory.getAllPulls()) {
+                    if (pull.getPullIndex() >= from && pull.getPullIndex() <= to) {
+                        count++;
+                        desired += pull.isDesired5Star() ? 1 : 0;
+                        draws += pull.getDrawCount();
+                        fours += pull.getNumberOf4Stars();
+                    }
+                }
+                assertEquals(count, testHistory.countPulls(from, to));
+                assertEquals(count == 0 ? 0.0 : (double) desired / draws,
+                        testHistory.calculateFiveStarRate(from, to), 1e-12);
+                assertEquals(count == 0 ? 0.0 : (double) fours / count,
+                        testHistory.calculateFourStarAvg(from, to), 1e-12);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the HistoryGenerator class.
+ */
+public class HistoryGeneratorTest {
+
+    private static final int COUNT = 3 * HistoryGenerator.CHUNK_SIZE + 123;
+
+    @Test
+    void testSameSeedSameHistory() {
+        GachaHistory first = generator(7L).generate(COUNT);
+        GachaHistory second = generator(7L).generate(COUNT);
+        GachaHistory other = generator(8L).generate(COUNT);
+        assertEquals(COUNT, first.getAllPulls().size());
+        assertTrue(first.toJson().similar(second.toJson()), "The same seed should give the same records");
+        assertFalse(first.toJson().similar(other.toJson()), "Another seed should give other records");
+    }
+
+    @Test
+    void testPullIndicesAndChunks() throws IOException {
+        List<Integer> sizes = new ArrayList<>();
+        GachaHistory history = new GachaHistory();
+        generator(1L).generate(COUNT, chunk -> {
+            sizes.add(chunk.size());
+            history.addAll(chunk);
+        });
+        assertEquals(List.of(HistoryGenerator.CHUNK_SIZE, HistoryGenerator.CHUNK_SIZE,
+                HistoryGenerator.CHUNK_SIZE, 123), sizes);
+        for (int row = 0; row < COUNT; row++) {
+            assertEquals(row + 1, history.getPullIndex(row));
+        }
+        assertEquals(0, generator(1L).generate(0).getAllPulls().size());
+    }
+
+    @Test
+    void testFollowsRules() {
+        GachaHistory history = generator(3L).generate(COUNT);
+        PityDistribution drawCounts = PityModel.of(PityRules.STANDARD).getFiveStarDistribution();
+        PityDistribution gaps = PityModel.of(HistoryGenerator.STANDARD_FOUR_STAR).getFiveStarDistribution();
+
+        double meanDraws = (double) history.totalDraws() / COUNT;
+        assertEquals(drawCounts.getMean(), meanDraws, 0.3);
+        assertTrue(PityModel.of(PityRules.STANDARD).compareWith(history) < 0.01,
+                "Draw counts should follow the 5-star distribution");
+        // with a 50/50 and a guarantee, 2 of every 3 5-stars are featured in the long run
+        assertEquals(2.0 / 3, (double) history.desiredCount() / COUNT, 0.01);
+        // every draw but the 5-star one may be a 4-star
+        assertEquals((meanDraws - 1) / gaps.getMean(), (double) history.totalFourStars() / COUNT, 0.05);
+        for (int row = 0; row < COUNT; row++) {
+            assertTrue(history.getDrawCount(row) <= 90);
+            assertTrue(history.getNumberOf4Stars(row) >= (history.getDrawCount(row) - 1) / 10,
+                    "At least one 4-star every 10 draws");
+        }
+    }
+
+    @Test
+    void testWithoutGuarantee() {
+        PityRules rules = new PityRules(0.5, 100, 0.0, 2, 0.25, false);
+        GachaHistory history = new HistoryGenerator(rules, HistoryGenerator.STANDARD_FOUR_STAR, 5L).generate(COUNT);
+        assertEquals(0.25, (double) history.desiredCount() / COUNT, 0.01);
+        assertEquals(1.5, (double) history.totalDraws() / COUNT, 0.01);
+    }
+
+    @Test
+    void testLongPityWithoutTables() {
+        // a hard pity this long makes exact 4-star tables too large, so gaps are sampled one by one
+        PityRules rules = new PityRules(0.01, 1000, 0.0, 1000, 0.5, true);
+        GachaHistory history = new HistoryGenerator(rules, HistoryGenerator.STANDARD_FOUR_STAR, 6L).generate(50_000);
+        PityDistribution gaps = PityModel.of(HistoryGenerator.STANDARD_FOUR_STAR).getFiveStarDistribution();
+        double meanDraws = (double) history.totalDraws() / 50_000;
+        assertEquals(100.0, meanDraws, 2.0);
+        assertEquals((meanDraws - 1) / gaps.getMean(), (double) history.totalFourStars() / 50_000, 0.2);
+    }
+
+    // EFFECTS: returns a generator with the standard rules and the given seed
+    private HistoryGenerator generator(long seed) {
+        return new HistoryGenerator(PityRules.STANDARD, HistoryGenerator.STANDARD_FOUR_STAR, seed);
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the HistoryLoader class.
+ */
+public class HistoryLoaderTest {
+
+    private GachaHistory history;
+    private StringBuilder seen;
+
+    @BeforeEach
+    void runBefore() {
+        history = new GachaHistory();
+        history.addPull(true, 1, 1, 10);
+        seen = new StringBuilder();
+        history.addListener(new GachaHistoryListener() {
+            @Override
+            public void pullAdded(int position, boolean desired, int fours, int index, int draws) {
+                seen.append("add ").append(position).append(';');
+            }
+
+            @Override
+            public void pullsAdded(GachaHistory added, int firstPosition, int count) {
+                seen.append("batch ").append(firstPosition).append(' ').append(count).append(';');
+            }
+        });
+        EventLog.getInstance().clear();
+    }
+
+    @Test
+    void testChunksAreReportedOnceWhenFinished() {
+        HistoryLoader loader = new HistoryLoader(history, 3);
+        for (int i = 2; i <= 11; i++) {
+            loader.add(i % 2 == 0, 2, i, 20);
+        }
+        loader.add(false, 0, 5, 30);
+        assertEquals(10, history.getAllPulls().size(), "Full chunks should already be in the history");
+        assertEquals("", seen.toString(), "Nothing should be reported before finish");
+        assertEquals(0, EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED).size());
+        assertEquals(0, EventLog.getInstance().getEvents(Event.Kind.DUPLICATE_PULL_INDEX).size());
+
+        assertSame(history, loader.finish());
+        assertEquals(12, history.getAllPulls().size());
+        assertEquals("batch 1 11;", seen.toString());
+        List<Event> added = EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED);
+        assertEquals(1, added.size());
+        assertEquals(11, added.get(0).getCount());
+        List<Event> duplicates = EventLog.getInstance().getEvents(Event.Kind.DUPLICATE_PULL_INDEX);
+        assertEquals(1, duplicates.size());
+        assertEquals(5, duplicates.get(0).getPullIndex());
+        assertEquals(6.0 / (10 + 10 * 20 + 30), history.calculateFiveStarRate(), 1e-12);
+        assertEquals(4, history.positionOf(5), "Lookup should find the first pull #5");
+    }
+
+    @Test
+    void testInvalidRecordAndEmptyLoad() {
+        HistoryLoader loader = new HistoryLoader(history, 4);
+        assertThrows(IllegalArgumentException.class, () -> loader.add(true, -1, 2, 10));
+        loader.finish();
+        assertEquals(1, history.getAllPulls().size());
+        assertEquals("", seen.toString(), "An empty load should report nothing");
+        assertEquals(0, EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED).size());
+    }
+}
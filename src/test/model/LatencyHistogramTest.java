@@ -0,0 +1,81 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LatencyHistogram class.
+ */
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    void runBefore() {
+        histogram = new LatencyHistogram("test");
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals("test", histogram.getName());
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMeanMicros());
+        assertEquals(0, histogram.getPercentileNanos(99.0));
+        assertEquals(0.0, histogram.getMaxMicros());
+    }
+
+    @Test
+    void testBucketsAreContiguous() {
+        long previousUpper = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.indexOf(previousUpper + 1), "Bucket " + i + " starts after the last");
+            assertEquals(i, LatencyHistogram.indexOf(upper), "Bucket " + i + " holds its upper bound");
+            long lower = previousUpper + 1;
+            assertTrue(upper - lower <= Math.max(0, lower / 16), "Bucket " + i + " is at most 1/16 wide");
+            previousUpper = upper;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testPercentiles() {
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        histogram.record(-5);
+
+        assertEquals(1001, histogram.getCount());
+        assertEquals(500500L * 1000, histogram.getTotalNanos());
+        assertEquals(500.0, histogram.getMeanMicros(), 0.5);
+        assertEquals(500.0, histogram.getP50Micros(), 500.0 / 16);
+        assertEquals(900.0, histogram.getP90Micros(), 900.0 / 16);
+        assertEquals(990.0, histogram.getP99Micros(), 990.0 / 16);
+        assertEquals(1000.0, histogram.getMaxMicros(), 1000.0 / 16);
+        assertEquals(0, histogram.getPercentileNanos(0.0), "The negative time counts as 0");
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+    }
+
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(4L * 9999 * 10_000 / 2, histogram.getTotalNanos());
+    }
+}
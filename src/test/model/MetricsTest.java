@@ -0,0 +1,139 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Metrics class.
+ * The registry is a singleton shared with other tests, so they compare
+ * values before and after instead of expecting exact totals.
+ */
+public class MetricsTest {
+
+    private final Metrics metrics = Metrics.getInstance();
+
+    @Test
+    void testSingletonAndLookups() {
+        assertSame(metrics, Metrics.getInstance());
+        assertSame(metrics.histogram("test.same"), metrics.histogram("test.same"));
+        assertSame(metrics.counter("test.same"), metrics.counter("test.same"));
+    }
+
+    @Test
+    void testCountersAndGauges() {
+        metrics.counter("test.counter").add(3);
+        metrics.gauge("test.gauge", () -> 2.5);
+        assertTrue(metrics.getCounters().get("test.counter") >= 3);
+        assertEquals(2.5, metrics.getGauges().get("test.gauge"));
+        assertTrue(metrics.getGauges().containsKey("eventLog.capacity"));
+        metrics.removeGauge("test.gauge");
+        assertFalse(metrics.getGauges().containsKey("test.gauge"));
+    }
+
+    @Test
+    void testRangeStatsAreTimed() {
+        GachaHistory history = new GachaHistory();
+        history.addPull(true, 1, 1, 10);
+        history.addPull(false, 2, 2, 20);
+        long rangeCalls = metrics.histogram("stats.range").getCount();
+
+        history.calculateFiveStarRate();
+        history.calculateFiveStarRate(1, 2);
+        history.countPulls(1, 1);
+
+        assertEquals(rangeCalls + 2, metrics.histogram("stats.range").getCount());
+    }
+
+    @Test
+    void testTrackedHistory() {
+        GachaHistory history = new GachaHistory();
+        metrics.trackHistory(history);
+        assertEquals(0, metrics.getHistorySize());
+        assertEquals(0.0, metrics.getBytesPerPull());
+        for (int i = 1; i <= 1000; i++) {
+            history.addPull(i % 2 == 0, 1, i, 50);
+        }
+        assertEquals(1000, metrics.getHistorySize());
+        // three int columns, a reference per view and the hash index, with spare capacity
+        double bytes = metrics.getBytesPerPull();
+        assertTrue(bytes >= 16 && bytes < 64, "Unexpected bytes per pull: " + bytes);
+        metrics.trackHistory(null);
+        assertEquals(0, metrics.getHistorySize());
+    }
+
+    @Test
+    void testThroughput() {
+        long loadedPulls = metrics.getCounters().get("load.pulls");
+        metrics.recordLoad(1000, 10, 1_000_000);
+        metrics.recordSave(2000, 10, 1_000_000);
+        assertEquals(loadedPulls + 10, metrics.getCounters().get("load.pulls"));
+        assertTrue(metrics.getLoadBytesPerSecond() > 0);
+        assertTrue(metrics.getSavePullsPerSecond() > 0);
+    }
+
+    @Test
+    void testMBeans() throws Exception {
+        metrics.histogram("test.before").record(1000);
+        metrics.registerMBeans();
+        metrics.registerMBeans(); // a second call does nothing
+        metrics.histogram("test.after").record(2000);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName registry = new ObjectName(Metrics.DOMAIN + ":type=Metrics");
+        assertTrue(server.isRegistered(registry));
+        assertEquals(EventLog.getInstance().getSize(), server.getAttribute(registry, "EventLogSize"));
+        assertNotNull(server.getAttribute(registry, "Counters"));
+
+        for (String name : new String[] {"test.before", "test.after"}) {
+            ObjectName latency = new ObjectName(Metrics.DOMAIN + ":type=Latency,name=" + name);
+            assertTrue(server.isRegistered(latency), name + " should be published");
+            assertTrue((Long) server.getAttribute(latency, "Count") >= 1);
+        }
+        Map<String, Long> counters = metrics.getCounters();
+        assertTrue(counters.containsKey("save.bytes"));
+    }
+
+    @Test
+    void testConcurrentFirstLookupsAfterRegistering() throws Exception {
+        metrics.registerMBeans();
+        String name = "test.concurrent";
+        List<Thread> threads = new ArrayList<>();
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        // holding the registry's lock makes every thread miss the unlocked
+        // lookup and then wait for the lock, as in the worst interleaving
+        synchronized (metrics) {
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        results.add(metrics.histogram(name));
+                    } catch (RuntimeException e) {
+                        results.add(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                while (thread.getState() != Thread.State.BLOCKED) {
+                    Thread.sleep(1);
+                }
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4, results.size());
+        for (Object result : results) {
+            assertSame(metrics.histogram(name), result, "Every thread should get the one registered histogram");
+        }
+    }
+}
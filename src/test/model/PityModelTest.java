@@ -0,0 +1,141 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the PityRules, PityModel and PityDistribution classes.
+ */
+public class PityModelTest {
+
+    @Test
+    void testRulesRates() {
+        PityRules rules = PityRules.STANDARD;
+        assertEquals(0.006, rules.rateAt(1));
+        assertEquals(0.006, rules.rateAt(73));
+        assertEquals(0.066, rules.rateAt(74), 1e-12);
+        assertEquals(0.126, rules.rateAt(75), 1e-12);
+        assertEquals(0.966, rules.rateAt(89), 1e-12);
+        assertEquals(1.0, rules.rateAt(90));
+        assertEquals(1.0, new PityRules(0.5, 2, 0.3, 90, 0.5, true).rateAt(3), "Capped at 1 before hard pity");
+        assertEquals(new PityRules(0.006, 74, 0.06, 90, 0.5, true), rules);
+        assertEquals(rules.hashCode(), new PityRules(0.006, 74, 0.06, 90, 0.5, true).hashCode());
+        assertNotEquals(new PityRules(0.006, 74, 0.06, 90, 0.5, false), rules);
+        assertThrows(IllegalArgumentException.class, () -> new PityRules(0.0, 74, 0.06, 90, 0.5, true));
+        assertThrows(IllegalArgumentException.class, () -> new PityRules(0.006, 74, 0.06, 0, 0.5, true));
+        assertThrows(IllegalArgumentException.class, () -> new PityRules(0.006, 74, 0.06, 90, 0.0, false));
+    }
+
+    @Test
+    void testFiveStarDistributionWithHardPity() {
+        // no soft pity, hard pity on the third draw
+        PityDistribution fiveStar = PityModel.of(new PityRules(0.5, 100, 0.0, 3, 1.0, false))
+                .getFiveStarDistribution();
+        assertEquals(3, fiveStar.getMaxDraws());
+        assertEquals(0.5, fiveStar.probabilityAt(1), 1e-12);
+        assertEquals(0.25, fiveStar.probabilityAt(2), 1e-12);
+        assertEquals(0.25, fiveStar.probabilityAt(3), 1e-12);
+        assertEquals(0.0, fiveStar.probabilityAt(4));
+        assertEquals(1.75, fiveStar.getMean(), 1e-12);
+        assertEquals(0.75, fiveStar.probabilityWithin(2), 1e-12);
+        assertEquals(1.0, fiveStar.probabilityWithin(10), 1e-12);
+        assertEquals(2, fiveStar.drawsForProbability(0.7));
+        assertEquals(1, fiveStar.drawsForProbability(0.5));
+    }
+
+    @Test
+    void testFeaturedWithoutGuaranteeIsGeometric() {
+        // a 5-star on every draw, featured half the time and never guaranteed
+        PityDistribution featured = PityModel.of(new PityRules(1.0, 1, 0.0, 1, 0.5, false))
+                .getFeaturedDistribution(0, false);
+        for (int n = 1; n <= 30; n++) {
+            assertEquals(Math.pow(0.5, n), featured.probabilityAt(n), 1e-15);
+        }
+        assertEquals(4, featured.drawsForProbability(0.9));
+        assertEquals(2.0, featured.getMean(), 1e-9);
+        assertTrue(1.0 - featured.probabilityWithin(featured.getMaxDraws()) < 1e-12);
+    }
+
+    @Test
+    void testFeaturedWithGuaranteeMatchesConvolution() {
+        PityModel model = PityModel.of(PityRules.STANDARD);
+        PityDistribution cycle = model.getFiveStarDistribution();
+        PityDistribution featured = model.getFeaturedDistribution(0, false);
+        assertTrue(featured.getMaxDraws() <= 180, "Two cycles at most");
+
+        // P(n) = 1/2 cycle(n) + 1/2 (cycle * cycle)(n)
+        double total = 0.0;
+        for (int n = 1; n <= featured.getMaxDraws(); n++) {
+            double twice = 0.0;
+            for (int k = 1; k < n; k++) {
+                twice += cycle.probabilityAt(k) * cycle.probabilityAt(n - k);
+            }
+            double expected = 0.5 * cycle.probabilityAt(n) + 0.5 * twice;
+            assertEquals(expected, featured.probabilityAt(n), 1e-12);
+            total += featured.probabilityAt(n);
+        }
+        assertEquals(1.0, total, 1e-12);
+        assertEquals(1.5 * cycle.getMean(), featured.getMean(), 1e-9);
+        assertEquals(62.3, cycle.getMean(), 0.1);
+        assertTrue(featured.drawsForProbability(0.5) < featured.drawsForProbability(0.9));
+    }
+
+    @Test
+    void testFeaturedFromPityAndGuarantee() {
+        PityModel model = PityModel.of(PityRules.STANDARD);
+        PityDistribution lastDraw = model.getFeaturedDistribution(89, true);
+        assertEquals(1.0, lastDraw.probabilityAt(1), 1e-12);
+        assertEquals(1, lastDraw.drawsForProbability(0.9));
+
+        PityDistribution guaranteed = model.getFeaturedDistribution(0, true);
+        assertEquals(90, guaranteed.getMaxDraws());
+        assertEquals(model.getFiveStarDistribution().getMean(), guaranteed.getMean(), 1e-9);
+        double meanFromPity60 = model.getFeaturedDistribution(60, false).getMean();
+        double meanFromStart = model.getFeaturedDistribution(0, false).getMean();
+        assertTrue(meanFromPity60 < meanFromStart);
+        assertThrows(IllegalArgumentException.class, () -> model.getFeaturedDistribution(90, false));
+        assertThrows(IllegalArgumentException.class, () -> model.getFeaturedDistribution(-1, true));
+    }
+
+    @Test
+    void testCachedByRules() {
+        PityModel model = PityModel.of(new PityRules(0.006, 74, 0.06, 90, 0.5, true));
+        assertSame(model, PityModel.of(PityRules.STANDARD));
+        assertSame(model.getFeaturedDistribution(10, false), model.getFeaturedDistribution(10, false));
+        assertNotSame(model, PityModel.of(new PityRules(0.006, 74, 0.06, 80, 0.5, true)));
+    }
+
+    @Test
+    void testCompareWithHistory() {
+        GachaHistory history = new GachaHistory();
+        PityModel model = PityModel.of(new PityRules(0.5, 100, 0.0, 3, 1.0, false));
+        for (int i = 1; i <= 4; i++) {
+            // draw counts 1, 1, 2, 3 follow the model exactly
+            history.addPull(true, 0, i, Math.max(1, i - 1));
+        }
+        assertEquals(0.0, model.compareWith(history), 1e-12);
+        history.addPull(true, 0, 5, 3);
+        history.addPull(true, 0, 6, 3);
+        assertEquals(0.75 - 3.0 / 6, model.compareWith(history), 1e-12);
+
+        PityDistribution empirical = PityDistribution.empirical(history, 90);
+        assertEquals(3, empirical.getMaxDraws());
+        assertEquals(0.5, empirical.probabilityAt(3), 1e-12);
+        assertEquals(0.0, PityDistribution.empirical(new GachaHistory(), 90).probabilityWithin(1));
+        assertThrows(IllegalArgumentException.class, () -> PityDistribution.empirical(history, 0));
+    }
+
+    @Test
+    void testCompareWithHugeDrawCounts() {
+        GachaHistory history = new GachaHistory();
+        history.addPull(true, 0, 1, Integer.MAX_VALUE);
+        history.addPull(true, 0, 2, 100_000_000);
+        PityModel model = PityModel.of(PityRules.STANDARD);
+        // both records fall in the tail bucket at the hard pity
+        assertEquals(model.getFiveStarDistribution().probabilityWithin(89), model.compareWith(history), 1e-9);
+        PityDistribution empirical = PityDistribution.empirical(history, 90);
+        assertEquals(90, empirical.getMaxDraws());
+        assertEquals(1.0, empirical.probabilityAt(90), 1e-12);
+    }
+}
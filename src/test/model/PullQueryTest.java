@@ -0,0 +1,203 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the PullQuery and PullFilter classes.
+ */
+public class PullQueryTest {
+
+    private GachaHistory history;
+    private PullQuery query;
+
+    @BeforeEach
+    void runBefore() {
+        history = new GachaHistory();
+        Random random = new Random(42);
+        PullBatch batch = new PullBatch();
+        for (int i = 1; i <= 1000; i++) {
+            batch.add(random.nextBoolean(), random.nextInt(5), i, 1 + random.nextInt(90));
+        }
+        history.addAll(batch);
+        query = new PullQuery(history);
+    }
+
+    @Test
+    void testUnfilteredKeepsHistoryOrder() {
+        assertEquals(1000, query.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, query.positionAt(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> query.positionAt(1000));
+    }
+
+    @Test
+    void testFilterMatchesBruteForce() {
+        PullFilter filter = PullFilter.ALL.withRange(PullField.DRAW_COUNT, 30, 60).withDesired5Star(true);
+        query.setFilter(filter);
+        assertEquals(expected(filter), positions());
+        assertSame(filter, query.getFilter());
+    }
+
+    @Test
+    void testNarrowingThenWideningFilter() {
+        PullFilter wide = PullFilter.ALL.withRange(PullField.DRAW_COUNT, 5, Integer.MAX_VALUE);
+        PullFilter narrow = wide.withRange(PullField.DRAW_COUNT, 50, 80)
+                .withRange(PullField.NUMBER_OF_4_STARS, 0, 2);
+        assertTrue(narrow.narrows(wide));
+        assertFalse(wide.narrows(narrow));
+        assertTrue(PullFilter.ALL.withDesired5Star(null).narrows(PullFilter.ALL));
+
+        query.setFilter(wide);
+        query.setFilter(narrow);
+        assertEquals(expected(narrow), positions(), "Refining should give the same result as a rescan");
+        query.setFilter(wide);
+        assertEquals(expected(wide), positions(), "Widening should bring records back");
+    }
+
+    @Test
+    void testSortIsStableBothWays() {
+        query.sortBy(PullField.DRAW_COUNT, true);
+        assertSorted(true);
+        query.sortBy(PullField.DRAW_COUNT, false);
+        assertSorted(false);
+        assertEquals(PullField.DRAW_COUNT, query.getSortField());
+        assertFalse(query.isAscending());
+
+        query.sortBy(null, true);
+        assertEquals(0, query.positionAt(0), "A null field restores history order");
+    }
+
+    @Test
+    void testSortedAndFilteredAfterRefresh() {
+        PullFilter filter = PullFilter.ALL.withRange(PullField.NUMBER_OF_4_STARS, 4, 4);
+        query.sortBy(PullField.DRAW_COUNT, true);
+        query.setFilter(filter);
+        assertSorted(true);
+
+        history.addPull(false, 4, 1001, 1);
+        history.removePull(0);
+        query.refresh();
+        assertEquals(expected(filter).size(), query.size());
+        assertTrue(positions().contains(999), "The new record should be shown");
+        assertSorted(true);
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchRefresh() {
+        PullFilter filter = PullFilter.ALL.withRange(PullField.DRAW_COUNT, 20, 70);
+        history.addListener(new GachaHistoryListener() {
+            @Override
+            public void pullAdded(int position, boolean desired5Star, int numberOf4Stars, int pullIndex,
+                                  int drawCount) {
+                query.rowAdded(position);
+            }
+
+            @Override
+            public void pullRemoved(int position, boolean desired5Star, int numberOf4Stars, int pullIndex,
+                                    int drawCount) {
+                query.rowRemoved(position);
+            }
+
+            @Override
+            public void pullChanged(int position, boolean desired5Star, int numberOf4Stars, int pullIndex,
+                                    int drawCount) {
+                query.rowChanged(position);
+            }
+        });
+        Random random = new Random(7);
+        PullField[] sortFields = {null, PullField.DRAW_COUNT, PullField.NUMBER_OF_4_STARS};
+        for (int round = 0; round < 6; round++) {
+            query.setFilter(round % 2 == 0 ? filter : PullFilter.ALL);
+            query.sortBy(sortFields[round % 3], round < 3);
+            for (int step = 0; step < 50; step++) {
+                int size = history.size();
+                switch (random.nextInt(4)) {
+                    case 0:
+                        history.addPull(random.nextBoolean(), random.nextInt(5), 2000 + step, 1 + random.nextInt(90));
+                        break;
+                    case 1:
+                        history.removePull(random.nextInt(size));
+                        break;
+                    case 2:
+                        history.setDrawCount(random.nextInt(size), 1 + random.nextInt(90));
+                        break;
+                    default:
+                        PullBatch batch = new PullBatch();
+                        batch.add(true, 1, 3000 + step, 1 + random.nextInt(90));
+                        batch.add(false, 2, 3001 + step, 1 + random.nextInt(90));
+                        history.addAll(batch);
+                }
+                PullQuery fresh = new PullQuery(history);
+                fresh.setFilter(query.getFilter());
+                fresh.sortBy(query.getSortField(), query.isAscending());
+                assertEquals(positions(fresh), positions(query), "Round " + round + ", step " + step);
+            }
+        }
+    }
+
+    @Test
+    void testRowAddedAndRemovedReturnViewIndex() {
+        query.setFilter(PullFilter.ALL.withRange(PullField.DRAW_COUNT, 1, 1));
+        query.sortBy(PullField.DRAW_COUNT, true);
+        int shown = query.size();
+
+        history.addPull(false, 0, 1001, 1);
+        assertEquals(shown, query.rowAdded(1000), "Equal values keep history order");
+        history.addPull(false, 0, 1002, 50);
+        assertEquals(-1, query.rowAdded(1001));
+        history.removePull(1000);
+        assertEquals(shown, query.rowRemoved(1000));
+        history.removePull(1000);
+        assertEquals(-1, query.rowRemoved(1000));
+        assertEquals(shown, query.size());
+    }
+
+    // EFFECTS: returns the positions currently shown by query
+    private List<Integer> positions() {
+        return positions(query);
+    }
+
+    // EFFECTS: returns the positions shown by view
+    private static List<Integer> positions(PullQuery view) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < view.size(); i++) {
+            positions.add(view.positionAt(i));
+        }
+        return positions;
+    }
+
+    // EFFECTS: returns the positions of the records filter accepts, in history order
+    private List<Integer> expected(PullFilter filter) {
+        List<Integer> positions = new ArrayList<>();
+        List<GachaPull> pulls = history.getAllPulls();
+        for (int i = 0; i < pulls.size(); i++) {
+            GachaPull pull = pulls.get(i);
+            if (filter.accepts(pull.isDesired5Star(), pull.getNumberOf4Stars(), pull.getPullIndex(),
+                    pull.getDrawCount())) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    // EFFECTS: checks that the shown records are ordered by draw count, and by
+    //          position among equal draw counts
+    private void assertSorted(boolean ascending) {
+        for (int i = 1; i < query.size(); i++) {
+            int before = PullField.DRAW_COUNT.valueAt(history, query.positionAt(i - 1));
+            int after = PullField.DRAW_COUNT.valueAt(history, query.positionAt(i));
+            assertTrue(ascending ? before <= after : before >= after, "Out of order at " + i);
+            if (before == after) {
+                assertTrue(query.positionAt(i - 1) < query.positionAt(i), "Sort should be stable at " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the RollingStats class.
+ * Every window is checked against a scan of the history's last records.
+ */
+public class RollingStatsTest {
+
+    private GachaHistory history;
+    private RollingStats stats;
+
+    @BeforeEach
+    void runBefore() {
+        history = new GachaHistory();
+        stats = new RollingStats(history, 50, 5, 20, 5);
+    }
+
+    @Test
+    void testWindowSizes() {
+        assertArrayEquals(new int[] {5, 20, 50}, stats.getWindowSizes());
+        assertEquals(0, stats.getCount(5));
+        assertEquals(0.0, stats.getFiveStarRate(5));
+        assertEquals(0.0, stats.getFourStarAvg(50));
+        assertThrows(IllegalArgumentException.class, () -> stats.getCount(7));
+        assertThrows(IllegalArgumentException.class, () -> new RollingStats(history));
+        assertThrows(IllegalArgumentException.class, () -> new RollingStats(history, 0));
+    }
+
+    @Test
+    void testPartialAndFullWindows() {
+        history.addPull(true, 2, 1, 10);
+        history.addPull(false, 4, 2, 30);
+        assertEquals(2, stats.getCount(5));
+        assertEquals(1.0 / 40, stats.getFiveStarRate(5), 1e-12);
+        assertEquals(3.0, stats.getFourStarAvg(20), 1e-12);
+        for (int i = 3; i <= 7; i++) {
+            history.addPull(false, 0, i, 10);
+        }
+        assertEquals(5, stats.getCount(5));
+        assertEquals(0.0, stats.getFiveStarRate(5), "The desired pull left the 5-pull window");
+        assertEquals(1.0 / 90, stats.getFiveStarRate(20), 1e-12);
+    }
+
+    @Test
+    void testRandomChangesMatchScan() {
+        Random random = new Random(3);
+        for (int step = 0; step < 3000; step++) {
+            int size = history.getAllPulls().size();
+            int action = random.nextInt(20);
+            if (action < 14 || size == 0) {
+                history.addPull(random.nextBoolean(), random.nextInt(5), step + 1, 1 + random.nextInt(90));
+            } else if (action < 16) {
+                history.removePull(random.nextInt(size));
+            } else if (action < 19) {
+                GachaPull pull = history.getAllPulls().get(size - 1 - random.nextInt(Math.min(size, 60)));
+                pull.setDrawCount(1 + random.nextInt(90));
+                pull.setDesired5Star(random.nextBoolean());
+            } else {
+                PullBatch batch = new PullBatch();
+                int count = random.nextInt(80);
+                for (int i = 0; i < count; i++) {
+                    batch.add(random.nextBoolean(), random.nextInt(5), step + 1, 1 + random.nextInt(90));
+                }
+                history.addAll(batch);
+            }
+            for (int window : stats.getWindowSizes()) {
+                assertMatchesScan(window);
+            }
+        }
+    }
+
+    @Test
+    void testDetachStopsUpdates() {
+        history.addPull(true, 1, 1, 10);
+        stats.detach();
+        history.addPull(false, 1, 2, 10);
+        assertEquals(1, stats.getCount(5));
+    }
+
+    // EFFECTS: checks one window against a scan of the last window records
+    private void assertMatchesScan(int window) {
+        List<GachaPull> pulls = history.getAllPulls();
+        int from = Math.max(0, pulls.size() - window);
+        int desired = 0;
+        long draws = 0;
+        long fours = 0;
+        for (GachaPull pull : pulls.subList(from, pulls.size())) {
+            desired += pull.isDesired5Star() ? 1 : 0;
+            draws += pull.getDrawCount();
+            fours += pull.getNumberOf4Stars();
+        }
+        int count = pulls.size() - from;
+        assertEquals(count, stats.getCount(window));
+        assertEquals(count == 0 ? 0.0 : (double) desired / draws, stats.getFiveStarRate(window), 1e-12);
+        assertEquals(count == 0 ? 0.0 : (double) fours / count, stats.getFourStarAvg(window), 1e-12);
+    }
+}
@@ -0,0 +1,81 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the SignificanceTest class.
+ */
+public class SignificanceTestTest {
+
+    @Test
+    void testMatchesExactBinomial() {
+        // ten single-draw records at an official rate of 1/2: X ~ Binomial(10, 1/2)
+        GachaHistory history = new GachaHistory();
+        for (int i = 1; i <= 10; i++) {
+            history.addPull(i <= 8, 0, i, 1);
+        }
+        SignificanceTest test = new SignificanceTest(history, 0.5);
+        SignificanceTest.Result result = test.run(200_000, 0.95, 1L);
+
+        assertEquals(0.8, result.getObservedRate(), 1e-12);
+        assertEquals(56.0 / 1024, result.getPValue(), 0.005, "P(X >= 8) = 56/1024");
+        assertEquals(0.2, result.getBandLow(), 1e-12);
+        assertEquals(0.8, result.getBandHigh(), 1e-12);
+        assertEquals(0.95, result.getConfidenceLevel());
+        assertEquals(200_000, result.getSimulations());
+        assertEquals(1.0, test.getProgress());
+    }
+
+    @Test
+    void testSameSeedSameResult() {
+        GachaHistory history = new GachaHistory();
+        for (int i = 1; i <= 300; i++) {
+            history.addPull(i % 3 == 0, 1, i, 1 + i % 90);
+        }
+        SignificanceTest.Result first = new SignificanceTest(history, 0.01).run(50_000, 0.9, 99L);
+        SignificanceTest.Result second = new SignificanceTest(history, 0.01).run(50_000, 0.9, 99L);
+        assertEquals(first.getPValue(), second.getPValue());
+        assertEquals(first.getBandLow(), second.getBandLow());
+        assertEquals(first.getBandHigh(), second.getBandHigh());
+    }
+
+    @Test
+    void testLargeGroupAroundExpectedRate() {
+        // 100,000 records of 80 draws: each is desired with probability 1 - 0.994^80
+        GachaHistory history = new GachaHistory();
+        PullBatch batch = new PullBatch(100_000);
+        for (int i = 1; i <= 100_000; i++) {
+            batch.add(i % 3 == 0, 0, i, 80);
+        }
+        history.addAll(batch);
+        SignificanceTest.Result result = new SignificanceTest(history, 0.006).run(100_000, 0.99, 5L);
+        double expected = (1 - Math.pow(0.994, 80)) / 80;
+        assertTrue(result.getBandLow() < expected && expected < result.getBandHigh(),
+                "The band should contain the expected rate " + expected);
+        assertTrue(result.getPValue() > 0.99, "An observed rate well below the official one is not significant");
+    }
+
+    @Test
+    void testCancelAndInvalidArguments() {
+        GachaHistory history = new GachaHistory();
+        history.addPull(true, 0, 1, 10);
+        SignificanceTest test = new SignificanceTest(history, 0.1);
+        test.cancel();
+        assertTrue(test.isCancelled());
+        assertThrows(CancellationException.class, () -> test.run(10_000, 0.95, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new SignificanceTest(history, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new SignificanceTest(history, 0.1).run(0, 0.95, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new SignificanceTest(history, 0.1).run(10, 1.0, 1L));
+    }
+
+    @Test
+    void testEmptyHistory() {
+        SignificanceTest.Result result = new SignificanceTest(new GachaHistory(), 0.5).run(1000, 0.95, 1L);
+        assertEquals(0.0, result.getObservedRate());
+        assertEquals(1.0, result.getPValue());
+    }
+}
@@ -0,0 +1,142 @@
+package persistence;
+
+import model.GachaHistory;
+import model.GachaPull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the AutosaveService class.
+ * A single-threaded executor stands in for the Swing event dispatch thread.
+ */
+public class AutosaveServiceTest {
+
+    private static final String DATA_FILE = "./data/testAutosave.json";
+
+    private ExecutorService owner;
+    private GachaHistory history;
+    private AtomicInteger saves;
+    private CountDownLatch saved;
+    private AtomicReference<GachaHistory> loaded;
+    private CountDownLatch loadDone;
+    private AutosaveService service;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        Files.deleteIfExists(Path.of(DATA_FILE));
+        owner = Executors.newSingleThreadExecutor();
+        history = new GachaHistory();
+        saves = new AtomicInteger();
+        saved = new CountDownLatch(1);
+        loaded = new AtomicReference<>();
+        loadDone = new CountDownLatch(1);
+        service = new AutosaveService(DATA_FILE, 100, () -> history, owner, new AutosaveService.Listener() {
+            @Override
+            public void saveStarted(int pulls) {
+            }
+
+            @Override
+            public void saveCompleted(int pulls, long millis) {
+                saves.incrementAndGet();
+                saved.countDown();
+            }
+
+            @Override
+            public void saveFailed(Exception e) {
+                fail("Save should not fail: " + e);
+            }
+
+            @Override
+            public void loadCompleted(GachaHistory h, long millis) {
+                loaded.set(h);
+                loadDone.countDown();
+            }
+
+            @Override
+            public void loadFailed(Exception e) {
+                loadDone.countDown();
+            }
+        });
+    }
+
+    @AfterEach
+    void runAfter() throws Exception {
+        owner.submit(() -> {
+            service.close();
+            return null;
+        }).get();
+        owner.shutdown();
+        Files.deleteIfExists(Path.of(DATA_FILE));
+    }
+
+    @Test
+    void testBurstOfEditsCoalescesIntoOneSave() throws Exception {
+        owner.submit(() -> {
+            for (int i = 1; i <= 20; i++) {
+                history.addPull(new GachaPull(i % 2 == 0, 1, i, 10));
+                service.changed();
+            }
+        }).get();
+        assertTrue(saved.await(5, TimeUnit.SECONDS), "Autosave should run after the quiet period");
+        Thread.sleep(300);
+        assertEquals(1, saves.get(), "Twenty quick edits should cost one write");
+        assertEquals(20, new JsonReader(DATA_FILE).read().getAllPulls().size());
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByLaterEdits() throws Exception {
+        owner.submit(() -> {
+            history.addPull(new GachaPull(true, 1, 1, 10));
+            service.saveNow();
+            history.addPull(new GachaPull(true, 1, 2, 10));
+        }).get();
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        assertEquals(1, new JsonReader(DATA_FILE).read().getAllPulls().size(),
+                "The save should contain the history as it was when snapshotted");
+    }
+
+    @Test
+    void testLoadInBackground() throws Exception {
+        Files.copy(Path.of("./data/GeneralGachaHistory.json"), Path.of(DATA_FILE));
+        owner.submit(service::load).get();
+        assertTrue(loadDone.await(5, TimeUnit.SECONDS));
+        assertEquals(2, loaded.get().getAllPulls().size());
+    }
+
+    @Test
+    void testCloseWritesPendingEdits() throws Exception {
+        owner.submit(() -> {
+            history.addPull(new GachaPull(true, 1, 1, 10));
+            service.changed();
+            service.close();
+            return null;
+        }).get();
+        assertEquals(1, new JsonReader(DATA_FILE).read().getAllPulls().size(),
+                "Closing should flush edits still waiting for the quiet period");
+    }
+
+    @Test
+    void testShutdownThenAwaitOffOwnerThread() throws Exception {
+        owner.submit(() -> {
+            history.addPull(new GachaPull(true, 1, 1, 10));
+            service.changed();
+            service.shutdown();
+        }).get();
+        assertTrue(service.awaitTermination(5000), "The final save should finish within the wait");
+        assertTrue(saved.await(5, TimeUnit.SECONDS), "Listener callbacks should still reach the owner thread");
+        assertEquals(1, new JsonReader(DATA_FILE).read().getAllPulls().size());
+    }
+}
@@ -0,0 +1,171 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.GachaHistory;
+import model.GachaPull;
+import model.HistoryGenerator;
+import model.Metrics;
+import model.PityRules;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the BinaryWriter, BinaryReader and HistoryConverter classes.
+ */
+public class BinaryFormatTest {
+
+    private static final String GENERAL_FILE = "./data/testBinaryGachaHistory.bin";
+
+    @Test
+    void testWriterInvalidFile() {
+        BinaryWriter writer = new BinaryWriter("./data/\0illegalFileName.bin");
+        assertThrows(FileNotFoundException.class, writer::open,
+                "Expected FileNotFoundException for an illegal file name");
+    }
+
+    @Test
+    void testReaderNonExistentFile() {
+        BinaryReader reader = new BinaryReader("./data/NoSuchFile.bin");
+        assertThrows(IOException.class, reader::read,
+                "Expected IOException for a non-existent file path.");
+    }
+
+    @Test
+    void testEmptyGachaHistory() throws IOException {
+        write(new GachaHistory(), "./data/testBinaryEmptyGachaHistory.bin");
+        GachaHistory reloaded = new BinaryReader("./data/testBinaryEmptyGachaHistory.bin").read();
+        assertEquals(0, reloaded.getAllPulls().size(),
+                "Expected empty GachaHistory after writing empty data.");
+    }
+
+    @Test
+    void testGeneralGachaHistory() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        gh.addPull(new GachaPull(true, 2, 1, 10));
+        gh.addPull(new GachaPull(false, 0, 2, 10));
+        gh.addPull(new GachaPull(false, 300, 1, 90));
+        gh.addPull(new GachaPull(true, 1, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        write(gh, GENERAL_FILE);
+
+        GachaHistory reloaded = new BinaryReader(GENERAL_FILE).read();
+        assertTrue(gh.toJson().similar(reloaded.toJson()), "Binary file should read back the same pulls");
+        // header 6, then records of 3, 3, 4 and 11 bytes, then a 4-byte checksum
+        assertEquals(6 + 3 + 3 + 4 + 11 + 4, Files.size(Paths.get(GENERAL_FILE)),
+                "Small values should take one byte per field");
+    }
+
+    @Test
+    void testCorruptedFileFailsChecksum() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        gh.addPull(new GachaPull(true, 2, 1, 10));
+        write(gh, "./data/testBinaryCorrupted.bin");
+        Path path = Paths.get("./data/testBinaryCorrupted.bin");
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[8] ^= 0x02;
+        Files.write(path, bytes);
+
+        IOException e = assertThrows(IOException.class, new BinaryReader(path.toString())::read);
+        assertEquals("Checksum mismatch in " + path, e.getMessage());
+    }
+
+    @Test
+    void testTruncatedFile() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        gh.addPull(new GachaPull(true, 2, 1, 10));
+        write(gh, "./data/testBinaryTruncated.bin");
+        Path path = Paths.get("./data/testBinaryTruncated.bin");
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+
+        assertThrows(EOFException.class, new BinaryReader(path.toString())::read,
+                "A truncated file should be reported");
+    }
+
+    @Test
+    void testReaderRejectsJsonFile() {
+        BinaryReader reader = new BinaryReader("./data/GeneralGachaHistory.json");
+        assertThrows(IOException.class, reader::read, "A JSON file is not a binary history");
+    }
+
+    @Test
+    void testConvertRoundTrip() throws IOException {
+        HistoryConverter.jsonToBinary("./data/GeneralGachaHistory.json", "./data/testConvertedGachaHistory.bin");
+        HistoryConverter.binaryToJson("./data/testConvertedGachaHistory.bin",
+                "./data/testConvertedGachaHistory.json", true);
+
+        GachaHistory original = new JsonReader("./data/GeneralGachaHistory.json").read();
+        GachaHistory converted = new JsonReader("./data/testConvertedGachaHistory.json").read();
+        assertTrue(original.toJson().similar(converted.toJson()), "Conversion should preserve every pull");
+    }
+
+    @Test
+    void testLargeHistoryIsReportedOnceAndMeasured() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        for (int i = 1; i <= 20000; i++) {
+            gh.addPull(i % 5 == 0, i % 3, i, 1 + i % 90);
+        }
+        Path path = Paths.get("./data/testBinaryChunks.bin");
+        Metrics metrics = Metrics.getInstance();
+        long writes = metrics.histogram("BinaryWriter.write").getCount();
+        long reads = metrics.histogram("BinaryReader.read").getCount();
+        long savedPulls = metrics.getCounters().get("save.pulls");
+        long loadedPulls = metrics.getCounters().get("load.pulls");
+        long loadedBytes = metrics.getCounters().get("load.bytes");
+        try {
+            write(gh, path.toString());
+            EventLog.getInstance().clear();
+            GachaHistory reloaded = new BinaryReader(path.toString()).read();
+
+            assertTrue(gh.toJson().similar(reloaded.toJson()));
+            assertEquals(1, EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED).size(),
+                    "A load should log one summary event, not one per chunk");
+            assertEquals(writes + 1, metrics.histogram("BinaryWriter.write").getCount());
+            assertEquals(reads + 1, metrics.histogram("BinaryReader.read").getCount());
+            assertEquals(savedPulls + 20000, metrics.getCounters().get("save.pulls"));
+            assertEquals(loadedPulls + 20000, metrics.getCounters().get("load.pulls"));
+            assertEquals(loadedBytes + Files.size(path), metrics.getCounters().get("load.bytes"));
+
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[bytes.length - 1] ^= 0x01;
+            Files.write(path, bytes);
+            EventLog.getInstance().clear();
+            assertThrows(IOException.class, new BinaryReader(path.toString())::read);
+            assertEquals(0, EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED).size(),
+                    "A file that fails its checksum should report no records");
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    // EFFECTS: writes gh to destination in the binary format
+    @Test
+    void testGeneratedHistory() throws IOException {
+        HistoryGenerator generator = new HistoryGenerator(PityRules.STANDARD, HistoryGenerator.STANDARD_FOUR_STAR, 9L);
+        BinaryWriter writer = new BinaryWriter("./data/testBinaryGeneratedHistory.bin");
+        writer.open();
+        writer.write(generator, 200_000);
+        writer.close();
+
+        GachaHistory reloaded = new BinaryReader("./data/testBinaryGeneratedHistory.bin").read();
+        assertTrue(generator.generate(200_000).toJson().similar(reloaded.toJson()),
+                "Streamed records should match the generated history");
+        Files.delete(Paths.get("./data/testBinaryGeneratedHistory.bin")); // too large to keep around
+    }
+
+    private void write(GachaHistory gh, String destination) throws IOException {
+        BinaryWriter writer = new BinaryWriter(destination);
+        writer.open();
+        writer.write(gh);
+        writer.close();
+    }
+}
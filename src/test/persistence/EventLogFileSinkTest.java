@@ -0,0 +1,103 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventLogFileSink class.
+ */
+public class EventLogFileSinkTest {
+
+    private static final String LOG_FILE = "./data/testEvents.log";
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        deleteFiles();
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        deleteFiles();
+    }
+
+    @Test
+    void testEventsWrittenToFile() throws Exception {
+        EventLogFileSink sink = new EventLogFileSink(LOG_FILE);
+        sink.start();
+        EventLog.getInstance().logEvent(Event.pullAdded(1, true, 3, 34));
+        EventLog.getInstance().logEvent(Event.pullRemoved(1));
+        sink.close();
+        EventLog.getInstance().logEvent(new Event("After close"));
+
+        List<String> lines = Files.readAllLines(Path.of(LOG_FILE));
+        assertEquals(2, lines.size(), "Only events logged while started should be written");
+        assertTrue(lines.get(0).endsWith(" PULL_ADDED Added pull record: Pull #1, Desired 5-star: true, "
+                + "4-star count: 3, Total draws: 34"), lines.get(0));
+        assertTrue(lines.get(1).endsWith(" PULL_REMOVED Removed pull record: Pull #1"), lines.get(1));
+    }
+
+    @Test
+    void testRotation() throws Exception {
+        EventLogFileSink sink = new EventLogFileSink(LOG_FILE, 100, 2, 100);
+        sink.start();
+        for (int i = 0; i < 10; i++) {
+            EventLog.getInstance().logEvent(new Event("Event number " + i));
+        }
+        sink.close();
+
+        assertTrue(Files.size(Path.of(LOG_FILE)) <= 100, "Current file should not exceed the limit");
+        assertTrue(Files.exists(Path.of(LOG_FILE + ".1")), "Older events should be rotated out");
+        assertTrue(Files.exists(Path.of(LOG_FILE + ".2")));
+        assertFalse(Files.exists(Path.of(LOG_FILE + ".3")), "Only two rotated files should be kept");
+        List<String> current = Files.readAllLines(Path.of(LOG_FILE));
+        assertTrue(current.get(current.size() - 1).endsWith("Event number 9"), "Newest event is in the current file");
+    }
+
+    @Test
+    void testFullQueueDropsEvents() {
+        EventLogFileSink sink = new EventLogFileSink(LOG_FILE, 1000, 1, 2);
+        sink.accept(new Event("a"));
+        sink.accept(new Event("b"));
+        sink.accept(new Event("c"));
+        assertEquals(1, sink.getDroppedCount(), "The event that did not fit should be counted");
+    }
+
+    @Test
+    void testWriteFailureUnregistersAndIsReported() throws Exception {
+        EventLogFileSink sink = new EventLogFileSink(LOG_FILE, 10, 1, 100);
+        sink.start();
+        EventLog.getInstance().logEvent(new Event("First"));
+        while (Files.size(Path.of(LOG_FILE)) == 0) {
+            Thread.sleep(10);
+        }
+        // rotating the next event moves LOG_FILE, which fails once it is gone
+        Files.delete(Path.of(LOG_FILE));
+        EventLog.getInstance().logEvent(new Event("Second"));
+        for (int i = 0; i < 500 && !sink.isFailed(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(sink.isFailed());
+        assertEquals(1, sink.getDroppedCount(), "The unwritten event should be counted");
+
+        EventLog.getInstance().logEvent(new Event("After failure"));
+        assertEquals(1, sink.getDroppedCount(), "A failed sink should no longer receive events");
+        assertThrows(IOException.class, sink::close);
+    }
+
+    // EFFECTS: removes the files used by these tests
+    private void deleteFiles() throws IOException {
+        for (String suffix : new String[] {"", ".1", ".2", ".3"}) {
+            Files.deleteIfExists(Path.of(LOG_FILE + suffix));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package persistence;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.Event;
+import model.EventLog;
+import model.GachaHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Flight Recorder events emitted when loading, saving and
+ * writing the event log.
+ */
+public class FlightRecorderEventsTest {
+
+    private static final String BINARY_FILE = "./data/testJfrHistory.bin";
+    private static final String JSON_FILE = "./data/testJfrHistory.json";
+    private static final String LOG_FILE = "./data/testJfrEvents.log";
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(BINARY_FILE));
+        Files.deleteIfExists(Paths.get(JSON_FILE));
+        Files.deleteIfExists(Paths.get(LOG_FILE));
+    }
+
+    @Test
+    void testLoadAndSaveEvents() throws Exception {
+        GachaHistory history = new GachaHistory();
+        history.addPull(true, 1, 1, 30);
+        history.addPull(false, 2, 2, 60);
+
+        List<RecordedEvent> events = record(() -> {
+            BinaryWriter binaryWriter = new BinaryWriter(BINARY_FILE);
+            binaryWriter.open();
+            binaryWriter.write(history);
+            binaryWriter.close();
+            new BinaryReader(BINARY_FILE).read();
+            JsonStreamWriter jsonWriter = new JsonStreamWriter(JSON_FILE);
+            jsonWriter.open();
+            jsonWriter.write(history);
+            jsonWriter.close();
+            new JsonStreamReader(JSON_FILE).read();
+        }, "gachatracker.HistorySave", "gachatracker.HistoryLoad");
+
+        assertEquals(List.of("HistorySave binary", "HistoryLoad binary",
+                        "HistorySave json-stream", "HistoryLoad json-stream"),
+                events.stream().map(e -> e.getEventType().getName().substring("gachatracker.".length())
+                        + " " + e.getString("format")).collect(Collectors.toList()));
+        for (RecordedEvent e : events) {
+            assertEquals(2, e.getInt("records"));
+            String file = e.getString("format").equals("binary") ? BINARY_FILE : JSON_FILE;
+            assertEquals(file, e.getString("path"));
+            assertEquals(Files.size(Paths.get(file)), e.getLong("bytes"));
+        }
+    }
+
+    @Test
+    void testEventLogFlushEvents() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            EventLogFileSink sink = new EventLogFileSink(LOG_FILE);
+            sink.start();
+            EventLog.getInstance().logEvent(new Event("One"));
+            EventLog.getInstance().logEvent(new Event("Two"));
+            sink.close();
+        }, "gachatracker.EventLogFlush");
+
+        assertFalse(events.isEmpty());
+        assertEquals(2, events.stream().mapToInt(e -> e.getInt("events")).sum());
+        assertEquals(Files.size(Paths.get(LOG_FILE)), events.stream().mapToLong(e -> e.getLong("bytes")).sum());
+    }
+
+    /**
+     * An action that may throw, run while recording.
+     */
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    // EFFECTS: runs action while recording the named events with no threshold
+    //          and returns the recorded events of those types, oldest first
+    private static List<RecordedEvent> record(Action action, String... eventNames) throws Exception {
+        Path file = Files.createTempFile("gacha", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : eventNames) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            List<String> names = List.of(eventNames);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> names.contains(e.getEventType().getName()))
+                    .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
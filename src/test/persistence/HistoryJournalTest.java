@@ -0,0 +1,150 @@
+package persistence;
+
+import model.GachaHistory;
+import model.GachaPull;
+import model.PullBatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the HistoryJournal class.
+ * Each test reopens the journal to check what a restart would see.
+ */
+public class HistoryJournalTest {
+
+    private static final String SNAPSHOT = "./data/testJournalSnapshot.bin";
+    private static final String JOURNAL = "./data/testJournal.journal";
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        deleteFiles();
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        deleteFiles();
+    }
+
+    @Test
+    void testReplayWithoutCheckpoint() throws IOException {
+        HistoryJournal journal = new HistoryJournal(SNAPSHOT, JOURNAL);
+        GachaHistory history = journal.open();
+        assertEquals(0, history.getAllPulls().size(), "A new journal starts empty");
+        history.addPull(new GachaPull(true, 2, 1, 10));
+        history.addPull(new GachaPull(false, 0, 2, 20));
+        history.addPull(new GachaPull(false, 1, 3, 30));
+        history.removePull(1);
+        history.getAllPulls().get(1).setDrawCount(45);
+        journal.close();
+
+        assertFalse(Files.exists(Paths.get(SNAPSHOT)), "No checkpoint should have been taken");
+        GachaHistory reloaded = new HistoryJournal(SNAPSHOT, JOURNAL).open();
+        assertTrue(history.toJson().similar(reloaded.toJson()), "Replay should rebuild the same history");
+    }
+
+    @Test
+    void testCheckpointCompactsJournal() throws IOException {
+        HistoryJournal journal = new HistoryJournal(SNAPSHOT, JOURNAL, 3);
+        GachaHistory history = journal.open();
+        history.addPull(new GachaPull(true, 2, 1, 10));
+        history.addPull(new GachaPull(false, 0, 2, 20));
+        history.addPull(new GachaPull(false, 1, 3, 30));
+        assertTrue(Files.exists(Paths.get(SNAPSHOT)), "Third change should trigger a checkpoint");
+        assertEquals(10, Files.size(Paths.get(JOURNAL)), "Journal should hold only its header");
+
+        history.addPull(new GachaPull(true, 4, 4, 40));
+        journal.close();
+        GachaHistory reloaded = new HistoryJournal(SNAPSHOT, JOURNAL, 3).open();
+        assertTrue(history.toJson().similar(reloaded.toJson()),
+                "Snapshot plus journal should rebuild the same history");
+    }
+
+    @Test
+    void testCheckpointDuringBatchDoesNotDuplicateRecords() throws IOException {
+        HistoryJournal journal = new HistoryJournal(SNAPSHOT, JOURNAL, 10);
+        GachaHistory history = journal.open();
+        for (int i = 1; i <= 5; i++) {
+            history.addPull(new GachaPull(i % 2 == 0, 1, i, 10));
+        }
+        PullBatch batch = new PullBatch(20);
+        for (int i = 6; i <= 25; i++) {
+            batch.add(i % 3 == 0, 0, i, 20);
+        }
+        history.addAll(batch);
+        assertEquals(25, history.getAllPulls().size());
+        history.addPull(new GachaPull(true, 2, 26, 30));
+        journal.close();
+
+        GachaHistory reloaded = new HistoryJournal(SNAPSHOT, JOURNAL, 10).open();
+        assertEquals(26, reloaded.getAllPulls().size(), "No record of the batch should be replayed twice");
+        assertTrue(history.toJson().similar(reloaded.toJson()));
+    }
+
+    @Test
+    void testSmallBatchIsJournaled() throws IOException {
+        HistoryJournal journal = new HistoryJournal(SNAPSHOT, JOURNAL, 10);
+        GachaHistory history = journal.open();
+        PullBatch batch = new PullBatch(3);
+        for (int i = 1; i <= 3; i++) {
+            batch.add(true, i, i, 10 * i);
+        }
+        history.addAll(batch);
+        journal.close();
+
+        assertFalse(Files.exists(Paths.get(SNAPSHOT)), "A batch that fits the journal should not checkpoint");
+        GachaHistory reloaded = new HistoryJournal(SNAPSHOT, JOURNAL, 10).open();
+        assertTrue(history.toJson().similar(reloaded.toJson()));
+    }
+
+    @Test
+    void testTornRecordIsIgnored() throws IOException {
+        HistoryJournal journal = new HistoryJournal(SNAPSHOT, JOURNAL);
+        GachaHistory history = journal.open();
+        history.addPull(new GachaPull(true, 2, 1, 10));
+        journal.close();
+        Files.write(Paths.get(JOURNAL), new byte[] {9, 1, 0, 3}, StandardOpenOption.APPEND);
+
+        HistoryJournal reopened = new HistoryJournal(SNAPSHOT, JOURNAL);
+        GachaHistory reloaded = reopened.open();
+        assertEquals(1, reloaded.getAllPulls().size(), "Torn record should be dropped");
+        reloaded.addPull(new GachaPull(false, 0, 2, 20));
+        reopened.close();
+
+        GachaHistory again = new HistoryJournal(SNAPSHOT, JOURNAL).open();
+        assertEquals(2, again.getAllPulls().size(), "New records should follow the last intact one");
+    }
+
+    @Test
+    void testStaleJournalIsIgnored() throws IOException {
+        HistoryJournal journal = new HistoryJournal(SNAPSHOT, JOURNAL);
+        GachaHistory history = journal.open();
+        history.addPull(new GachaPull(true, 2, 1, 10));
+        journal.close();
+
+        // A crash after the new snapshot replaced the old one but before the
+        // journal was emptied leaves a journal that belongs to the old snapshot.
+        BinaryWriter writer = new BinaryWriter(SNAPSHOT);
+        writer.open();
+        writer.write(history);
+        writer.close();
+
+        GachaHistory reloaded = new HistoryJournal(SNAPSHOT, JOURNAL).open();
+        assertEquals(1, reloaded.getAllPulls().size(), "Stale journal must not be replayed twice");
+    }
+
+    // EFFECTS: removes the files used by these tests
+    private void deleteFiles() throws IOException {
+        for (String file : new String[] {SNAPSHOT, JOURNAL, SNAPSHOT + ".tmp"}) {
+            Files.deleteIfExists(Path.of(file));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package persistence;
+
+import model.GachaHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the HistoryRepository class.
+ */
+public class HistoryRepositoryTest {
+
+    private Path root;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        root = Files.createTempDirectory("gacha-repository");
+    }
+
+    @Test
+    void testNewAccountAndReload() throws IOException {
+        HistoryRepository repository = new HistoryRepository(root.toString(), 1000);
+        assertFalse(repository.exists("alice"));
+        GachaHistory history = repository.get("alice");
+        assertEquals(0, history.getAllPulls().size());
+        assertSame(history, repository.get("alice"), "A cached history should be returned again");
+        assertEquals(1, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+
+        history.addPull(true, 2, 1, 70);
+        history.addPull(false, 1, 2, 80);
+        assertEquals(2, repository.getCachedPulls());
+        repository.close();
+        assertEquals(0, repository.getCachedAccounts());
+
+        Path file = repository.pathOf("alice");
+        assertTrue(Files.exists(file));
+        assertEquals(root, file.getParent().getParent(), "Files should be one shard directory deep");
+        GachaHistory reloaded = new HistoryRepository(root.toString(), 1000).get("alice");
+        assertTrue(history.toJson().similar(reloaded.toJson()));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws IOException {
+        HistoryRepository repository = new HistoryRepository(root.toString(), 10);
+        fill(repository.get("a"), 4);
+        fill(repository.get("b"), 4);
+        repository.get("a"); // b is now the least recently used
+        GachaHistory c = repository.get("c");
+        assertEquals(2, repository.getCachedAccounts(), "Each history also weighs one, so b no longer fits");
+        assertTrue(Files.exists(repository.pathOf("b")), "The evicted history should have been written back");
+        assertFalse(Files.exists(repository.pathOf("a")), "Cached histories are not written until needed");
+
+        fill(c, 5);
+        assertEquals(9, repository.getCachedPulls(), "The limit is only enforced on the next get");
+        repository.get("a");
+        assertEquals(1, repository.getCachedAccounts());
+        assertTrue(Files.exists(repository.pathOf("c")));
+
+        GachaHistory b = repository.get("b");
+        assertEquals(4, b.getAllPulls().size());
+        assertEquals(4, repository.getMissCount());
+    }
+
+    @Test
+    void testCleanHistoriesAreNotWritten() throws IOException {
+        HistoryRepository repository = new HistoryRepository(root.toString(), 0);
+        repository.get("quiet");
+        repository.get("other");
+        assertEquals(1, repository.getCachedAccounts(), "Only the history just returned is kept");
+        assertFalse(Files.exists(repository.pathOf("quiet")));
+
+        GachaHistory big = repository.get("big");
+        fill(big, 5);
+        assertSame(big, repository.get("big"), "The requested history is kept even when over the limit");
+        repository.flush();
+        assertTrue(Files.exists(repository.pathOf("big")));
+    }
+
+    @Test
+    void testEditsMarkDirty() throws IOException {
+        HistoryRepository repository = new HistoryRepository(root.toString(), 100);
+        fill(repository.get("edit"), 3);
+        repository.flush();
+        repository.get("edit").getAllPulls().get(1).setDrawCount(42);
+        repository.close();
+        assertEquals(42, new HistoryRepository(root.toString(), 100).get("edit").getAllPulls().get(1).getDrawCount());
+    }
+
+    @Test
+    void testInvalidAccountIds() {
+        HistoryRepository repository = new HistoryRepository(root.toString(), 100);
+        assertThrows(IllegalArgumentException.class, () -> repository.get("../escape"));
+        assertThrows(IllegalArgumentException.class, () -> repository.get(""));
+        assertThrows(IllegalArgumentException.class, () -> repository.exists(null));
+    }
+
+    // MODIFIES: history
+    // EFFECTS: appends count records to history
+    private void fill(GachaHistory history, int count) {
+        for (int i = 1; i <= count; i++) {
+            history.addPull(i % 2 == 0, 1, i, 10 * i);
+        }
+    }
+}
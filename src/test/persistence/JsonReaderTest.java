@@ -2,6 +2,7 @@ package persistence;
 
 import model.GachaHistory;
 import model.GachaPull;
+import model.Metrics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -54,6 +55,20 @@ public class JsonReaderTest {
         }
     }
 
+    @Test
+    void testReaderRecordsMetrics() throws IOException {
+        Metrics metrics = Metrics.getInstance();
+        long reads = metrics.histogram("JsonReader.read").getCount();
+        long loadedPulls = metrics.getCounters().get("load.pulls");
+        long loadedBytes = metrics.getCounters().get("load.bytes");
+
+        GachaHistory history = new JsonReader(GENERAL_FILE).read();
+
+        assertEquals(reads + 1, metrics.histogram("JsonReader.read").getCount());
+        assertEquals(loadedPulls + history.getAllPulls().size(), metrics.getCounters().get("load.pulls"));
+        assertTrue(metrics.getCounters().get("load.bytes") > loadedBytes);
+    }
+
     @Test
     void testReaderGeneralGachaHistory() {
         // This file has a valid JSON with 2+ GachaPull records
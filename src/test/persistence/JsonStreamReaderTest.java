@@ -0,0 +1,153 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.GachaHistory;
+import model.GachaPull;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the JsonStreamReader class.
+ * Uses the same data files as JsonReaderTest, plus a tiny read buffer to make
+ * sure tokens split across buffer refills are handled.
+ */
+public class JsonStreamReaderTest {
+
+    private static final String NON_EXISTENT_FILE = "./data/NoSuchFile.json";
+    private static final String EMPTY_FILE = "./data/EmptyGachaHistory.json";
+    private static final String GENERAL_FILE = "./data/GeneralGachaHistory.json";
+    private static final String MISSING_PULL_RECORDS = "./data/MissingPullRecords.json";
+    private static final String INVALID_JSON_STRUCTURE = "./data/InvalidJsonStructure.json";
+    private static final String PARTIAL_PULL_DATA = "./data/PartialPullData.json";
+    private static final String EXTRA_FIELDS = "./data/StreamReaderExtraFields.json";
+
+    @Test
+    void testReaderNonExistentFile() {
+        JsonStreamReader reader = new JsonStreamReader(NON_EXISTENT_FILE);
+        assertThrows(IOException.class, reader::read,
+            "Expected IOException for a non-existent file path.");
+    }
+
+    @Test
+    void testReaderEmptyGachaHistory() throws IOException {
+        GachaHistory history = new JsonStreamReader(EMPTY_FILE).read();
+        assertEquals(0, history.getAllPulls().size(),
+                "Expected empty GachaHistory if file has no pulls");
+    }
+
+    @Test
+    void testReaderGeneralGachaHistory() throws IOException {
+        for (int bufferSize : new int[] {1, 7, 4096}) {
+            GachaHistory history = new JsonStreamReader(GENERAL_FILE, bufferSize).read();
+            List<GachaPull> pulls = history.getAllPulls();
+            assertEquals(2, pulls.size(), "Expected 2 pulls in test file");
+
+            GachaPull p1 = pulls.get(0);
+            assertTrue(p1.isDesired5Star(), "First pull should be desired 5-star");
+            assertEquals(2, p1.getNumberOf4Stars());
+            assertEquals(1, p1.getPullIndex());
+            assertEquals(10, p1.getDrawCount());
+
+            GachaPull p2 = pulls.get(1);
+            assertFalse(p2.isDesired5Star(), "Second pull is undesired 5-star");
+            assertEquals(0, p2.getNumberOf4Stars());
+            assertEquals(2, p2.getPullIndex());
+            assertEquals(10, p2.getDrawCount());
+        }
+    }
+
+    @Test
+    void testReaderMissingPullRecordsKey() throws IOException {
+        GachaHistory history = new JsonStreamReader(MISSING_PULL_RECORDS).read();
+        assertEquals(0, history.getAllPulls().size(),
+                "Expected empty GachaHistory if 'pullRecords' key is missing");
+    }
+
+    @Test
+    void testReaderInvalidJsonStructure() {
+        JsonStreamReader reader = new JsonStreamReader(INVALID_JSON_STRUCTURE);
+        assertThrows(JSONException.class, reader::read,
+            "A string where a boolean is expected should throw a JSONException.");
+    }
+
+    @Test
+    void testReaderPartialPullData() {
+        JsonStreamReader reader = new JsonStreamReader(PARTIAL_PULL_DATA);
+        JSONException e = assertThrows(JSONException.class, reader::read,
+            "Missing required fields should cause an exception");
+        assertEquals("JSONObject[\"numberOf4Stars\"] not found.", e.getMessage());
+    }
+
+    @Test
+    void testReaderSkipsUnknownFieldsAndDecodesEscapedKeys() throws IOException {
+        GachaHistory history = new JsonStreamReader(EXTRA_FIELDS, 5).read();
+        List<GachaPull> pulls = history.getAllPulls();
+        assertEquals(2, pulls.size(), "Unknown fields should be skipped");
+        assertEquals(1, pulls.get(0).getPullIndex(), "Escaped key should match pullIndex");
+        assertEquals(75, pulls.get(1).getDrawCount());
+    }
+
+    @Test
+    void testReaderAddsManyRecordsInChunks() throws IOException {
+        GachaHistory written = new GachaHistory();
+        for (int i = 1; i <= 20000; i++) {
+            written.addPull(i % 7 == 0, i % 4, i, 1 + i % 90);
+        }
+        String file = "./data/testStreamChunks.json";
+        JsonStreamWriter writer = new JsonStreamWriter(file);
+        try {
+            writer.open();
+            writer.write(written);
+        } finally {
+            writer.close();
+        }
+        try {
+            EventLog.getInstance().clear();
+            GachaHistory read = new JsonStreamReader(file).read();
+            assertEquals(20000, read.getAllPulls().size());
+            assertTrue(written.toJson().similar(read.toJson()), "Chunks should be added in file order");
+            assertEquals(written.calculateFiveStarRate(), read.calculateFiveStarRate(), 1e-12);
+            List<Event> added = EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED);
+            assertEquals(1, added.size(), "A load should log one summary event, not one per chunk");
+            assertEquals(20000, added.get(0).getCount());
+        } finally {
+            Files.deleteIfExists(Path.of(file));
+        }
+    }
+
+    @Test
+    void testFailedLoadLogsNoPullsAdded() throws IOException {
+        StringBuilder json = new StringBuilder("{\"pullRecords\":[");
+        for (int i = 1; i <= 10000; i++) {
+            json.append("{\"desired5Star\":false,\"numberOf4Stars\":1,\"pullIndex\":")
+                    .append(i).append(",\"drawCount\":10},");
+        }
+        json.append("{\"desired5Star\":false}]}");
+        String file = "./data/testStreamFailedChunks.json";
+        Files.writeString(Path.of(file), json);
+        try {
+            EventLog.getInstance().clear();
+            assertThrows(JSONException.class, () -> new JsonStreamReader(file).read());
+            assertEquals(0, EventLog.getInstance().getEvents(Event.Kind.PULLS_ADDED).size(),
+                    "Records of a load that failed should not be reported");
+        } finally {
+            Files.deleteIfExists(Path.of(file));
+        }
+    }
+
+    @Test
+    void testReaderMatchesJsonReader() throws IOException {
+        GachaHistory streamed = new JsonStreamReader(EXTRA_FIELDS).read();
+        GachaHistory parsed = new JsonReader(EXTRA_FIELDS).read();
+        assertTrue(parsed.toJson().similar(streamed.toJson()),
+                "Both readers should produce the same history");
+    }
+}
@@ -0,0 +1,121 @@
+package persistence;
+
+import model.GachaHistory;
+import model.GachaPull;
+import model.HistoryGenerator;
+import model.PityRules;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the JsonStreamWriter class.
+ * Writes GachaHistory in both layouts, then reads it back with both readers.
+ */
+public class JsonStreamWriterTest {
+
+    @Test
+    void testWriterInvalidFile() {
+        JsonStreamWriter writer = new JsonStreamWriter("./data/\0illegalFileName.json");
+        assertThrows(FileNotFoundException.class, writer::open,
+                "Expected FileNotFoundException for an illegal file name");
+    }
+
+    @Test
+    void testWriterEmptyGachaHistory() throws IOException {
+        JsonStreamWriter writer = new JsonStreamWriter("./data/testStreamWriterEmptyGachaHistory.json");
+        writer.open();
+        writer.write(new GachaHistory());
+        writer.close();
+
+        GachaHistory reloaded = new JsonReader("./data/testStreamWriterEmptyGachaHistory.json").read();
+        assertEquals(0, reloaded.getAllPulls().size(),
+                "Expected empty GachaHistory after writing empty data.");
+    }
+
+    @Test
+    void testWriterGeneratedHistory() throws IOException {
+        HistoryGenerator generator = new HistoryGenerator(PityRules.STANDARD, HistoryGenerator.STANDARD_FOUR_STAR, 4L);
+        JsonStreamWriter writer = new JsonStreamWriter("./data/testStreamWriterGeneratedHistory.json", true);
+        writer.open();
+        writer.write(generator, 100_000);
+        writer.close();
+
+        GachaHistory reloaded = new JsonStreamReader("./data/testStreamWriterGeneratedHistory.json").read();
+        assertTrue(generator.generate(100_000).toJson().similar(reloaded.toJson()),
+                "Streamed records should match the generated history");
+        Files.delete(Paths.get("./data/testStreamWriterGeneratedHistory.json")); // too large to keep around
+    }
+
+    @Test
+    void testWriterGeneralGachaHistory() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        gh.addPull(new GachaPull(true, 2, 1, 10));
+        gh.addPull(new GachaPull(false, 0, 2, 10));
+
+        JsonStreamWriter writer = new JsonStreamWriter("./data/testStreamWriterGeneralGachaHistory.json");
+        writer.open();
+        writer.write(gh);
+        writer.close();
+
+        GachaHistory reloaded = new JsonReader("./data/testStreamWriterGeneralGachaHistory.json").read();
+        assertTrue(gh.toJson().similar(reloaded.toJson()), "JsonReader should read back the same pulls");
+        reloaded = new JsonStreamReader("./data/testStreamWriterGeneralGachaHistory.json").read();
+        assertTrue(gh.toJson().similar(reloaded.toJson()), "JsonStreamReader should read back the same pulls");
+    }
+
+    @Test
+    void testWriterCompact() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        gh.addPull(new GachaPull(true, 2, 1, 10));
+        gh.addPull(new GachaPull(false, 0, 2, 90));
+
+        JsonStreamWriter writer = new JsonStreamWriter("./data/testStreamWriterCompact.json", true);
+        writer.open();
+        writer.write(gh);
+        writer.close();
+
+        String written = Files.readString(Paths.get("./data/testStreamWriterCompact.json"));
+        assertEquals("{\"pullRecords\":[{\"desired5Star\":true,\"numberOf4Stars\":2,\"pullIndex\":1,"
+                + "\"drawCount\":10},{\"desired5Star\":false,\"numberOf4Stars\":0,\"pullIndex\":2,"
+                + "\"drawCount\":90}]}", written, "Compact output should contain no whitespace");
+        GachaHistory reloaded = new JsonReader("./data/testStreamWriterCompact.json").read();
+        assertTrue(gh.toJson().similar(reloaded.toJson()), "Compact output should read back the same pulls");
+    }
+
+    @Test
+    void testWriterManyPulls() throws IOException {
+        GachaHistory gh = new GachaHistory();
+        for (int i = 1; i <= 2000; i++) {
+            gh.addPull(i % 2 == 0, i % 5, i, 1 + i % 90);
+        }
+        JsonStreamWriter writer = new JsonStreamWriter("./data/testStreamWriterManyPulls.json");
+        writer.open();
+        writer.write(gh);
+        writer.close();
+
+        GachaHistory reloaded = new JsonStreamReader("./data/testStreamWriterManyPulls.json").read();
+        assertTrue(gh.toJson().similar(reloaded.toJson()), "Output larger than the buffer should round-trip");
+        Files.delete(Paths.get("./data/testStreamWriterManyPulls.json"));
+    }
+
+    @Test
+    void testWriterCloseWithoutOpen() throws IOException {
+        JsonStreamWriter writer = new JsonStreamWriter("./data/testStreamWriterNoOpen.json");
+        writer.close();
+
+        writer.open();
+        GachaHistory gh = new GachaHistory();
+        gh.addPull(new GachaPull(true, 1, 1, 10));
+        writer.write(gh);
+        writer.close();
+
+        GachaHistory reloaded = new JsonReader("./data/testStreamWriterNoOpen.json").read();
+        assertEquals(1, reloaded.getAllPulls().size(), "Should have 1 pull record.");
+    }
+}
@@ -0,0 +1,134 @@
+package ui;
+
+import model.ConcurrentGachaHistory;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the StatsServer class.
+ * Each test starts a server for a new history on a free port.
+ */
+public class StatsServerTest {
+
+    private ConcurrentGachaHistory history;
+    private StatsServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        history = new ConcurrentGachaHistory();
+        server = new StatsServer(history, 0, 2);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void runAfter() {
+        server.stop(0);
+    }
+
+    @Test
+    void testAddPullAndReadStats() throws Exception {
+        HttpResponse<String> added = post("/pulls",
+                "{\"desired5Star\":true,\"numberOf4Stars\":2,\"pullIndex\":1,\"drawCount\":50}");
+        assertEquals(201, added.statusCode());
+        assertEquals(1, new JSONObject(added.body()).getInt("added"));
+        assertEquals(1, history.size());
+
+        HttpResponse<String> stats = get("/stats");
+        assertEquals(200, stats.statusCode());
+        assertEquals("application/json", stats.headers().firstValue("Content-Type").orElse(""));
+        JSONObject body = new JSONObject(stats.body());
+        assertEquals(1, body.getInt("pulls"));
+        assertEquals(1.0 / 50, body.getDouble("fiveStarRate"), 1e-12);
+        assertEquals(2.0, body.getDouble("fourStarAvg"), 1e-12);
+    }
+
+    @Test
+    void testAddBatch() throws Exception {
+        HttpResponse<String> added = post("/pulls/batch", "{\"pullRecords\":["
+                + "{\"desired5Star\":true,\"numberOf4Stars\":1,\"pullIndex\":1,\"drawCount\":10},"
+                + "{\"desired5Star\":false,\"numberOf4Stars\":3,\"pullIndex\":2,\"drawCount\":30}]}");
+        assertEquals(201, added.statusCode());
+        assertEquals(2, new JSONObject(added.body()).getInt("added"));
+        assertEquals(2, history.size());
+    }
+
+    @Test
+    void testMalformedPullsAreRejected() throws Exception {
+        assertError(400, post("/pulls", "not json"));
+        assertError(400, post("/pulls", "{\"desired5Star\":true,\"numberOf4Stars\":2,\"pullIndex\":1}"));
+        assertError(400, post("/pulls",
+                "{\"desired5Star\":true,\"numberOf4Stars\":2,\"pullIndex\":1,\"drawCount\":0}"));
+        assertError(400, post("/pulls/batch", "{\"pulls\":[]}"));
+        assertError(400, post("/pulls/batch", "{\"pullRecords\":["
+                + "{\"desired5Star\":true,\"numberOf4Stars\":1,\"pullIndex\":1,\"drawCount\":10},"
+                + "{\"desired5Star\":\"yes\",\"numberOf4Stars\":1,\"pullIndex\":2,\"drawCount\":10}]}"));
+        assertEquals(0, history.size(), "A rejected batch should add nothing");
+    }
+
+    @Test
+    void testWrongMethodOrPath() throws Exception {
+        assertError(405, get("/pulls"));
+        assertError(405, post("/stats", "{}"));
+        assertError(405, post("/threshold?rate=0.5", "{}"));
+        assertError(404, post("/pulls/other", "{}"));
+        assertError(404, get("/statsx"));
+        assertError(404, get("/stats/more"));
+        assertError(404, get("/thresholdx?rate=0.5"));
+        assertError(404, get("/threshold/x?rate=0.5"));
+    }
+
+    @Test
+    void testThreshold() throws Exception {
+        post("/pulls", "{\"desired5Star\":true,\"numberOf4Stars\":0,\"pullIndex\":1,\"drawCount\":10}");
+        HttpResponse<String> above = get("/threshold?rate=0.05");
+        assertEquals(200, above.statusCode());
+        JSONObject body = new JSONObject(above.body());
+        assertEquals(0.05, body.getDouble("rate"), 1e-12);
+        assertTrue(body.getBoolean("above"));
+        assertFalse(new JSONObject(get("/threshold?other=1&rate=0.5").body()).getBoolean("above"));
+    }
+
+    @Test
+    void testThresholdWithMissingOrBadRate() throws Exception {
+        HttpResponse<String> missing = get("/threshold");
+        assertError(400, missing);
+        assertEquals("Missing rate parameter", new JSONObject(missing.body()).getString("error"));
+        assertError(400, get("/threshold?rate="));
+        assertError(400, get("/threshold?rate=abc"));
+    }
+
+    // EFFECTS: asserts that response has the given status and an error message
+    private static void assertError(int status, HttpResponse<String> response) {
+        assertEquals(status, response.statusCode(), response.body());
+        assertTrue(new JSONObject(response.body()).has("error"), response.body());
+    }
+
+    // EFFECTS: sends a GET request for path and returns the response
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // EFFECTS: sends a POST request with body to path and returns the response
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // EFFECTS: returns the URI of path on the server under test
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}